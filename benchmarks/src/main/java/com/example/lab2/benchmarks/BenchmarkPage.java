@@ -0,0 +1,39 @@
+package com.example.lab2.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The page the benchmarks load.
+ * <p>
+ * {@value #bundled} is {@code locators.html}, shipped with the benchmarks, which has an element for
+ * every locator in {@link Locators}. Anything else is taken as a URL, e.g. a page served by a running
+ * {@code Lab2Application}.
+ */
+final class BenchmarkPage {
+
+	static final String bundled = "bundled";
+
+	private BenchmarkPage() {
+	}
+
+	static String url(String page) {
+		if (!bundled.equals(page)) {
+			return page;
+		}
+		// Chrome can't read from inside the jar, so the page is copied out first
+		try (var in = BenchmarkPage.class.getResourceAsStream("/locators.html")) {
+			if (in == null) {
+				throw new IllegalStateException("locators.html is missing from the benchmarks jar");
+			}
+			var file = Files.createTempFile("locators", ".html");
+			file.toFile().deleteOnExit();
+			Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+			return file.toUri().toString();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.example.lab2.benchmarks;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what each locator used by {@code SvtPlayTests} costs, against the same page every time.
+ * <p>
+ * {@link #findElements()} is what the tests pay: a WebDriver round trip plus the query.
+ * {@link #queryInPage()} runs only the DOM query, {@value #inPageRepetitions} times inside the page,
+ * which separates the cost of the strategy itself from the cost of talking to chromedriver.
+ * <p>
+ * The page defaults to the one shipped with the benchmarks, see {@link BenchmarkPage}.
+ * Use e.g. {@code -p page=http://localhost:8080/program} for a page of a running {@code Lab2Application}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocatorBenchmark {
+
+	static final int inPageRepetitions = 100;
+
+	private static final String queryScript = """
+			var using = arguments[0], value = arguments[1], repetitions = arguments[2], count = 0;
+			for (var i = 0; i < repetitions; i++) {
+				if (using === 'xpath') {
+					count = document.evaluate(value, document, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null).snapshotLength;
+				} else if (using === 'css selector') {
+					count = document.querySelectorAll(value).length;
+				} else if (using === 'tag name') {
+					count = document.getElementsByTagName(value).length;
+				} else {
+					var partial = using === 'partial link text';
+					count = Array.prototype.filter.call(document.getElementsByTagName('a'), function (a) {
+						var text = a.innerText.trim();
+						return partial ? text.indexOf(value) >= 0 : text === value;
+					}).length;
+				}
+			}
+			return count;
+			""";
+
+	@Param({
+			"xpath-start-link",
+			"xpath-programs-link",
+			"xpath-channels-link",
+			"xpath-availability-link",
+			"xpath-articles",
+			"xpath-consent-modal",
+			"xpath-ad-storage-switch",
+			"xpath-child-protection-switch",
+			"xpath-activate-button",
+			"xpath-play-button",
+			"xpath-alert-heading",
+			"xpath-submit-button",
+			"xpath-first-search-hit",
+			"xpath-first-program",
+			"xpath-all-programs",
+			"xpath-my-list-button",
+			"xpath-current-date",
+			"xpath-settings-link-by-class",
+			"xpath-first-search-result-link",
+			"xpath-first-article-in-main",
+			"xpath-season-two-episodes",
+			"xpath-season-two-episode-five",
+			"css-availability-span",
+			"css-cookie-button",
+			"css-save-button",
+			"class-autoplay-switch",
+			"id-ad-storage",
+			"id-parental-control-input",
+			"id-search",
+			"id-main-content",
+			"id-abroad",
+			"name-q",
+			"tag-svg",
+			"tag-h1",
+			"tag-img",
+			"linktext-settings",
+			"linktext-programs",
+			"linktext-channels",
+			"linktext-visual-aid",
+			"linktext-without-aid",
+			"linktext-season-two"
+	})
+	public String locator;
+
+	@Param({BenchmarkPage.bundled})
+	public String page;
+
+	private WebDriver driver;
+	private By by;
+	private String using;
+	private String value;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var options = new ChromeOptions();
+		options.addArguments("--remote-allow-origins=*", "--headless=new", "--window-size=1280,1024");
+		driver = new ChromeDriver(options);
+		driver.get(BenchmarkPage.url(page));
+
+		by = Locators.get(locator);
+		var parameters = ((By.Remotable) by).getRemoteParameters();
+		using = parameters.using();
+		value = String.valueOf(parameters.value());
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		driver.quit();
+	}
+
+	@Benchmark
+	public int findElements() {
+		return driver.findElements(by).size();
+	}
+
+	@Benchmark
+	public Object queryInPage() {
+		return ((JavascriptExecutor) driver).executeScript(queryScript, using, value, inPageRepetitions);
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.lab2.benchmarks;
+
+import org.openqa.selenium.By;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The locators used by {@code SvtPlayTests}, grouped by strategy in the name.
+ * The names are what the benchmarks take as parameter.
+ */
+final class Locators {
+
+	static final Map<String, By> all = new LinkedHashMap<>();
+
+	static {
+		// Short, anchored XPaths
+		all.put("xpath-start-link", By.xpath("//li[@type='start']/a"));
+		all.put("xpath-programs-link", By.xpath("//li[@type='programs']/a"));
+		all.put("xpath-channels-link", By.xpath("//li[@type='channels']/a"));
+		all.put("xpath-availability-link", By.xpath("//a[@href='https://kontakt.svt.se/guide/tillganglighet']"));
+		all.put("xpath-articles", By.xpath("//article"));
+		all.put("xpath-consent-modal", By.xpath("//div[@data-rt='cookie-consent-modal']"));
+		all.put("xpath-ad-storage-switch", By.xpath("//label[@for='play_cookie_consent_ad_storage']"));
+		all.put("xpath-child-protection-switch", By.xpath("//label[@data-rt='child-protection-switch']"));
+		all.put("xpath-activate-button", By.xpath("//button[@data-rt='child-protection-password-activate']"));
+		all.put("xpath-play-button", By.xpath("//a[@data-rt='top-area-play-button']"));
+		all.put("xpath-alert-heading", By.xpath("//div[@role='alertdialog']/h2"));
+		all.put("xpath-submit-button", By.xpath("//button[@type='submit']"));
+		all.put("xpath-first-search-hit", By.xpath("//ul/li[@data-rt='search-result-item'][1]"));
+		all.put("xpath-first-program", By.xpath("(//li[@data-rt='alphabetic-list-item']/a)[1]"));
+		all.put("xpath-all-programs", By.xpath("//li[@data-rt='alphabetic-list-item']/a"));
+		all.put("xpath-my-list-button", By.xpath("//button[@data-rt='my-list-btn']"));
+		all.put("xpath-current-date", By.xpath("//span[@data-rt='navigation-date-current']/h2"));
+
+		// Long, positional XPaths
+		all.put("xpath-settings-link-by-class", By.xpath(
+				"//a[@class='sc-5b00349a-0 hwpvwu sc-87f10045-4 imzlFR' and @href='/installningar']"));
+		all.put("xpath-first-search-result-link", By.xpath("//main/section/div/ul/li[1]/article/a"));
+		all.put("xpath-first-article-in-main", By.xpath("//main/descendant::article[1]"));
+		all.put("xpath-season-two-episodes", By.xpath("//section[@data-helix-type='list'][2]/div/article"));
+		all.put("xpath-season-two-episode-five", By.xpath("//section[@data-helix-type='list'][2]/div/article[5]/div[2]/h3/a"));
+
+		// Hashed, compound CSS classes
+		all.put("css-availability-span", By.cssSelector(".sc-343fed33-3.dmRxHt"));
+		all.put("css-cookie-button", By.cssSelector(".sc-5b00349a-2.hLpVUw"));
+		all.put("css-save-button", By.cssSelector(".sc-5b00349a-2.fuGbXH.sc-4f221cd2-9.hEiUxP"));
+		all.put("class-autoplay-switch", By.className("jmdfsN"));
+
+		// Ids, names and tags
+		all.put("id-ad-storage", By.id("play_cookie_consent_ad_storage"));
+		all.put("id-parental-control-input", By.id("play_settings-parental-control-input"));
+		all.put("id-search", By.id("search"));
+		all.put("id-main-content", By.id("play_main-content"));
+		all.put("id-abroad", By.id("abroad"));
+		all.put("name-q", By.name("q"));
+		all.put("tag-svg", By.tagName("svg"));
+		all.put("tag-h1", By.tagName("h1"));
+		all.put("tag-img", By.tagName("img"));
+
+		// Link texts
+		all.put("linktext-settings", By.linkText("INSTÄLLNINGAR"));
+		all.put("linktext-programs", By.linkText("PROGRAM"));
+		all.put("linktext-channels", By.linkText("KANALER"));
+		all.put("linktext-visual-aid", By.linkText("Syntolkat"));
+		all.put("linktext-without-aid", By.linkText("utan tolkning"));
+		all.put("linktext-season-two", By.linkText("SÄSONG 2"));
+	}
+
+	private Locators() {
+	}
+
+	static By get(String name) {
+		var by = all.get(name);
+		if (by == null) {
+			throw new IllegalArgumentException("Unknown locator " + name + ", expected one of " + all.keySet());
+		}
+		return by;
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.lab2.benchmarks;
+
+import com.example.lab2.transport.JdkHttpClientFactory;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the WebDriver commands per second of Selenium's own Netty transport and
+ * {@link JdkHttpClientFactory}.
+ * <p>
+ * Every invocation sends the {@value #commands} commands a typical test step sends: find an element,
+ * read its text, an attribute and whether it's displayed, then find a list of elements. Since Selenium
+ * picks its transport once per JVM, every transport gets a fork of its own.
+ * <p>
+ * The page defaults to the one shipped with the benchmarks, see {@link BenchmarkPage}.
+ * Use e.g. {@code -p page=http://localhost:8080/program} for a page of a running {@code Lab2Application}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportBenchmark {
+
+	static final int commands = 5;
+
+	@Param({"netty", JdkHttpClientFactory.name})
+	public String transport;
+
+	@Param({BenchmarkPage.bundled})
+	public String page;
+
+	private WebDriver driver;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		// Has to be set before the first driver is created, that's when Selenium reads it
+		System.setProperty("webdriver.http.factory", transport);
+
+		var options = new ChromeOptions();
+		options.addArguments("--remote-allow-origins=*", "--headless=new", "--window-size=1280,1024");
+		driver = new ChromeDriver(options);
+		driver.get(BenchmarkPage.url(page));
+	}
+
+	@TearDown(Level.Trial)
+	public void teardown() {
+		driver.quit();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(commands)
+	public void commands(Blackhole blackhole) {
+		WebElement heading = driver.findElement(By.tagName("h1"));
+		blackhole.consume(heading.getText());
+		blackhole.consume(heading.getAttribute("class"));
+		blackhole.consume(heading.isDisplayed());
+		blackhole.consume(driver.findElements(By.tagName("a")).size());
+	}
+}
@@ -3,6 +3,11 @@ package com.example.lab2;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+/**
+ * Serves the recorded snapshots of SVT Play, and depending on the configuration runs the record and
+ * replay proxy ({@code lab2.proxy.mode}), the synthetic monitor ({@code lab2.monitor.enabled}) or a
+ * load run of concurrent users ({@code lab2.load.enabled}).
+ */
 @SpringBootApplication
 public class Lab2Application {
 
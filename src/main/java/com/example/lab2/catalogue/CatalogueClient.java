@@ -0,0 +1,154 @@
+package com.example.lab2.catalogue;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads catalogue facts, i.e. categories, programs, search hits and seasons, straight from the
+ * data SVT Play renders its pages from, without a browser.
+ * <p>
+ * Every lookup is one plain GET of the server rendered page and a walk over its
+ * {@link NextData} payload, which takes milliseconds instead of the seconds a browser needs.
+ * It works the same against the live site, the record and replay proxy and the snapshot server.
+ */
+public class CatalogueClient implements Closeable {
+
+	private static final int timeoutMillis = 10_000;
+
+	// The __typenames of everything that is listed on the Program page
+	private static final String[] programTypes = {"TvSeries", "TvShow", "KidsTvShow", "Single"};
+
+	private final String baseUrl;
+	private final CloseableHttpClient client;
+
+	/**
+	 * @param baseUrl the site, e.g. https://www.svtplay.se/
+	 */
+	public CatalogueClient(String baseUrl) {
+		this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+
+		var requestConfig = RequestConfig.custom()
+				.setConnectTimeout(timeoutMillis)
+				.setConnectionRequestTimeout(timeoutMillis)
+				.setSocketTimeout(timeoutMillis)
+				.build();
+		client = HttpClients.custom()
+				.setDefaultRequestConfig(requestConfig)
+				.build();
+	}
+
+	/**
+	 * Fetches a page and returns its payload.
+	 *
+	 * @param path site relative, e.g. "program" or "sok?q=agenda"
+	 * @throws IOException if the page can't be fetched or isn't a 2xx
+	 */
+	public NextData page(String path) throws IOException {
+		var url = baseUrl + (path.startsWith("/") ? path.substring(1) : path);
+
+		try (var response = client.execute(new HttpGet(url))) {
+			var body = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+			var status = response.getStatusLine().getStatusCode();
+			if (status < 200 || status >= 300) {
+				throw new IOException("GET " + url + " returned " + status);
+			}
+			return NextData.parse(body);
+		}
+	}
+
+	/**
+	 * The category names on the Program page.
+	 */
+	public List<String> categories() throws IOException {
+		return page("program").ofType("Genre").stream()
+				.map(genre -> genre.getString("name"))
+				.toList();
+	}
+
+	/**
+	 * Every program on the Program page, A to Ö.
+	 */
+	public List<Program> programs() throws IOException {
+		return page("program").ofType(programTypes).stream()
+				.map(program -> new Program(program.getString("name"), path(program),
+						!onlyAvailableInSweden(program)))
+				.toList();
+	}
+
+	/**
+	 * The search hits for a query, best match first.
+	 */
+	public List<SearchHit> search(String query) throws IOException {
+		return searchHits(page(searchPath(query)));
+	}
+
+	/**
+	 * The site relative path of the search page for a query.
+	 */
+	static String searchPath(String query) {
+		return "sok?q=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The hits on a search page, best match first.
+	 */
+	static List<SearchHit> searchHits(NextData page) {
+		return page.ofType("SearchHit").stream()
+				.map(hit -> hit.getJSONObject("item"))
+				.map(item -> new SearchHit(item.getString("name"), path(item)))
+				.toList();
+	}
+
+	/**
+	 * The seasons of a program with the names of their episodes, as shown on the program page.
+	 *
+	 * @param programPath e.g. "/pistvakt", as in {@link SearchHit#path()}
+	 */
+	public List<Season> seasons(String programPath) throws IOException {
+		var seasons = new ArrayList<Season>();
+		for (var season : page(programPath).ofType("Season")) {
+			var items = season.getJSONArray("items");
+			var episodes = new ArrayList<String>(items.length());
+			for (var i = 0; i < items.length(); i++) {
+				episodes.add(items.getJSONObject(i).getString("name"));
+			}
+			seasons.add(new Season(season.getString("name"), episodes));
+		}
+		return seasons;
+	}
+
+	private static String path(JSONObject item) {
+		var urls = item.optJSONObject("urls");
+		return urls == null ? null : urls.optString("svtplay", null);
+	}
+
+	private static boolean onlyAvailableInSweden(JSONObject program) {
+		var restrictions = program.optJSONObject("restrictions");
+		return restrictions != null && restrictions.optBoolean("onlyAvailableInSweden");
+	}
+
+	@Override
+	public void close() throws IOException {
+		client.close();
+	}
+
+	public record Program(String title, String path, boolean availableAbroad) {
+	}
+
+	public record SearchHit(String title, String path) {
+	}
+
+	public record Season(String name, List<String> episodes) {
+	}
+}
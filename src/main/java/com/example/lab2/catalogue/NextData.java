@@ -0,0 +1,99 @@
+package com.example.lab2.catalogue;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The {@code __NEXT_DATA__} payload that SVT Play embeds in every server rendered page.
+ * <p>
+ * It holds everything the page is rendered from, including the GraphQL responses in
+ * {@code props.urqlState}. Those are JSON documents stored as strings, so they are parsed
+ * once up front to make the whole payload searchable as one tree.
+ * <p>
+ * org.json doesn't keep the order of keys, so they are always walked sorted by name. Anything
+ * that has to come out in page order is read from arrays, which keep it.
+ */
+public class NextData {
+
+	private static final String scriptStart = "<script id=\"__NEXT_DATA__\"";
+	private static final String scriptEnd = "</script>";
+
+	private final JSONObject root;
+	private final List<JSONObject> graphQl = new ArrayList<>();
+
+	public NextData(JSONObject root) {
+		this.root = root;
+
+		var props = root.optJSONObject("props");
+		var urqlState = props == null ? null : props.optJSONObject("urqlState");
+		if (urqlState != null) {
+			for (var key : new TreeSet<>(urqlState.keySet())) {
+				// Responses that are already objects are found through the root
+				var response = urqlState.optJSONObject(key);
+				if (response != null && response.opt("data") instanceof String data) {
+					graphQl.add(new JSONObject(data));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pulls the payload out of a page.
+	 *
+	 * @throws IllegalArgumentException if the page has no payload, e.g. an error page
+	 */
+	public static NextData parse(String html) {
+		var start = html.indexOf(scriptStart);
+		var open = start < 0 ? -1 : html.indexOf('>', start);
+		var end = open < 0 ? -1 : html.indexOf(scriptEnd, open);
+		if (end < 0) {
+			throw new IllegalArgumentException("No __NEXT_DATA__ in the page");
+		}
+
+		try {
+			return new NextData(new JSONObject(html.substring(open + 1, end)));
+		} catch (JSONException e) {
+			throw new IllegalArgumentException("Malformed __NEXT_DATA__", e);
+		}
+	}
+
+	public JSONObject root() {
+		return root;
+	}
+
+	/**
+	 * All objects with one of the given {@code __typename}s. Objects nested inside a match are
+	 * searched as well. Matches in the same array come in the order of the array, the rest in the
+	 * same order on every run.
+	 */
+	public List<JSONObject> ofType(String... typenames) {
+		var wanted = Set.of(typenames);
+		var found = new ArrayList<JSONObject>();
+		collect(root, wanted, found);
+		for (var document : graphQl) {
+			collect(document, wanted, found);
+		}
+		return found;
+	}
+
+	private static void collect(Object node, Set<String> wanted, List<JSONObject> found) {
+		if (node instanceof JSONObject object) {
+			if (wanted.contains(object.optString("__typename"))) {
+				found.add(object);
+			}
+			for (var key : new TreeSet<>(object.keySet())) {
+				collect(object.get(key), wanted, found);
+			}
+		} else if (node instanceof JSONArray array) {
+			for (var i = 0; i < array.length(); i++) {
+				collect(array.opt(i), wanted, found);
+			}
+		}
+	}
+}
@@ -0,0 +1,284 @@
+package com.example.lab2.catalogue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches for every title on the Program page and reports the ones that aren't the first hit.
+ * <p>
+ * This is the check of {@code agendaShouldBeFirstMatchWhenSearchingForAgenda} for the whole catalogue.
+ * The titles are harvested from the {@code alphabetic-list-item} entries of the Program page into a
+ * {@link TitleIndex}, and each distinct title is searched for once, at most {@link Settings#concurrency()}
+ * searches at a time over the pooled connections of the JDK client. Hits are compared by their normalised
+ * title, so "AGENDA" ranking first for "Agenda" is fine.
+ * <p>
+ * The report has one tab separated line per finding: kind, title and detail. Kinds are
+ * {@code misranked} (found, but not first), {@code missing} (not among the hits), {@code no-hits},
+ * {@code near-duplicate} (titles that normalise to the same, which no search can tell apart) and
+ * {@code error}. Findings are written in the order of the Program page, whatever order the searches finish in.
+ * <pre>
+ * java -cp ... com.example.lab2.catalogue.SearchRankingVerifier http://localhost:8080/ target/ranking-report.tsv
+ * </pre>
+ */
+public class SearchRankingVerifier implements Closeable {
+
+	private static final Pattern listItem = Pattern.compile(
+			"<li\\b[^>]*data-rt=\"alphabetic-list-item\"[^>]*>\\s*<a\\b[^>]*?href=\"([^\"]*)\"[^>]*>(.*?)</a>",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern markup = Pattern.compile("<[^>]*>");
+	private static final Pattern entity = Pattern.compile("&(#x?[0-9a-fA-F]+|amp|lt|gt|quot|apos|nbsp);");
+
+	private final URI base;
+	private final Settings settings;
+	private final Writer report;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		var thread = new Thread(runnable, "search-ranking");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final HttpClient client;
+
+	public SearchRankingVerifier(URI base, Settings settings, Writer report) {
+		this.base = base;
+		this.settings = settings;
+		this.report = report;
+		this.client = HttpClient.newBuilder()
+				.executor(executor)
+				.connectTimeout(settings.timeout())
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: SearchRankingVerifier <base url> <report file>");
+			System.exit(2);
+		}
+
+		var base = URI.create(args[0].endsWith("/") ? args[0] : args[0] + "/");
+		try (var report = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8);
+			 var verifier = new SearchRankingVerifier(base, Settings.defaults(), report)) {
+			System.out.println(verifier.verify());
+		}
+	}
+
+	/**
+	 * Harvests the titles, searches for all of them and returns when every search is done.
+	 *
+	 * @throws IOException if the Program page can't be fetched
+	 */
+	public Summary verify() throws IOException, InterruptedException {
+		var start = System.nanoTime();
+		var index = harvest(get(settings.programsPath()));
+
+		for (var group : index.nearDuplicates()) {
+			for (var i = 1; i < group.length; i++) {
+				write("near-duplicate", index.title(group[i]), "Same as " + index.title(group[0]));
+			}
+		}
+
+		// One search per distinct title, its outcome kept under the id of the first title
+		var outcomes = new Outcome[index.size()];
+		var inFlight = new Semaphore(settings.concurrency());
+		var searches = new ArrayList<CompletableFuture<?>>();
+		for (var id = 0; id < index.size(); id++) {
+			if (!index.isFirst(id)) {
+				continue;
+			}
+			var searched = id;
+			inFlight.acquire();
+			searches.add(search(index.title(id))
+					.thenApply(hits -> rank(index, searched, hits))
+					.exceptionally(error -> new Outcome(Kind.ERROR, String.valueOf(error.getCause() != null ? error.getCause() : error)))
+					.thenAccept(outcome -> outcomes[searched] = outcome)
+					.whenComplete((ignored, error) -> inFlight.release()));
+		}
+		CompletableFuture.allOf(searches.toArray(CompletableFuture[]::new)).join();
+
+		var counts = new int[Kind.values().length];
+		for (var id = 0; id < index.size(); id++) {
+			var outcome = outcomes[id];
+			if (outcome == null) {
+				continue;
+			}
+			counts[outcome.kind().ordinal()]++;
+			if (outcome.kind() != Kind.FIRST) {
+				write(outcome.kind().label, index.title(id), outcome.detail());
+			}
+		}
+		flushReport();
+
+		return new Summary(index.size(), searches.size(), counts[Kind.FIRST.ordinal()], counts[Kind.MISRANKED.ordinal()],
+				counts[Kind.MISSING.ordinal()] + counts[Kind.NO_HITS.ordinal()], index.nearDuplicates().size(),
+				counts[Kind.ERROR.ordinal()], (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Reads the titles of the {@code alphabetic-list-item} entries of a page into an index.
+	 */
+	static TitleIndex harvest(String html) {
+		var index = new TitleIndex();
+		var items = listItem.matcher(html);
+		while (items.find()) {
+			var title = unescape(markup.matcher(items.group(2)).replaceAll("")).strip();
+			if (!title.isEmpty()) {
+				index.add(title, unescape(items.group(1)));
+			}
+		}
+		return index;
+	}
+
+	private static String unescape(String html) {
+		return entity.matcher(html).replaceAll(match -> {
+			var name = match.group(1);
+			var text = switch (name) {
+				case "amp" -> "&";
+				case "lt" -> "<";
+				case "gt" -> ">";
+				case "quot" -> "\"";
+				case "apos" -> "'";
+				case "nbsp" -> " ";
+				default -> Character.toString(name.startsWith("#x") || name.startsWith("#X")
+						? Integer.parseInt(name.substring(2), 16)
+						: Integer.parseInt(name.substring(1)));
+			};
+			return Matcher.quoteReplacement(text);
+		});
+	}
+
+	private static Outcome rank(TitleIndex index, int id, List<CatalogueClient.SearchHit> hits) {
+		if (hits.isEmpty()) {
+			return new Outcome(Kind.NO_HITS, "");
+		}
+		for (var rank = 0; rank < hits.size(); rank++) {
+			if (index.matches(id, hits.get(rank).title())) {
+				return rank == 0
+						? new Outcome(Kind.FIRST, "")
+						: new Outcome(Kind.MISRANKED, "Hit " + (rank + 1) + ", after " + hits.get(0).title());
+			}
+		}
+		return new Outcome(Kind.MISSING, hits.size() + " hits, first " + hits.get(0).title());
+	}
+
+	private CompletableFuture<List<CatalogueClient.SearchHit>> search(String title) {
+		var request = HttpRequest.newBuilder(base.resolve(CatalogueClient.searchPath(title)))
+				.timeout(settings.timeout())
+				.GET()
+				.build();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+				.thenApply(response -> {
+					if (!isOk(response.statusCode())) {
+						throw new UncheckedIOException(new IOException("GET " + request.uri() + " returned " + response.statusCode()));
+					}
+					return CatalogueClient.searchHits(NextData.parse(response.body()));
+				});
+	}
+
+	private String get(String path) throws IOException, InterruptedException {
+		var request = HttpRequest.newBuilder(base.resolve(path)).timeout(settings.timeout()).GET().build();
+		var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		if (!isOk(response.statusCode())) {
+			throw new IOException("GET " + request.uri() + " returned " + response.statusCode());
+		}
+		return response.body();
+	}
+
+	private void write(String kind, String title, String detail) {
+		try {
+			report.write(kind + '\t' + title.replace('\t', ' ') + '\t' + detail.replace('\t', ' ').replace('\n', ' ') + '\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the ranking report", e);
+		}
+	}
+
+	private void flushReport() {
+		try {
+			report.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the ranking report", e);
+		}
+	}
+
+	private static boolean isOk(int status) {
+		return status >= 200 && status < 300;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param concurrency  the most searches in flight
+	 * @param timeout      for connecting and for each response
+	 * @param programsPath the page with the titles, relative to the base URL
+	 */
+	public record Settings(int concurrency, Duration timeout, String programsPath) {
+
+		public static Settings defaults() {
+			return new Settings(
+					Integer.getInteger("svtplay.ranking.concurrency", 16),
+					Duration.ofSeconds(10),
+					"program");
+		}
+	}
+
+	/**
+	 * What a verification found.
+	 *
+	 * @param titles         the titles on the Program page
+	 * @param searches       the searches made, one per distinct title
+	 * @param first          the searches where the title was the first hit
+	 * @param misranked      the searches where the title was a hit, but not the first
+	 * @param missing        the searches where the title wasn't a hit at all
+	 * @param nearDuplicates the groups of titles that normalise to the same
+	 */
+	public record Summary(int titles, int searches, int first, int misranked, int missing, int nearDuplicates,
+						  int errors, long millis) {
+
+		public double searchesPerSecond() {
+			return millis == 0 ? searches : searches * 1000.0 / millis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT,
+					"Searched for %d of %d titles in %d ms (%.1f searches/s): %d first, %d misranked, %d missing, "
+							+ "%d near duplicates, %d errors",
+					searches, titles, millis, searchesPerSecond(), first, misranked, missing, nearDuplicates, errors);
+		}
+	}
+
+	private enum Kind {
+		FIRST("first"), MISRANKED("misranked"), MISSING("missing"), NO_HITS("no-hits"), ERROR("error");
+
+		private final String label;
+
+		Kind(String label) {
+			this.label = label;
+		}
+	}
+
+	private record Outcome(Kind kind, String detail) {
+	}
+}
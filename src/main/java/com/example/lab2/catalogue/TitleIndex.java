@@ -0,0 +1,180 @@
+package com.example.lab2.catalogue;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Program titles in a trie of their normalised form, each title known by an int id.
+ * <p>
+ * Normalising lower cases a title and turns every run of punctuation and white space into a single
+ * space, so "Agenda", "AGENDA!" and " agenda " share a node. Titles that share a node are near
+ * duplicates: a search can't tell them apart, and only one of them can be the first hit.
+ * <p>
+ * Nodes and titles live in parallel primitive arrays rather than objects, a few dozen bytes per
+ * title, which keeps a catalogue of thousands of titles small and cheap to build.
+ */
+class TitleIndex {
+
+	private static final Pattern separators = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	// Node 0 is the root, children are a linked list through sibling
+	private char[] label = new char[64];
+	private int[] child = new int[64];
+	private int[] sibling = new int[64];
+	// The first title ending at a node, -1 if none
+	private int[] head = new int[64];
+	private int nodes = 1;
+
+	private String[] titles = new String[16];
+	private String[] paths = new String[16];
+	// The node of each title, and the next title ending at the same node, -1 if none
+	private int[] nodeOf = new int[16];
+	private int[] next = new int[16];
+	private int size;
+
+	TitleIndex() {
+		head[0] = -1;
+	}
+
+	/**
+	 * Lower case letters and digits, separated by single spaces.
+	 */
+	static String normalise(String title) {
+		var normalised = Normalizer.normalize(title, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+		return separators.matcher(normalised).replaceAll(" ").trim();
+	}
+
+	/**
+	 * Adds a title, also when a title with the same normalised form is already there.
+	 *
+	 * @return the id of the title
+	 */
+	int add(String title, String path) {
+		var node = 0;
+		var key = normalise(title);
+		for (var i = 0; i < key.length(); i++) {
+			node = childOf(node, key.charAt(i), true);
+		}
+
+		if (size == titles.length) {
+			titles = Arrays.copyOf(titles, size * 2);
+			paths = Arrays.copyOf(paths, size * 2);
+			nodeOf = Arrays.copyOf(nodeOf, size * 2);
+			next = Arrays.copyOf(next, size * 2);
+		}
+		var id = size++;
+		titles[id] = title;
+		paths[id] = path;
+		nodeOf[id] = node;
+
+		// Appended, so that the titles of a node stay in the order they were added
+		next[id] = -1;
+		if (head[node] == -1) {
+			head[node] = id;
+		} else {
+			var last = head[node];
+			while (next[last] != -1) {
+				last = next[last];
+			}
+			next[last] = id;
+		}
+		return id;
+	}
+
+	private int childOf(int node, char c, boolean create) {
+		for (var candidate = child[node]; candidate != 0; candidate = sibling[candidate]) {
+			if (label[candidate] == c) {
+				return candidate;
+			}
+		}
+		if (!create) {
+			return -1;
+		}
+
+		if (nodes == label.length) {
+			label = Arrays.copyOf(label, nodes * 2);
+			child = Arrays.copyOf(child, nodes * 2);
+			sibling = Arrays.copyOf(sibling, nodes * 2);
+			head = Arrays.copyOf(head, nodes * 2);
+		}
+		var created = nodes++;
+		label[created] = c;
+		child[created] = 0;
+		sibling[created] = child[node];
+		head[created] = -1;
+		child[node] = created;
+		return created;
+	}
+
+	/**
+	 * The first title added with the same normalised form, or -1 if there is none.
+	 */
+	int find(String title) {
+		var node = 0;
+		var key = normalise(title);
+		for (var i = 0; i < key.length() && node != -1; i++) {
+			node = childOf(node, key.charAt(i), false);
+		}
+		return node == -1 ? -1 : head[node];
+	}
+
+	/**
+	 * Whether a title is the same as the one with the given id, once normalised.
+	 */
+	boolean matches(int id, String title) {
+		var found = find(title);
+		return found != -1 && nodeOf[found] == nodeOf[id];
+	}
+
+	/**
+	 * The ids of every title with the same normalised form as the given one, including itself.
+	 */
+	int[] sameAs(int id) {
+		var count = 0;
+		for (var other = head[nodeOf[id]]; other != -1; other = next[other]) {
+			count++;
+		}
+		var ids = new int[count];
+		var i = 0;
+		for (var other = head[nodeOf[id]]; other != -1; other = next[other]) {
+			ids[i++] = other;
+		}
+		return ids;
+	}
+
+	/**
+	 * Whether the id is the first of its normalised form, i.e. the one that stands for all of them.
+	 */
+	boolean isFirst(int id) {
+		return head[nodeOf[id]] == id;
+	}
+
+	/**
+	 * Every group of near duplicates, the ids of each in the order they were added.
+	 */
+	List<int[]> nearDuplicates() {
+		var groups = new ArrayList<int[]>();
+		for (var id = 0; id < size; id++) {
+			if (isFirst(id) && next[id] != -1) {
+				groups.add(sameAs(id));
+			}
+		}
+		return groups;
+	}
+
+	String title(int id) {
+		return titles[id];
+	}
+
+	String path(int id) {
+		return paths[id];
+	}
+
+	int size() {
+		return size;
+	}
+}
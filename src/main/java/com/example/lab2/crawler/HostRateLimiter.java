@@ -0,0 +1,38 @@
+package com.example.lab2.crawler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Spaces out the requests to each host, so that a crawl never sends more than a set number per second.
+ * <p>
+ * Callers reserve a slot and are told how long to wait for it. Nobody is blocked, the waiting is up
+ * to the caller, e.g. by scheduling the request.
+ */
+class HostRateLimiter {
+
+	private final long intervalNanos;
+	private final Map<String, Long> nextSlot = new HashMap<>();
+
+	/**
+	 * @param perSecond the most requests per second and host
+	 */
+	HostRateLimiter(double perSecond) {
+		if (perSecond <= 0) {
+			throw new IllegalArgumentException("The rate must be positive, not " + perSecond);
+		}
+		this.intervalNanos = (long) (1_000_000_000L / perSecond);
+	}
+
+	/**
+	 * Reserves the next free slot of a host.
+	 *
+	 * @return the nanoseconds until the slot, 0 if it is free now
+	 */
+	synchronized long reserve(String host) {
+		var now = System.nanoTime();
+		var slot = Math.max(now, nextSlot.getOrDefault(host, now));
+		nextSlot.put(host, slot + intervalNanos);
+		return slot - now;
+	}
+}
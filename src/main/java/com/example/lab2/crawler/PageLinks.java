@@ -0,0 +1,116 @@
+package com.example.lab2.crawler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The links of an HTML page that the crawler follows or checks.
+ * <p>
+ * The page is scanned with regular expressions rather than parsed. Server rendered pages are
+ * well formed enough for that, and it keeps the crawler free of an HTML parser.
+ *
+ * @param pages           the {@code href} of every {@code <a>}
+ * @param resources       every {@code src} and {@code srcset} candidate of {@code <img>} and {@code <source>},
+ *                        and every {@code url(...)} in inline styles and {@code <style>} blocks
+ * @param imagesWithoutAlt the {@code src} of every {@code <img>} without, or with an empty, alt text
+ */
+record PageLinks(List<String> pages, List<String> resources, List<String> imagesWithoutAlt) {
+
+	private static final Pattern tag = Pattern.compile("<(a|img|source)\\b([^>]*)>", Pattern.CASE_INSENSITIVE);
+	private static final Pattern attribute =
+			Pattern.compile("([\\w:-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s\"'>]+))");
+	private static final Pattern styleBlock = Pattern.compile("<style\\b[^>]*>(.*?)</style>",
+			Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+	private static final Pattern styleAttribute = Pattern.compile("\\bstyle\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')",
+			Pattern.CASE_INSENSITIVE);
+	private static final Pattern cssUrl = Pattern.compile("url\\(\\s*(?:\"([^\"]*)\"|'([^']*)'|([^)\\s]*))\\s*\\)");
+
+	static PageLinks parse(String html) {
+		var pages = new ArrayList<String>();
+		var resources = new ArrayList<String>();
+		var imagesWithoutAlt = new ArrayList<String>();
+
+		var tags = tag.matcher(html);
+		while (tags.find()) {
+			var name = tags.group(1).toLowerCase(Locale.ROOT);
+			var attributes = attributes(tags.group(2));
+			switch (name) {
+				case "a" -> addIfPresent(pages, attributes.get("href"));
+				case "img", "source" -> {
+					addIfPresent(resources, attributes.get("src"));
+					resources.addAll(srcset(attributes.get("srcset")));
+					if (name.equals("img")) {
+						var alt = attributes.get("alt");
+						if (alt == null || alt.isBlank()) {
+							imagesWithoutAlt.add(attributes.getOrDefault("src", ""));
+						}
+					}
+				}
+				default -> {
+				}
+			}
+		}
+
+		var styles = new ArrayList<String>();
+		styleBlock.matcher(html).results().forEach(block -> styles.add(block.group(1)));
+		styleAttribute.matcher(html).results().forEach(style -> styles.add(first(style.group(1), style.group(2))));
+		for (var style : styles) {
+			var urls = cssUrl.matcher(style);
+			while (urls.find()) {
+				addIfPresent(resources, unescape(first(urls.group(1), urls.group(2), urls.group(3))));
+			}
+		}
+
+		return new PageLinks(pages, resources, imagesWithoutAlt);
+	}
+
+	private static Map<String, String> attributes(String attributes) {
+		var values = new HashMap<String, String>();
+		var matcher = attribute.matcher(attributes);
+		while (matcher.find()) {
+			values.putIfAbsent(matcher.group(1).toLowerCase(Locale.ROOT),
+					unescape(first(matcher.group(2), matcher.group(3), matcher.group(4))));
+		}
+		return values;
+	}
+
+	/**
+	 * The URLs of a srcset, e.g. {@code "a.jpg 1x, b.jpg 2x"}.
+	 */
+	static List<String> srcset(String srcset) {
+		var urls = new ArrayList<String>();
+		if (srcset == null) {
+			return urls;
+		}
+		for (var candidate : srcset.split(",")) {
+			var trimmed = candidate.trim();
+			if (!trimmed.isEmpty()) {
+				urls.add(trimmed.split("\\s+")[0]);
+			}
+		}
+		return urls;
+	}
+
+	private static void addIfPresent(List<String> urls, String url) {
+		if (url != null && !url.isBlank()) {
+			urls.add(url.trim());
+		}
+	}
+
+	private static String first(String... values) {
+		for (var value : values) {
+			if (value != null) {
+				return value;
+			}
+		}
+		return "";
+	}
+
+	private static String unescape(String value) {
+		return value.replace("&amp;", "&").replace("&quot;", "\"").replace("&#x27;", "'").replace("&#39;", "'");
+	}
+}
@@ -0,0 +1,312 @@
+package com.example.lab2.crawler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Crawls a site from a few start pages and checks every link, image and background it comes across.
+ * <p>
+ * Pages on the site are fetched and scanned for more links, up to {@link Settings#maxPages()}. Everything
+ * else, i.e. other sites and the images, srcsets and CSS backgrounds of the pages, is only checked for its
+ * status: HEAD first, and GET if HEAD isn't answered with 200. Redirects are followed, and only a final 200
+ * counts as working, same as the link checker of the UI tests.
+ * <p>
+ * Every URL is requested once. At most {@link Settings#concurrency()} requests are in flight, sent by
+ * the JDK client over pooled connections, and each host gets at most {@link Settings#perHostRate()}
+ * requests per second. Findings are written to the report as they are found, one tab separated line
+ * each: kind, URL, detail and the page it was found on.
+ * <pre>
+ * java -cp ... com.example.lab2.crawler.SiteCrawler http://localhost:8080/ target/crawl-report.tsv
+ * </pre>
+ */
+public class SiteCrawler implements Closeable {
+
+	/**
+	 * Where a crawl starts: the pages the UI tests visit.
+	 */
+	public static final List<String> seeds = List.of("", "program", "kanaler", "installningar", "sok?q=agenda");
+
+	private final URI base;
+	private final Settings settings;
+	private final Writer report;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		var thread = new Thread(runnable, "site-crawler");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final HttpClient client;
+	private final VisitedUrls visited = new VisitedUrls(1024);
+	private final HostRateLimiter rateLimiter;
+	private final Semaphore inFlight;
+	private final LinkedBlockingQueue<Link> queue = new LinkedBlockingQueue<>();
+
+	// Links queued or in flight; the crawl is over when there are none
+	private final AtomicInteger pending = new AtomicInteger();
+	private final AtomicInteger pages = new AtomicInteger();
+	private final AtomicInteger checked = new AtomicInteger();
+	private final AtomicInteger findings = new AtomicInteger();
+
+	public SiteCrawler(URI base, Settings settings, Writer report) {
+		this.base = base;
+		this.settings = settings;
+		this.report = report;
+		this.rateLimiter = new HostRateLimiter(settings.perHostRate());
+		this.inFlight = new Semaphore(settings.concurrency());
+		this.client = HttpClient.newBuilder()
+				.executor(executor)
+				.connectTimeout(settings.timeout())
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: SiteCrawler <base url> <report file>");
+			System.exit(2);
+		}
+
+		var base = URI.create(args[0].endsWith("/") ? args[0] : args[0] + "/");
+		try (var report = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8);
+			 var crawler = new SiteCrawler(base, Settings.defaults(), report)) {
+			System.out.println(crawler.crawl(seeds));
+		}
+	}
+
+	/**
+	 * Crawls from the given pages, relative to the base URL, and returns when every link has been checked.
+	 */
+	public Summary crawl(List<String> seedPaths) throws InterruptedException {
+		var start = System.nanoTime();
+		for (var path : seedPaths) {
+			submit(base.resolve(path).toString(), LinkKind.PAGE, base.toString());
+		}
+
+		while (pending.get() > 0) {
+			var link = queue.poll(50, TimeUnit.MILLISECONDS);
+			if (link == null) {
+				continue;
+			}
+			inFlight.acquire();
+			var delay = rateLimiter.reserve(link.uri().getHost());
+			CompletableFuture.runAsync(() -> fetch(link), CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor));
+		}
+
+		flushReport();
+		return new Summary(pages.get(), checked.get(), findings.get(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	private void submit(String url, LinkKind kind, String foundOn) {
+		URI uri;
+		try {
+			uri = normalize(new URI(url));
+		} catch (URISyntaxException e) {
+			finding("malformed", url, e.getMessage(), foundOn);
+			return;
+		}
+		if (uri == null || !visited.add(uri.toString())) {
+			return;
+		}
+
+		// Only pages on the site are crawled, the rest is just checked
+		var crawl = kind == LinkKind.PAGE && base.getHost().equalsIgnoreCase(uri.getHost())
+				&& pages.getAndUpdate(count -> Math.min(count + 1, settings.maxPages())) < settings.maxPages();
+
+		pending.incrementAndGet();
+		queue.add(new Link(uri, crawl, foundOn));
+	}
+
+	private void fetch(Link link) {
+		CompletableFuture<?> done;
+		try {
+			done = send(link);
+		} catch (RuntimeException e) {
+			done = CompletableFuture.failedFuture(e);
+		}
+
+		done.whenComplete((ignored, error) -> {
+			if (error != null) {
+				var cause = error.getCause() != null ? error.getCause() : error;
+				finding("error", link.uri().toString(), cause.toString(), link.foundOn());
+			}
+			checked.incrementAndGet();
+			inFlight.release();
+			pending.decrementAndGet();
+		});
+	}
+
+	private CompletableFuture<?> send(Link link) {
+		var request = HttpRequest.newBuilder(link.uri()).timeout(settings.timeout());
+		if (link.crawl()) {
+			return client.sendAsync(request.GET().build(), HttpResponse.BodyHandlers.ofString())
+					.thenAccept(response -> crawled(link, response));
+		}
+
+		return client.sendAsync(request.method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+						HttpResponse.BodyHandlers.discarding())
+				.thenCompose(response -> isOk(response.statusCode())
+						? CompletableFuture.completedFuture(response)
+						// HEAD isn't always supported, so give it another go with GET
+						: client.sendAsync(request.GET().build(), HttpResponse.BodyHandlers.discarding()))
+				.thenAccept(response -> {
+					if (!isOk(response.statusCode())) {
+						finding("broken", link.uri().toString(), "HTTP " + response.statusCode(), link.foundOn());
+					}
+				});
+	}
+
+	private void crawled(Link link, HttpResponse<String> response) {
+		var url = link.uri().toString();
+		if (!isOk(response.statusCode())) {
+			finding("broken", url, "HTTP " + response.statusCode(), link.foundOn());
+			return;
+		}
+		var contentType = response.headers().firstValue("Content-Type").orElse("");
+		if (!contentType.toLowerCase(Locale.ROOT).startsWith("text/html")) {
+			return;
+		}
+
+		// Links are resolved against where we ended up, after redirects
+		var page = response.uri();
+		var links = PageLinks.parse(response.body());
+		for (var src : links.imagesWithoutAlt()) {
+			finding("missing-alt", src.isEmpty() ? "(no src)" : resolve(page, src), "No alt text", url);
+		}
+		for (var href : links.pages()) {
+			submitRelative(page, href, LinkKind.PAGE, url);
+		}
+		for (var resource : links.resources()) {
+			submitRelative(page, resource, LinkKind.RESOURCE, url);
+		}
+	}
+
+	private void submitRelative(URI page, String href, LinkKind kind, String foundOn) {
+		var lower = href.toLowerCase(Locale.ROOT);
+		if (href.startsWith("#") || lower.startsWith("mailto:") || lower.startsWith("tel:")
+				|| lower.startsWith("javascript:") || lower.startsWith("data:")) {
+			return;
+		}
+		try {
+			submit(page.resolve(href).toString(), kind, foundOn);
+		} catch (IllegalArgumentException e) {
+			finding("malformed", href, e.getMessage(), foundOn);
+		}
+	}
+
+	private static String resolve(URI page, String href) {
+		try {
+			return page.resolve(href).toString();
+		} catch (IllegalArgumentException e) {
+			return href;
+		}
+	}
+
+	/**
+	 * The URL as it is remembered: without fragment and default port, or null if it can't be fetched.
+	 */
+	static URI normalize(URI uri) throws URISyntaxException {
+		var scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+		if (!"http".equals(scheme) && !"https".equals(scheme) || uri.getHost() == null) {
+			return null;
+		}
+		var port = uri.getPort() == 80 && scheme.equals("http") || uri.getPort() == 443 && scheme.equals("https")
+				? -1 : uri.getPort();
+		var path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+		var query = uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery();
+		return new URI(scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + (port == -1 ? "" : ":" + port)
+				+ path + query).normalize();
+	}
+
+	private void finding(String kind, String url, String detail, String foundOn) {
+		findings.incrementAndGet();
+		synchronized (report) {
+			try {
+				report.write(kind + '\t' + url + '\t' + detail.replace('\t', ' ').replace('\n', ' ') + '\t' + foundOn + '\n');
+				// Flushed as we go, so that a long crawl can be followed with tail -f
+				report.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not write the crawl report", e);
+			}
+		}
+	}
+
+	private void flushReport() {
+		synchronized (report) {
+			try {
+				report.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not write the crawl report", e);
+			}
+		}
+	}
+
+	// The same rule as LinkChecker of the UI tests, so both report the same links as broken
+	private static boolean isOk(int status) {
+		return status == 200;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param concurrency the most requests in flight
+	 * @param perHostRate the most requests per second to each host
+	 * @param maxPages    the most pages on the site to fetch and scan for links
+	 * @param timeout     for connecting and for each response
+	 */
+	public record Settings(int concurrency, double perHostRate, int maxPages, Duration timeout) {
+
+		public static Settings defaults() {
+			return new Settings(
+					Integer.getInteger("svtplay.crawl.concurrency", 16),
+					Double.parseDouble(System.getProperty("svtplay.crawl.perHostRate", "10")),
+					Integer.getInteger("svtplay.crawl.maxPages", 500),
+					Duration.ofSeconds(10));
+		}
+	}
+
+	/**
+	 * What a crawl did. Every URL is checked once, whether it is a page or not.
+	 */
+	public record Summary(int pages, int checked, int findings, long millis) {
+
+		public double urlsPerSecond() {
+			return millis == 0 ? checked : checked * 1000.0 / millis;
+		}
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "Crawled %d pages and checked %d URLs in %d ms (%.1f URLs/s), %d findings",
+					pages, checked, millis, urlsPerSecond(), findings);
+		}
+	}
+
+	private enum LinkKind {
+		PAGE, RESOURCE
+	}
+
+	private record Link(URI uri, boolean crawl, String foundOn) {
+	}
+}
@@ -0,0 +1,78 @@
+package com.example.lab2.crawler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The URLs a crawl has seen, as 64-bit fingerprints in an open addressing hash table.
+ * <p>
+ * A URL takes 8 to 16 bytes instead of the hundred or so of a {@code HashSet<String>} entry.
+ * Two URLs with the same fingerprint count as one, which at 64 bits is not going to happen
+ * for the few hundred thousand URLs of a site.
+ */
+class VisitedUrls {
+
+	// 0 marks a free slot, so a URL hashing to 0 is stored as this instead
+	private static final long zero = 0x9E3779B97F4A7C15L;
+
+	private long[] slots;
+	private int size;
+
+	VisitedUrls(int expected) {
+		slots = new long[Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1];
+	}
+
+	/**
+	 * Adds a URL.
+	 *
+	 * @return true if the URL wasn't seen before
+	 */
+	synchronized boolean add(String url) {
+		var fingerprint = fingerprint(url);
+		if (!insert(slots, fingerprint)) {
+			return false;
+		}
+		// Keep the table at most half full, so that probe sequences stay short
+		if (++size * 2 > slots.length) {
+			var grown = new long[slots.length * 2];
+			for (var slot : slots) {
+				if (slot != 0) {
+					insert(grown, slot);
+				}
+			}
+			slots = grown;
+		}
+		return true;
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	private static boolean insert(long[] table, long fingerprint) {
+		var mask = table.length - 1;
+		for (var i = (int) (fingerprint ^ (fingerprint >>> 32)) & mask; ; i = (i + 1) & mask) {
+			if (table[i] == 0) {
+				table[i] = fingerprint;
+				return true;
+			}
+			if (table[i] == fingerprint) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * FNV-1a over the UTF-8 bytes, with a final mix so that similar URLs spread over the table.
+	 */
+	static long fingerprint(String url) {
+		var hash = 0xCBF29CE484222325L;
+		for (var b : url.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xFF;
+			hash *= 0x100000001B3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		return hash == 0 ? zero : hash;
+	}
+}
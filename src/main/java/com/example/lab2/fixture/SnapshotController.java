@@ -0,0 +1,111 @@
+package com.example.lab2.fixture;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Serves recorded snapshots of SVT Play so that the UI tests can run without network access.
+ * <p>
+ * A request is mapped to a file below {@code lab2.snapshots.location}:
+ * <ul>
+ *     <li>{@code /} is served from {@code index.html}</li>
+ *     <li>{@code /program} is served from {@code program.html} or {@code program/index.html}</li>
+ *     <li>{@code /sok?q=agenda} is served from {@code sok__q=agenda.html}, falling back to {@code sok.html}</li>
+ *     <li>Anything with a file extension, like images, is served as is</li>
+ * </ul>
+ * The application doesn't start without a location, there is no sensible default outside of the tests.
+ */
+@RestController
+public class SnapshotController {
+
+	private final ResourceLoader resourceLoader;
+	private final String location;
+
+	public SnapshotController(ResourceLoader resourceLoader,
+							  @Value("${lab2.snapshots.location:}") String location) {
+		if (location.isBlank()) {
+			throw new IllegalStateException("lab2.snapshots.location is not set, point it at a directory of "
+					+ "recorded snapshots, e.g. file:snapshots/, or start with the fixtures profile of the tests");
+		}
+		this.resourceLoader = resourceLoader;
+		this.location = location.endsWith("/") ? location : location + "/";
+	}
+
+	@GetMapping("/**")
+	public ResponseEntity<Resource> snapshot(HttpServletRequest request) {
+		var path = UriUtils.decode(request.getRequestURI(), StandardCharsets.UTF_8);
+
+		// Never let a request escape the snapshot directory
+		if (path.contains("..")) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		for (var candidate : candidates(path, request.getQueryString())) {
+			var resource = resourceLoader.getResource(location + candidate);
+			if (resource.exists() && resource.isReadable()) {
+				return ResponseEntity.ok()
+						.contentType(mediaType(resource))
+						.body(resource);
+			}
+		}
+
+		return ResponseEntity.notFound().build();
+	}
+
+	/**
+	 * Lists the snapshot files that may answer a request, best match first.
+	 */
+	static List<String> candidates(String path, String query) {
+		var name = path.replaceAll("^/+|/+$", "");
+		var candidates = new ArrayList<String>();
+
+		// Static files are stored under their own name
+		if (name.substring(name.lastIndexOf('/') + 1).contains(".")) {
+			candidates.add(name);
+			return candidates;
+		}
+
+		var base = name.isEmpty() ? "index" : name;
+		if (query != null && !query.isEmpty()) {
+			candidates.add(base + "__" + queryKey(query) + ".html");
+		}
+		candidates.add(base + ".html");
+		if (!name.isEmpty()) {
+			candidates.add(name + "/index.html");
+		}
+		return candidates;
+	}
+
+	/**
+	 * Turns a query string into something that is safe to use in a file name. Accents are dropped,
+	 * e.g. "från" becomes "fran", so that names survive checkouts and builds under any locale.
+	 */
+	static String queryKey(String query) {
+		var decoded = UriUtils.decode(query.replace('+', ' '), StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+		return Normalizer.normalize(decoded, Normalizer.Form.NFD)
+				.replaceAll("\\p{M}+", "")
+				.replaceAll("[^a-z0-9=_-]+", "_");
+	}
+
+	private static MediaType mediaType(Resource resource) {
+		var mediaType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+		if ("text".equals(mediaType.getType())) {
+			return new MediaType(mediaType, StandardCharsets.UTF_8);
+		}
+		return mediaType;
+	}
+}
@@ -0,0 +1,15 @@
+package com.example.lab2.load;
+
+import java.util.List;
+
+/**
+ * What a user does in one go: a number of pages fetched one after the other.
+ *
+ * @param steps the pages, relative to the base URL
+ */
+public record Flow(String name, List<String> steps) {
+
+	public Flow(String name, String... steps) {
+		this(name, List.of(steps));
+	}
+}
@@ -0,0 +1,101 @@
+package com.example.lab2.load;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latencies in nanoseconds, counted in log-linear buckets that any number of threads record into at once.
+ * <p>
+ * Values below {@value #subBuckets} ns are counted exactly. Above that, every power of two is split into
+ * {@value #subBuckets} buckets of equal width, so a percentile is off by at most 1/{@value #subBuckets},
+ * about 3%, of its value. Values up to about 18 minutes fit, longer ones count as the longest.
+ * <p>
+ * Recording is an index computed from the bits of the value and one atomic increment, without locks or
+ * allocation, so the histogram costs the users of a load run next to nothing and never makes them wait
+ * for each other.
+ */
+class LatencyHistogram {
+
+	private static final int subBucketBits = 5;
+	private static final int subBuckets = 1 << subBucketBits;
+	// 2^40 ns is about 18 minutes
+	private static final int maxBits = 40;
+	private static final long maxValue = (1L << maxBits) - 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(index(maxValue) + 1);
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Counts one latency.
+	 */
+	void record(long nanos) {
+		var value = Math.min(Math.max(nanos, 0), maxValue);
+		counts.getAndIncrement(index(value));
+		total.getAndIncrement();
+		sum.getAndAdd(value);
+		// Rarely more than one round, only a new maximum is written
+		var current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * The bucket of a value: its highest bit picks the power of two, the next {@value #subBucketBits}
+	 * bits the bucket within it.
+	 */
+	static int index(long value) {
+		if (value < subBuckets) {
+			return (int) value;
+		}
+		var shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+		return (shift + 1) * subBuckets + (int) (value >>> shift) - subBuckets;
+	}
+
+	/**
+	 * The highest value that goes into a bucket.
+	 */
+	static long highestIn(int index) {
+		if (index < subBuckets) {
+			return index;
+		}
+		var shift = index / subBuckets - 1;
+		var sub = index % subBuckets + subBuckets;
+		return ((long) (sub + 1) << shift) - 1;
+	}
+
+	long count() {
+		return total.get();
+	}
+
+	long max() {
+		return max.get();
+	}
+
+	double mean() {
+		var count = total.get();
+		return count == 0 ? 0 : (double) sum.get() / count;
+	}
+
+	/**
+	 * The latency that the given share of the recorded ones is at or below, e.g. 0.99 for the 99th percentile.
+	 * Read while recording goes on, the answer is about the latencies recorded so far.
+	 */
+	long percentile(double share) {
+		var count = total.get();
+		if (count == 0) {
+			return 0;
+		}
+		var rank = Math.max(1, (long) Math.ceil(share * count));
+		var seen = 0L;
+		for (var i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestIn(i), max.get());
+			}
+		}
+		return max.get();
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.lab2.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.net.URI;
+
+/**
+ * Runs the load generator once the application is up, when {@code lab2.load.enabled} is true.
+ * Without a {@code lab2.load.base-url} the load is put on the snapshots served by the application itself.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "lab2.load.enabled", havingValue = "true")
+@EnableConfigurationProperties(LoadProperties.class)
+public class LoadConfiguration {
+
+	private static final Logger logger = LoggerFactory.getLogger(LoadConfiguration.class);
+
+	@Bean
+	ApplicationRunner loadRunner(LoadProperties properties, Environment environment) {
+		return args -> {
+			var baseUrl = properties.baseUrl().isEmpty()
+					? "http://localhost:" + environment.getProperty("local.server.port", "8080") + "/"
+					: properties.baseUrl();
+			var base = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+			try (var generator = new LoadGenerator(properties, base, SvtPlayFlows.named(properties.flows()))) {
+				logger.info("Load run done\n{}", generator.run().table());
+			}
+		};
+	}
+}
@@ -0,0 +1,232 @@
+package com.example.lab2.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Puts the site under the load of many users running the {@link SvtPlayFlows} at once.
+ * <p>
+ * In the closed model there are {@link LoadProperties#users()} users, started one by one over the ramp up.
+ * Each runs the flows in turn, with a random pause of {@link LoadProperties#thinkTime()} on average
+ * in between, so a slower site gets fewer requests. In the open model flows start at
+ * {@link LoadProperties#arrivalRate()} per second, however slow the site is, and a flow's latency counts
+ * from when it should have started. That way time spent waiting for the site isn't hidden, but a flow
+ * that would make more than {@link LoadProperties#users()} run at once is dropped and counted instead.
+ * <p>
+ * Every user is a thread of its own that blocks on its requests. Virtual threads are used when the JVM has
+ * them without preview, i.e. Java 21 and later, which makes thousands of users cheap. Before that they are
+ * platform threads. Latencies go to a {@link LatencyHistogram} per flow and per step.
+ */
+public class LoadGenerator implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+	private final LoadProperties properties;
+	private final URI base;
+	private final List<Flow> flows;
+
+	private final ExecutorService users = userThreads();
+	private final HttpClient client;
+
+	// Per flow, and per step of each flow
+	private final LatencyHistogram[] flowLatencies;
+	private final LatencyHistogram[][] stepLatencies;
+	private final AtomicLong[] flowErrors;
+	private final AtomicLong[][] stepErrors;
+	private final AtomicLong dropped = new AtomicLong();
+
+	public LoadGenerator(LoadProperties properties, URI base, List<Flow> flows) {
+		this.properties = properties;
+		this.base = base;
+		this.flows = flows;
+		this.client = HttpClient.newBuilder()
+				.connectTimeout(properties.timeout())
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+
+		flowLatencies = new LatencyHistogram[flows.size()];
+		stepLatencies = new LatencyHistogram[flows.size()][];
+		flowErrors = new AtomicLong[flows.size()];
+		stepErrors = new AtomicLong[flows.size()][];
+		for (var f = 0; f < flows.size(); f++) {
+			var steps = flows.get(f).steps().size();
+			flowLatencies[f] = new LatencyHistogram();
+			flowErrors[f] = new AtomicLong();
+			stepLatencies[f] = new LatencyHistogram[steps];
+			stepErrors[f] = new AtomicLong[steps];
+			for (var s = 0; s < steps; s++) {
+				stepLatencies[f][s] = new LatencyHistogram();
+				stepErrors[f][s] = new AtomicLong();
+			}
+		}
+	}
+
+	/**
+	 * Virtual threads if the JVM has them, see the class comment.
+	 */
+	static ExecutorService userThreads() {
+		try {
+			// Compiled for Java 19, where they are a preview API that can only be reached like this
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				var thread = new Thread(runnable, "load-user");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Runs the load for the configured duration and returns when the last flow is done.
+	 */
+	public LoadReport run() throws InterruptedException {
+		logger.info("Loading {} for {} with the {} model, {} users{}, flows {}", base, properties.duration(),
+				properties.model().name().toLowerCase(Locale.ROOT), properties.users(),
+				properties.model() == LoadProperties.Model.OPEN ? " and " + properties.arrivalRate() + " flows/s" : "",
+				flows.stream().map(Flow::name).toList());
+
+		var start = System.nanoTime();
+		var end = start + properties.duration().toNanos();
+		if (properties.model() == LoadProperties.Model.CLOSED) {
+			runClosed(start, end);
+		} else {
+			runOpen(start, end);
+		}
+
+		users.shutdown();
+		// Flows that started in time are allowed to finish
+		var longestFlow = flows.stream().mapToInt(flow -> flow.steps().size()).max().orElse(0);
+		if (!users.awaitTermination(properties.timeout().toMillis() * (longestFlow + 1), TimeUnit.MILLISECONDS)) {
+			logger.warn("Flows still running after the run, they are left out");
+			users.shutdownNow();
+		}
+		return report((System.nanoTime() - start) / 1_000_000);
+	}
+
+	private void runClosed(long start, long end) {
+		var rampUp = properties.rampUp().toNanos();
+		for (var u = 0; u < properties.users(); u++) {
+			var user = u;
+			var startAt = start + rampUp * u / properties.users();
+			users.execute(() -> {
+				parkUntil(startAt);
+				// Users start at different flows, so that all of them are running from the start
+				for (var turn = user; System.nanoTime() < end && !Thread.currentThread().isInterrupted(); turn++) {
+					runFlow(turn % flows.size(), System.nanoTime());
+					var pause = (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * properties.thinkTime().toNanos());
+					parkUntil(Math.min(System.nanoTime() + pause, end));
+				}
+			});
+		}
+	}
+
+	private void runOpen(long start, long end) throws InterruptedException {
+		var running = new Semaphore(properties.users());
+		for (var k = 0L; ; k++) {
+			var startAt = start + arrival(k);
+			if (startAt >= end) {
+				return;
+			}
+			parkUntil(startAt);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			if (!running.tryAcquire()) {
+				dropped.incrementAndGet();
+				continue;
+			}
+			var flow = (int) (k % flows.size());
+			users.execute(() -> {
+				try {
+					runFlow(flow, startAt);
+				} finally {
+					running.release();
+				}
+			});
+		}
+	}
+
+	/**
+	 * When the k:th flow of the open model starts, in nanoseconds from the start. The rate grows evenly
+	 * during the ramp up, so k flows have started after sqrt(2 k rampUp / rate) seconds.
+	 */
+	long arrival(long k) {
+		var rate = properties.arrivalRate();
+		var rampUp = properties.rampUp().toNanos() / 1e9;
+		var duringRampUp = rate * rampUp / 2;
+		var seconds = k < duringRampUp ? Math.sqrt(2 * k * rampUp / rate) : rampUp + (k - duringRampUp) / rate;
+		return (long) (seconds * 1e9);
+	}
+
+	private void runFlow(int flow, long startedAt) {
+		var steps = flows.get(flow).steps();
+		for (var s = 0; s < steps.size(); s++) {
+			var request = HttpRequest.newBuilder(base.resolve(steps.get(s))).timeout(properties.timeout()).GET().build();
+			var sent = System.nanoTime();
+			try {
+				var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+				if (response.statusCode() < 200 || response.statusCode() >= 300) {
+					fail(flow, s);
+					return;
+				}
+				stepLatencies[flow][s].record(System.nanoTime() - sent);
+			} catch (IOException e) {
+				fail(flow, s);
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		flowLatencies[flow].record(System.nanoTime() - startedAt);
+	}
+
+	private void fail(int flow, int step) {
+		stepErrors[flow][step].incrementAndGet();
+		flowErrors[flow].incrementAndGet();
+	}
+
+	private static void parkUntil(long deadline) {
+		for (var left = deadline - System.nanoTime(); left > 0 && !Thread.currentThread().isInterrupted();
+			 left = deadline - System.nanoTime()) {
+			LockSupport.parkNanos(left);
+		}
+	}
+
+	private LoadReport report(long millis) {
+		var rows = new ArrayList<LoadReport.Row>();
+		for (var f = 0; f < flows.size(); f++) {
+			var flow = flows.get(f);
+			rows.add(LoadReport.Row.of(flow.name(), flowLatencies[f], flowErrors[f].get(), millis));
+			if (flow.steps().size() > 1) {
+				for (var s = 0; s < flow.steps().size(); s++) {
+					rows.add(LoadReport.Row.of("  /" + flow.steps().get(s), stepLatencies[f][s], stepErrors[f][s].get(), millis));
+				}
+			}
+		}
+		return new LoadReport(properties.model(), millis, dropped.get(), rows);
+	}
+
+	@Override
+	public void close() {
+		users.shutdownNow();
+	}
+}
@@ -0,0 +1,40 @@
+package com.example.lab2.load;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for a load run.
+ *
+ * @param enabled     the load run only starts when enabled
+ * @param baseUrl     the site to load, this application itself if empty
+ * @param model       closed: a fixed number of users, each starting a flow when done with the last one.
+ *                    Open: new flows start at a fixed rate, however long the ones before take.
+ * @param users       closed: how many users there are. Open: the most flows running at once.
+ * @param arrivalRate open only, how many flows start per second
+ * @param rampUp      how long it takes to get to all users, or to the full arrival rate
+ * @param duration    how long the run lasts, ramp up included
+ * @param thinkTime   closed only, the average pause of a user between two flows
+ * @param timeout     for connecting and for each response
+ * @param flows       the names of the flows to run, all of them if empty
+ */
+@ConfigurationProperties("lab2.load")
+public record LoadProperties(
+		boolean enabled,
+		@DefaultValue("") String baseUrl,
+		@DefaultValue("closed") Model model,
+		@DefaultValue("10") int users,
+		@DefaultValue("10") double arrivalRate,
+		@DefaultValue("PT10S") Duration rampUp,
+		@DefaultValue("PT1M") Duration duration,
+		@DefaultValue("PT1S") Duration thinkTime,
+		@DefaultValue("PT10S") Duration timeout,
+		@DefaultValue List<String> flows) {
+
+	public enum Model {
+		CLOSED, OPEN
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.lab2.load;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The throughput and latencies of a load run, per flow and per step of flows with more than one.
+ *
+ * @param dropped open model only, the flows that weren't started because too many were running
+ */
+public record LoadReport(LoadProperties.Model model, long millis, long dropped, List<Row> rows) {
+
+	/**
+	 * The run as a table, one line per flow and step, latencies in milliseconds.
+	 */
+	public String table() {
+		var table = new StringBuilder(String.format(Locale.ROOT, "%-28s %8s %7s %9s %8s %8s %8s %8s %8s %8s",
+				"Flow", "Count", "Errors", "Per sec", "Mean", "p50", "p90", "p99", "p99.9", "Max"));
+		for (var row : rows) {
+			table.append(String.format(Locale.ROOT, "%n%-28s %8d %7d %9.1f %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f",
+					row.name(), row.count(), row.errors(), row.perSecond(), row.meanMillis(), row.p50Millis(),
+					row.p90Millis(), row.p99Millis(), row.p999Millis(), row.maxMillis()));
+		}
+		table.append(String.format(Locale.ROOT, "%n%d ms, %s model", millis, model.name().toLowerCase(Locale.ROOT)));
+		if (model == LoadProperties.Model.OPEN) {
+			table.append(String.format(Locale.ROOT, ", %d flows dropped", dropped));
+		}
+		return table.toString();
+	}
+
+	/**
+	 * @param count  the flows or steps that succeeded, and the only ones in the latencies
+	 * @param errors the flows or steps that failed, either by an error status or by not getting a response
+	 */
+	public record Row(String name, long count, long errors, double perSecond, double meanMillis, double p50Millis,
+					  double p90Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+		static Row of(String name, LatencyHistogram latencies, long errors, long millis) {
+			var count = latencies.count();
+			return new Row(name, count, errors, millis == 0 ? 0 : count * 1000.0 / millis,
+					latencies.mean() / 1e6, latencies.percentile(0.5) / 1e6, latencies.percentile(0.9) / 1e6,
+					latencies.percentile(0.99) / 1e6, latencies.percentile(0.999) / 1e6, latencies.max() / 1e6);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.example.lab2.load;
+
+import java.util.List;
+
+/**
+ * The requests behind the SVT Play UI tests, as flows for the {@link LoadGenerator}.
+ * <p>
+ * A flow fetches the server rendered pages a browser would open for the test, without the scripts,
+ * images and API calls of the page itself.
+ */
+public final class SvtPlayFlows {
+
+	private SvtPlayFlows() {
+	}
+
+	public static List<Flow> all() {
+		return List.of(
+				new Flow("start", ""),
+				new Flow("programs", "program"),
+				new Flow("search-agenda", "sok?q=agenda"),
+				new Flow("pistvakt-season-2", "sok?q=pistvakt", "pistvakt"),
+				new Flow("settings", "installningar"));
+	}
+
+	/**
+	 * The flows with the given names, all of them if there are no names.
+	 */
+	public static List<Flow> named(List<String> names) {
+		if (names.isEmpty()) {
+			return all();
+		}
+		var flows = all().stream().filter(flow -> names.contains(flow.name())).toList();
+		if (flows.size() != names.size()) {
+			throw new IllegalArgumentException("Unknown flow in " + names + ", expected any of "
+					+ all().stream().map(Flow::name).toList());
+		}
+		return flows;
+	}
+}
@@ -0,0 +1,12 @@
+package com.example.lab2.monitor;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Starts the browsers of the {@link BrowserPool}.
+ */
+@FunctionalInterface
+public interface BrowserFactory {
+
+	WebDriver start();
+}
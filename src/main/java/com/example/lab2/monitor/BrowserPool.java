@@ -0,0 +1,102 @@
+package com.example.lab2.monitor;
+
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed number of browsers, started when first needed and reused after that.
+ * <p>
+ * Leasing never blocks: when every browser is busy, the caller gets nothing and is expected
+ * to skip its work. That is what keeps slow rounds of the monitor from piling up browsers.
+ */
+public class BrowserPool implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(BrowserPool.class);
+
+	private final BrowserFactory factory;
+	private final Semaphore permits;
+	private final ConcurrentLinkedQueue<WebDriver> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger started = new AtomicInteger();
+	private final AtomicInteger leased = new AtomicInteger();
+
+	public BrowserPool(int size, BrowserFactory factory) {
+		if (size < 1) {
+			throw new IllegalArgumentException("A browser pool needs at least one browser, not " + size);
+		}
+		this.factory = factory;
+		this.permits = new Semaphore(size);
+	}
+
+	/**
+	 * A browser if one is free, or can be started.
+	 */
+	public Optional<WebDriver> tryLease() {
+		if (!permits.tryAcquire()) {
+			return Optional.empty();
+		}
+		try {
+			var driver = idle.poll();
+			if (driver == null) {
+				driver = factory.start();
+				started.incrementAndGet();
+			}
+			leased.incrementAndGet();
+			return Optional.of(driver);
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Hands a browser back.
+	 *
+	 * @param broken true if the browser can't be trusted any more, which replaces it with a new one next time
+	 */
+	public void release(WebDriver driver, boolean broken) {
+		if (broken) {
+			quit(driver);
+		} else {
+			idle.add(driver);
+		}
+		leased.decrementAndGet();
+		permits.release();
+	}
+
+	/**
+	 * How many browsers are running a scenario right now.
+	 */
+	public int leased() {
+		return leased.get();
+	}
+
+	/**
+	 * How many browsers have been started in all, including the ones replaced after breaking.
+	 */
+	public int started() {
+		return started.get();
+	}
+
+	@Override
+	public void close() {
+		WebDriver driver;
+		while ((driver = idle.poll()) != null) {
+			quit(driver);
+		}
+	}
+
+	private static void quit(WebDriver driver) {
+		try {
+			driver.quit();
+		} catch (RuntimeException e) {
+			logger.debug("Could not quit browser", e);
+		}
+	}
+}
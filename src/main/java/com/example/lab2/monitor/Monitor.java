@@ -0,0 +1,163 @@
+package com.example.lab2.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the scenarios over and over, and keeps score in a {@link MeterRegistry}.
+ * <p>
+ * Every {@code lab2.monitor.interval} each scenario is started in a browser of its own. A scenario
+ * that is still running from the round before, or that finds no free browser, is skipped for the
+ * round and counted as such, so a slow site shows up as skips instead of a growing queue.
+ * <p>
+ * With Prometheus on the classpath the results end up on {@code /actuator/prometheus} as
+ * <ul>
+ *     <li>{@code svtplay_scenario_runs_total{scenario, outcome}} - outcome is pass or fail</li>
+ *     <li>{@code svtplay_scenario_duration_seconds{scenario, outcome}} - a histogram</li>
+ *     <li>{@code svtplay_scenario_skipped_total{scenario, reason}} - reason is busy or no-browser</li>
+ *     <li>{@code svtplay_browsers_leased} and {@code svtplay_browsers_started}</li>
+ * </ul>
+ */
+public class Monitor implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(Monitor.class);
+
+	private final MonitorProperties properties;
+	private final List<Scenario> scenarios;
+	private final BrowserPool browsers;
+	private final MeterRegistry registry;
+
+	// At most one worker per browser, so a started scenario never waits for a thread
+	private final ExecutorService workers;
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		var thread = new Thread(runnable, "svtplay-monitor");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+	public Monitor(MonitorProperties properties, List<Scenario> scenarios, BrowserPool browsers,
+				   MeterRegistry registry) {
+		this.properties = properties;
+		this.scenarios = scenarios;
+		this.browsers = browsers;
+		this.registry = registry;
+		this.workers = Executors.newFixedThreadPool(properties.browsers());
+
+		Gauge.builder("svtplay.browsers.leased", browsers, BrowserPool::leased)
+				.description("Browsers running a scenario")
+				.register(registry);
+		Gauge.builder("svtplay.browsers.started", browsers, BrowserPool::started)
+				.description("Browsers started since the monitor started")
+				.register(registry);
+	}
+
+	public void start() {
+		logger.info("Monitoring {} every {} with {} scenarios and at most {} browsers",
+				properties.baseUrl(), properties.interval(), scenarios.size(), properties.browsers());
+		scheduler.scheduleAtFixedRate(this::runOnce, 0, properties.interval().toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Starts every scenario that isn't already running and has a browser to run in.
+	 *
+	 * @return completes when the scenarios started by this round are done
+	 */
+	public CompletableFuture<Void> runOnce() {
+		var started = new ArrayList<CompletableFuture<Void>>();
+		for (var scenario : scenarios) {
+			if (!running.add(scenario.name())) {
+				skipped(scenario, "busy");
+				continue;
+			}
+
+			WebDriver driver;
+			try {
+				driver = browsers.tryLease().orElse(null);
+			} catch (RuntimeException e) {
+				logger.warn("Could not start a browser for {}", scenario.name(), e);
+				driver = null;
+			}
+			if (driver == null) {
+				running.remove(scenario.name());
+				skipped(scenario, "no-browser");
+				continue;
+			}
+
+			var leased = driver;
+			started.add(CompletableFuture.runAsync(() -> run(scenario, leased), workers));
+		}
+		return CompletableFuture.allOf(started.toArray(CompletableFuture[]::new));
+	}
+
+	private void run(Scenario scenario, WebDriver driver) {
+		var broken = false;
+		var outcome = "pass";
+		var startedAt = System.nanoTime();
+		try {
+			scenario.run(new Scenario.Session(driver, new WebDriverWait(driver, properties.timeout()),
+					properties.baseUrl()));
+		} catch (Exception | AssertionError e) {
+			outcome = "fail";
+			// The browser itself may be gone, better start over with a new one
+			broken = e instanceof WebDriverException;
+			logger.warn("Scenario {} failed: {}", scenario.name(), e.toString());
+		} finally {
+			var nanos = System.nanoTime() - startedAt;
+			browsers.release(driver, broken);
+			running.remove(scenario.name());
+
+			Timer.builder("svtplay.scenario.duration")
+					.description("The time a scenario takes")
+					.tag("scenario", scenario.name())
+					.tag("outcome", outcome)
+					.publishPercentileHistogram()
+					.register(registry)
+					.record(nanos, TimeUnit.NANOSECONDS);
+			Counter.builder("svtplay.scenario.runs")
+					.description("Finished scenario runs")
+					.tag("scenario", scenario.name())
+					.tag("outcome", outcome)
+					.register(registry)
+					.increment();
+		}
+	}
+
+	private void skipped(Scenario scenario, String reason) {
+		Counter.builder("svtplay.scenario.skipped")
+				.description("Scenario runs skipped because the previous run or all browsers were busy")
+				.tag("scenario", scenario.name())
+				.tag("reason", reason)
+				.register(registry)
+				.increment();
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		workers.shutdownNow();
+		try {
+			workers.awaitTermination(properties.timeout().toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
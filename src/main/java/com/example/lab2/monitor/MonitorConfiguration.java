@@ -0,0 +1,42 @@
+package com.example.lab2.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Starts the synthetic monitor when {@code lab2.monitor.enabled} is true.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "lab2.monitor.enabled", havingValue = "true")
+@EnableConfigurationProperties(MonitorProperties.class)
+public class MonitorConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	BrowserFactory browserFactory(MonitorProperties properties) {
+		return () -> {
+			var options = new ChromeOptions();
+			options.addArguments("--remote-allow-origins=*", "--incognito", "--window-size=1280,1024");
+			if (properties.headless()) {
+				options.addArguments("--headless=new");
+			}
+			return new ChromeDriver(options);
+		};
+	}
+
+	@Bean(destroyMethod = "close")
+	BrowserPool browserPool(MonitorProperties properties, BrowserFactory factory) {
+		return new BrowserPool(properties.browsers(), factory);
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	Monitor monitor(MonitorProperties properties, BrowserPool browsers, MeterRegistry registry) {
+		return new Monitor(properties, SvtPlayScenarios.named(properties.scenarios()), browsers, registry);
+	}
+}
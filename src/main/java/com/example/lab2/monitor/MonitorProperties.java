@@ -0,0 +1,29 @@
+package com.example.lab2.monitor;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for the synthetic monitor.
+ *
+ * @param enabled   the monitor is only started when enabled
+ * @param baseUrl   the site the scenarios run against
+ * @param interval  how often every scenario is started
+ * @param browsers  the most browsers running at once. Scenarios that find no free browser are skipped.
+ * @param timeout   how long a scenario waits for an element
+ * @param headless  whether Chrome runs without a window
+ * @param scenarios the names of the scenarios to run, all of them if empty
+ */
+@ConfigurationProperties("lab2.monitor")
+public record MonitorProperties(
+		boolean enabled,
+		@DefaultValue("https://www.svtplay.se/") String baseUrl,
+		@DefaultValue("PT5M") Duration interval,
+		@DefaultValue("2") int browsers,
+		@DefaultValue("PT10S") Duration timeout,
+		@DefaultValue("true") boolean headless,
+		@DefaultValue List<String> scenarios) {
+}
@@ -0,0 +1,30 @@
+package com.example.lab2.monitor;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+/**
+ * A check the monitor runs in a browser. It passes unless it throws.
+ */
+public interface Scenario {
+
+	/**
+	 * The name the scenario is reported under, e.g. "title".
+	 */
+	String name();
+
+	void run(Session session) throws Exception;
+
+	/**
+	 * What a scenario gets to work with.
+	 */
+	record Session(WebDriver driver, WebDriverWait elementWait, String baseUrl) {
+
+		/**
+		 * Resolves a site relative path, e.g. "program", against the base URL.
+		 */
+		public String url(String path) {
+			return baseUrl + (path.startsWith("/") ? path.substring(1) : path);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package com.example.lab2.monitor;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The read-only checks of the SVT Play UI tests, as scenarios for the {@link Monitor}.
+ * <p>
+ * Checks that change settings or cookies are left to the tests, a monitor reuses its browsers.
+ * Pages are opened by URL instead of through the menu, which keeps each scenario to the one
+ * page it checks.
+ */
+public final class SvtPlayScenarios {
+
+	private SvtPlayScenarios() {
+	}
+
+	public static List<Scenario> all() {
+		return List.of(
+				scenario("title", SvtPlayScenarios::title),
+				scenario("main-links", SvtPlayScenarios::mainLinks),
+				scenario("program-categories", SvtPlayScenarios::programCategories),
+				scenario("search-agenda", SvtPlayScenarios::searchAgenda));
+	}
+
+	/**
+	 * The scenarios with the given names, all of them if there are no names.
+	 */
+	public static List<Scenario> named(List<String> names) {
+		if (names.isEmpty()) {
+			return all();
+		}
+		var scenarios = all().stream().filter(scenario -> names.contains(scenario.name())).toList();
+		if (scenarios.size() != names.size()) {
+			throw new IllegalArgumentException("Unknown scenario in " + names + ", expected any of "
+					+ all().stream().map(Scenario::name).toList());
+		}
+		return scenarios;
+	}
+
+	static void title(Scenario.Session session) {
+		session.driver().get(session.baseUrl());
+		check("SVT Play".equals(session.driver().getTitle()), "Incorrect title is shown");
+	}
+
+	static void mainLinks(Scenario.Session session) {
+		session.driver().get(session.baseUrl());
+
+		// The texts are upper-cased through CSS, which not every browser applies
+		var expected = Map.of("start", "Start", "programs", "Program", "channels", "Kanaler");
+		expected.forEach((type, text) -> {
+			var link = session.driver().findElement(By.xpath("//li[@type='" + type + "']"));
+			check(text.equalsIgnoreCase(link.getText()), "Wrong text on '" + text + "' link");
+		});
+	}
+
+	static void programCategories(Scenario.Session session) {
+		session.driver().get(session.url("program"));
+
+		// The number of categories as of 2023-03-20
+		var categories = By.xpath("//article");
+		session.elementWait().until(ExpectedConditions.visibilityOfElementLocated(categories));
+		check(session.driver().findElements(categories).size() == 18, "Wrong number of categories displayed");
+	}
+
+	static void searchAgenda(Scenario.Session session) {
+		session.driver().get(session.url("sok?q=agenda"));
+
+		var firstHit = By.xpath("//ul/li[@data-rt='search-result-item'][1]");
+		var title = session.elementWait().until(ExpectedConditions.visibilityOfElementLocated(firstHit))
+				.findElement(By.tagName("h2"))
+				.getText();
+		check("Agenda".equals(title), "Wrong program found when searching for 'Agenda'");
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new IllegalStateException(message);
+		}
+	}
+
+	private static Scenario scenario(String name, Check check) {
+		return new Scenario() {
+			@Override
+			public String name() {
+				return name;
+			}
+
+			@Override
+			public void run(Session session) throws Exception {
+				check.run(session);
+			}
+
+			@Override
+			public String toString() {
+				return name;
+			}
+		};
+	}
+
+	@FunctionalInterface
+	private interface Check {
+		void run(Scenario.Session session) throws Exception;
+	}
+}
@@ -0,0 +1,33 @@
+package com.example.lab2.proxy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Starts the record and replay proxy when {@code lab2.proxy.mode} is set.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("lab2.proxy.mode")
+@EnableConfigurationProperties(ProxyProperties.class)
+public class ProxyConfiguration {
+
+	@Bean(destroyMethod = "close")
+	RecordingStore recordingStore(ProxyProperties properties) throws IOException {
+		return new RecordingStore(Path.of(properties.store()));
+	}
+
+	@Bean
+	ProxyStats proxyStats() {
+		return new ProxyStats();
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	RecordingProxy recordingProxy(ProxyProperties properties, RecordingStore store, ProxyStats stats) {
+		return new RecordingProxy(properties, store, stats);
+	}
+}
@@ -0,0 +1,37 @@
+package com.example.lab2.proxy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Settings for the record and replay proxy.
+ *
+ * @param mode          record or replay. The proxy is only started when a mode is set.
+ * @param port          the local port the proxy listens on
+ * @param store         the base path of the recording, without file extension
+ * @param upstream      the site that requests without an explicit host are sent to
+ * @param rewriteHosts  hosts whose absolute URLs are rewritten to go through the proxy
+ * @param vary          request headers that are part of the cache key
+ */
+@ConfigurationProperties("lab2.proxy")
+public record ProxyProperties(
+		Mode mode,
+		@DefaultValue("8888") int port,
+		@DefaultValue("recordings/svtplay") String store,
+		@DefaultValue("https://www.svtplay.se") String upstream,
+		@DefaultValue({"www.svtplay.se", "www.svtstatic.se"}) List<String> rewriteHosts,
+		@DefaultValue("Accept-Language") List<String> vary) {
+
+	public enum Mode {
+		/**
+		 * Serve from the recording when possible, fetch and record everything else.
+		 */
+		RECORD,
+		/**
+		 * Only serve from the recording. Anything not recorded is answered with 504.
+		 */
+		REPLAY
+	}
+}
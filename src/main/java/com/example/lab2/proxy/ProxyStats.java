@@ -0,0 +1,72 @@
+package com.example.lab2.proxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts what the proxy served from upstream (cold) and from the recording (warm).
+ * Every recorded response knows how long it originally took to fetch, which lets us
+ * estimate the time saved by each warm hit.
+ */
+public class ProxyStats {
+
+	private final AtomicLong coldRequests = new AtomicLong();
+	private final AtomicLong coldBytes = new AtomicLong();
+	private final AtomicLong coldNanos = new AtomicLong();
+
+	private final AtomicLong warmRequests = new AtomicLong();
+	private final AtomicLong warmBytes = new AtomicLong();
+	private final AtomicLong warmNanos = new AtomicLong();
+	private final AtomicLong savedNanos = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	void cold(long bytes, long nanos) {
+		coldRequests.incrementAndGet();
+		coldBytes.addAndGet(bytes);
+		coldNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Counts a warm hit. Called before the response is written, so a client that has read it
+	 * always finds it counted.
+	 */
+	void warm(RecordingStore.Entry entry) {
+		warmRequests.incrementAndGet();
+		warmBytes.addAndGet(entry.length());
+	}
+
+	/**
+	 * Adds how long it took to write a warm hit, once it has been written.
+	 */
+	void warmServed(RecordingStore.Entry entry, long nanos) {
+		warmNanos.addAndGet(nanos);
+		savedNanos.addAndGet(Math.max(0, entry.coldNanos() - nanos));
+	}
+
+	void miss() {
+		misses.incrementAndGet();
+	}
+
+	public Snapshot snapshot() {
+		return new Snapshot(
+				coldRequests.get(), coldBytes.get(), coldNanos.get() / 1_000_000,
+				warmRequests.get(), warmBytes.get(), warmNanos.get() / 1_000_000,
+				savedNanos.get() / 1_000_000, misses.get());
+	}
+
+	/**
+	 * A point in time copy of the counters. Times are in milliseconds.
+	 */
+	public record Snapshot(long coldRequests, long coldBytes, long coldMillis,
+						   long warmRequests, long warmBytes, long warmMillis,
+						   long savedMillis, long misses) {
+
+		@Override
+		public String toString() {
+			return String.format("cold: %d requests, %d KB, %d ms upstream | "
+							+ "warm: %d requests, %d KB in %d ms, ~%d ms saved | replay misses: %d",
+					coldRequests, coldBytes / 1024, coldMillis,
+					warmRequests, warmBytes / 1024, warmMillis, savedMillis, misses);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.example.lab2.proxy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Shows the cold versus warm numbers of the proxy while it is running.
+ */
+@RestController
+@ConditionalOnProperty("lab2.proxy.mode")
+public class ProxyStatsController {
+
+	private final ProxyStats stats;
+
+	public ProxyStatsController(ProxyStats stats) {
+		this.stats = stats;
+	}
+
+	@GetMapping("/proxy/stats")
+	public ProxyStats.Snapshot stats() {
+		return stats.snapshot();
+	}
+}
@@ -0,0 +1,412 @@
+package com.example.lab2.proxy;
+
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * A small HTTP/1.1 proxy that records upstream responses and replays them from a {@link RecordingStore}.
+ * <p>
+ * The proxy is meant to be used as the base URL of the tests, i.e. as a reverse proxy in front of
+ * {@code lab2.proxy.upstream}. Absolute URLs to the hosts in {@code lab2.proxy.rewriteHosts} are
+ * rewritten in text responses so that assets, like JS bundles and images, also go through the proxy.
+ * They are requested as {@code /__host/<host>/<path>}.
+ * <p>
+ * Plain proxy requests with an absolute http URL are supported as well. HTTPS requests through
+ * CONNECT are tunnelled as is when recording, since they can't be looked into.
+ */
+public class RecordingProxy implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(RecordingProxy.class);
+
+	private static final String hostPrefix = "/__host/";
+	private static final int maxLineLength = 64 * 1024;
+
+	private static final Set<String> skippedRequestHeaders = Set.of(
+			"host", "connection", "proxy-connection", "keep-alive", "content-length",
+			"transfer-encoding", "accept-encoding", "upgrade", "te");
+
+	private static final Set<String> skippedResponseHeaders = Set.of(
+			"connection", "keep-alive", "content-length", "content-encoding", "transfer-encoding",
+			"strict-transport-security", "content-security-policy", "alt-svc");
+
+	// Cookie attributes that stop the browser from accepting the cookie on localhost
+	private static final Pattern cookieAttributes =
+			Pattern.compile("(?i);\\s*(domain=[^;]*|secure|samesite=none)(?=;|$)");
+
+	private final ProxyProperties properties;
+	private final RecordingStore store;
+	private final ProxyStats stats;
+	private final String publicBase;
+	private final String upstream;
+	private final String upstreamHost;
+
+	private final CloseableHttpClient client;
+	private final ExecutorService workers = Executors.newCachedThreadPool();
+	private ServerSocketChannel server;
+
+	public RecordingProxy(ProxyProperties properties, RecordingStore store, ProxyStats stats) {
+		this.properties = properties;
+		this.store = store;
+		this.stats = stats;
+		this.publicBase = "http://localhost:" + properties.port();
+		this.upstream = properties.upstream().replaceAll("/+$", "");
+		this.upstreamHost = URI.create(upstream).getHost();
+
+		// Redirects and cookies are the browser's business, so they are passed on untouched
+		this.client = HttpClients.custom()
+				.disableRedirectHandling()
+				.disableCookieManagement()
+				.setMaxConnPerRoute(16)
+				.setMaxConnTotal(64)
+				.build();
+	}
+
+	public void start() throws IOException {
+		server = ServerSocketChannel.open();
+		server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), properties.port()));
+
+		var acceptor = new Thread(this::accept, "recording-proxy");
+		acceptor.setDaemon(true);
+		acceptor.start();
+
+		logger.info("Proxy listening on {} in {} mode, {} responses recorded in {}",
+				publicBase, properties.mode(), store.size(), properties.store());
+	}
+
+	private void accept() {
+		while (server.isOpen()) {
+			try {
+				var channel = server.accept();
+				workers.execute(() -> serve(channel));
+			} catch (ClosedChannelException e) {
+				return;
+			} catch (IOException e) {
+				logger.warn("Failed to accept a connection", e);
+			}
+		}
+	}
+
+	private void serve(SocketChannel channel) {
+		try (channel) {
+			var in = new BufferedInputStream(channel.socket().getInputStream());
+			Request request;
+			while ((request = Request.read(in)) != null) {
+				if ("CONNECT".equals(request.method())) {
+					tunnel(request, channel, in);
+					return;
+				}
+
+				handle(request, channel);
+				if (request.closeAfter()) {
+					return;
+				}
+			}
+		} catch (IOException e) {
+			logger.debug("Connection closed", e);
+		}
+	}
+
+	private void handle(Request request, SocketChannel channel) throws IOException {
+		var url = resolve(request.target());
+		var key = key(request, url);
+
+		// Warm: straight from the recording to the socket
+		var entry = store.get(key);
+		if (entry != null) {
+			stats.warm(entry);
+			var start = System.nanoTime();
+			store.transferTo(entry, channel);
+			stats.warmServed(entry, System.nanoTime() - start);
+			return;
+		}
+
+		if (properties.mode() == ProxyProperties.Mode.REPLAY) {
+			stats.miss();
+			logger.warn("Not recorded: {}", key);
+			write(channel, plainResponse(504, "Gateway Timeout", "Not recorded: " + key));
+			return;
+		}
+
+		// Cold: fetch, record and pass on
+		var start = System.nanoTime();
+		var fetched = fetch(request, url);
+		var elapsed = System.nanoTime() - start;
+		stats.cold(fetched.response().length, elapsed);
+
+		// Server errors are most likely temporary, so don't keep them around
+		if (fetched.status() < 500) {
+			store.append(key, fetched.response(), elapsed);
+		}
+		write(channel, fetched.response());
+	}
+
+	/**
+	 * Works out the upstream URL of a request target.
+	 */
+	String resolve(String target) {
+		if (target.startsWith("http://") || target.startsWith("https://")) {
+			return target;
+		}
+		if (target.startsWith(hostPrefix)) {
+			var rest = target.substring(hostPrefix.length());
+			var slash = rest.indexOf('/');
+			return slash < 0
+					? "https://" + rest + "/"
+					: "https://" + rest.substring(0, slash) + rest.substring(slash);
+		}
+		return upstream + (target.startsWith("/") ? target : "/" + target);
+	}
+
+	private String key(Request request, String url) {
+		var key = new StringBuilder(request.method()).append(' ').append(url);
+		for (var name : properties.vary()) {
+			var value = request.header(name);
+			if (value != null) {
+				key.append(' ').append(name.toLowerCase(Locale.ROOT)).append('=').append(value);
+			}
+		}
+		return key.toString();
+	}
+
+	private Fetched fetch(Request request, String url) throws IOException {
+		var builder = RequestBuilder.create(request.method()).setUri(url);
+		for (var header : request.headers()) {
+			if (!skippedRequestHeaders.contains(header.getKey().toLowerCase(Locale.ROOT))) {
+				builder.addHeader(header.getKey(), unrewrite(header.getValue()));
+			}
+		}
+		if (request.body().length > 0) {
+			builder.setEntity(new ByteArrayEntity(request.body()));
+		}
+
+		try (var response = client.execute(builder.build())) {
+			var entity = response.getEntity();
+			var body = entity == null ? new byte[0] : EntityUtils.toByteArray(entity);
+
+			var contentType = response.getFirstHeader("Content-Type");
+			if (contentType != null && isText(contentType.getValue())) {
+				body = rewrite(new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+			}
+
+			var statusLine = response.getStatusLine();
+			var head = new StringBuilder("HTTP/1.1 ")
+					.append(statusLine.getStatusCode()).append(' ')
+					.append(statusLine.getReasonPhrase() == null ? "" : statusLine.getReasonPhrase())
+					.append("\r\n");
+
+			for (var header : response.getAllHeaders()) {
+				var name = header.getName().toLowerCase(Locale.ROOT);
+				if (skippedResponseHeaders.contains(name)) {
+					continue;
+				}
+
+				var value = header.getValue();
+				if (name.equals("location")) {
+					value = rewrite(value);
+				} else if (name.equals("set-cookie")) {
+					value = cookieAttributes.matcher(value).replaceAll("");
+				}
+				head.append(header.getName()).append(": ").append(value).append("\r\n");
+			}
+			head.append("Content-Length: ").append(body.length).append("\r\n\r\n");
+
+			var out = new ByteArrayOutputStream(head.length() + body.length);
+			out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+			out.write(body);
+			return new Fetched(statusLine.getStatusCode(), out.toByteArray());
+		}
+	}
+
+	private static boolean isText(String contentType) {
+		var type = contentType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.contains("javascript") || type.contains("json")
+				|| type.contains("svg");
+	}
+
+	/**
+	 * Points absolute URLs to the rewritten hosts at the proxy instead.
+	 */
+	String rewrite(String text) {
+		for (var host : properties.rewriteHosts()) {
+			var target = host.equals(upstreamHost) ? publicBase : publicBase + hostPrefix + host;
+			text = text.replace("https://" + host, target)
+					.replace("https:\\/\\/" + host, target.replace("/", "\\/"));
+		}
+		return text;
+	}
+
+	/**
+	 * The opposite of {@link #rewrite(String)}, for headers such as Referer and Origin.
+	 */
+	private String unrewrite(String value) {
+		if (!value.startsWith(publicBase)) {
+			return value;
+		}
+		var rest = value.substring(publicBase.length());
+		return rest.startsWith(hostPrefix) ? "https://" + rest.substring(hostPrefix.length()) : upstream + rest;
+	}
+
+	private void tunnel(Request request, SocketChannel channel, InputStream in) throws IOException {
+		if (properties.mode() == ProxyProperties.Mode.REPLAY) {
+			stats.miss();
+			write(channel, plainResponse(502, "Bad Gateway", "Tunnels are not available in replay mode"));
+			return;
+		}
+
+		var target = request.target();
+		var colon = target.lastIndexOf(':');
+		var host = colon < 0 ? target : target.substring(0, colon);
+		var port = colon < 0 ? 443 : Integer.parseInt(target.substring(colon + 1));
+
+		try (var upstreamSocket = new Socket(host, port)) {
+			write(channel, "HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+
+			var clientOut = channel.socket().getOutputStream();
+			var upstreamOut = upstreamSocket.getOutputStream();
+			var upload = workers.submit(() -> {
+				try {
+					in.transferTo(upstreamOut);
+					upstreamSocket.shutdownOutput();
+				} catch (IOException e) {
+					logger.debug("Tunnel upload closed", e);
+				}
+			});
+			upstreamSocket.getInputStream().transferTo(clientOut);
+			upload.cancel(true);
+		}
+	}
+
+	private static byte[] plainResponse(int status, String reason, String message) {
+		var body = message.getBytes(StandardCharsets.UTF_8);
+		var head = "HTTP/1.1 " + status + " " + reason + "\r\n"
+				+ "Content-Type: text/plain; charset=utf-8\r\n"
+				+ "Content-Length: " + body.length + "\r\n\r\n";
+
+		var response = new byte[head.length() + body.length];
+		System.arraycopy(head.getBytes(StandardCharsets.ISO_8859_1), 0, response, 0, head.length());
+		System.arraycopy(body, 0, response, head.length(), body.length);
+		return response;
+	}
+
+	private static void write(SocketChannel channel, byte[] bytes) throws IOException {
+		var buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (server != null) {
+			server.close();
+		}
+		workers.shutdownNow();
+		client.close();
+		logger.info("Proxy stopped. {}", stats.snapshot());
+	}
+
+	private record Fetched(int status, byte[] response) {
+	}
+
+	/**
+	 * A parsed HTTP/1.1 request. Chunked request bodies are not supported.
+	 */
+	record Request(String method, String target, String version,
+				   List<Map.Entry<String, String>> headers, byte[] body) {
+
+		static Request read(InputStream in) throws IOException {
+			var line = readLine(in);
+			// Tolerate empty lines between requests
+			while (line != null && line.isEmpty()) {
+				line = readLine(in);
+			}
+			if (line == null) {
+				return null;
+			}
+
+			var parts = line.split(" ");
+			if (parts.length != 3) {
+				throw new IOException("Malformed request line: " + line);
+			}
+
+			var headers = new ArrayList<Map.Entry<String, String>>();
+			String headerLine;
+			while ((headerLine = readLine(in)) != null && !headerLine.isEmpty()) {
+				var colon = headerLine.indexOf(':');
+				if (colon > 0) {
+					headers.add(Map.entry(headerLine.substring(0, colon).trim(), headerLine.substring(colon + 1).trim()));
+				}
+			}
+
+			var request = new Request(parts[0], parts[1], parts[2], headers, new byte[0]);
+			var contentLength = request.header("Content-Length");
+			if (contentLength != null) {
+				var body = in.readNBytes(Integer.parseInt(contentLength));
+				request = new Request(parts[0], parts[1], parts[2], headers, body);
+			}
+			return request;
+		}
+
+		String header(String name) {
+			for (var header : headers) {
+				if (header.getKey().equalsIgnoreCase(name)) {
+					return header.getValue();
+				}
+			}
+			return null;
+		}
+
+		boolean closeAfter() {
+			var connection = header("Connection");
+			if ("HTTP/1.0".equals(version)) {
+				return !"keep-alive".equalsIgnoreCase(connection);
+			}
+			return "close".equalsIgnoreCase(connection);
+		}
+
+		private static String readLine(InputStream in) throws IOException {
+			var line = new ByteArrayOutputStream(128);
+			int b;
+			while ((b = in.read()) != -1) {
+				if (b == '\n') {
+					var bytes = line.toByteArray();
+					var length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+					return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+				}
+				if (line.size() >= maxLineLength) {
+					throw new IOException("Line too long");
+				}
+				line.write(b);
+			}
+			return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+		}
+	}
+}
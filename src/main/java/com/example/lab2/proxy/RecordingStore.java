@@ -0,0 +1,131 @@
+package com.example.lab2.proxy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only store of recorded HTTP responses.
+ * <p>
+ * A recording consists of two files: {@code <name>.dat} holds the raw responses,
+ * exactly as they are written to the socket, back to back. {@code <name>.idx} holds one
+ * record per response with its key, offset, length and how long it took to fetch it
+ * from upstream. The data is always written before the index, so a crash can at worst
+ * leave a few unreferenced bytes at the end of the data file.
+ */
+public class RecordingStore implements Closeable {
+
+	private final FileChannel data;
+	private final DataOutputStream index;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private long end;
+
+	public RecordingStore(Path base) throws IOException {
+		var directory = base.toAbsolutePath().getParent();
+		if (directory != null) {
+			Files.createDirectories(directory);
+		}
+
+		var dataFile = base.resolveSibling(base.getFileName() + ".dat");
+		var indexFile = base.resolveSibling(base.getFileName() + ".idx");
+
+		data = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		end = data.size();
+
+		if (Files.exists(indexFile)) {
+			load(indexFile);
+		}
+		index = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile.toFile(), true)));
+	}
+
+	private void load(Path indexFile) throws IOException {
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			while (true) {
+				var key = in.readUTF();
+				var entry = new Entry(in.readLong(), in.readLong(), in.readLong());
+
+				// Skip anything the data file doesn't cover, e.g. after a crash
+				if (entry.offset() + entry.length() <= end) {
+					entries.put(key, entry);
+				}
+			}
+		} catch (EOFException e) {
+			// End of the index, possibly with a half written record at the end
+		}
+	}
+
+	public Entry get(String key) {
+		return entries.get(key);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Appends a response to the store. If the key is already present the old entry is kept.
+	 *
+	 * @param coldNanos how long the response took to fetch from upstream
+	 */
+	public synchronized Entry append(String key, byte[] response, long coldNanos) throws IOException {
+		var existing = entries.get(key);
+		if (existing != null) {
+			return existing;
+		}
+
+		var offset = end;
+		var buffer = ByteBuffer.wrap(response);
+		while (buffer.hasRemaining()) {
+			end += data.write(buffer, end);
+		}
+
+		var entry = new Entry(offset, response.length, coldNanos);
+		index.writeUTF(key);
+		index.writeLong(entry.offset());
+		index.writeLong(entry.length());
+		index.writeLong(entry.coldNanos());
+		index.flush();
+
+		entries.put(key, entry);
+		return entry;
+	}
+
+	/**
+	 * Writes a stored response to the target without copying it through the heap.
+	 * When the target is a socket channel this ends up as a sendfile call.
+	 */
+	public void transferTo(Entry entry, WritableByteChannel target) throws IOException {
+		var position = entry.offset();
+		var remaining = entry.length();
+		while (remaining > 0) {
+			var written = data.transferTo(position, remaining, target);
+			position += written;
+			remaining -= written;
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		index.close();
+		data.close();
+	}
+
+	/**
+	 * Where a recorded response is found in the data file.
+	 */
+	public record Entry(long offset, long length, long coldNanos) {
+	}
+}
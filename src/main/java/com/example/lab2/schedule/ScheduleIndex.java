@@ -0,0 +1,155 @@
+package com.example.lab2.schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The programme slots of one channel, as start and end times in epoch milliseconds.
+ * <p>
+ * Slots are added in the order the guide lists them, day after day, into parallel primitive arrays.
+ * {@link #check(long)} then walks them once to find what is wrong with the guide, and {@link #sort()}
+ * puts them in order of their start, after which {@link #at(long)} finds a slot by binary search.
+ * A guide is nearly always in order already, so sorting is an insertion sort, linear in practice.
+ */
+class ScheduleIndex {
+
+	private long[] starts = new long[64];
+	private long[] ends = new long[64];
+	private String[] titles = new String[64];
+	private int size;
+
+	/**
+	 * Adds a slot after the ones already added.
+	 * <p>
+	 * A programme that runs past midnight is listed by the guides of both days. The second listing
+	 * is the same slot as the last one added, and is skipped.
+	 */
+	void add(long start, long end, String title) {
+		if (size > 0 && starts[size - 1] == start && ends[size - 1] == end && titles[size - 1].equals(title)) {
+			return;
+		}
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, size * 2);
+			ends = Arrays.copyOf(ends, size * 2);
+			titles = Arrays.copyOf(titles, size * 2);
+		}
+		starts[size] = start;
+		ends[size] = end;
+		titles[size] = title;
+		size++;
+	}
+
+	/**
+	 * Finds the gaps, overlaps and slots out of order in one pass over the slots as they were added.
+	 *
+	 * @param maxGapMillis the longest gap between two slots that isn't reported
+	 */
+	List<Problem> check(long maxGapMillis) {
+		var problems = new ArrayList<Problem>();
+		// The slot before, and the latest end so far
+		var previous = -1;
+		var latestEnd = Long.MIN_VALUE;
+		for (var i = 0; i < size; i++) {
+			if (ends[i] <= starts[i]) {
+				problems.add(new Problem(Problem.Kind.EMPTY, starts[i], titles[i], "Ends before it starts"));
+				continue;
+			}
+
+			if (previous != -1) {
+				if (starts[i] < starts[previous]) {
+					problems.add(new Problem(Problem.Kind.OUT_OF_ORDER, starts[i], titles[i],
+							"Listed after " + titles[previous]));
+				} else if (starts[i] < latestEnd) {
+					problems.add(new Problem(Problem.Kind.OVERLAP, starts[i], titles[i],
+							(latestEnd - starts[i]) / 60_000 + " min into " + titles[previous]));
+				} else if (starts[i] - latestEnd > maxGapMillis) {
+					problems.add(new Problem(Problem.Kind.GAP, latestEnd, titles[i],
+							(starts[i] - latestEnd) / 60_000 + " min after " + titles[previous]));
+				}
+			}
+			previous = i;
+			latestEnd = Math.max(latestEnd, ends[i]);
+		}
+		return problems;
+	}
+
+	/**
+	 * Puts the slots in order of their start, keeping the listed order of slots that start together.
+	 */
+	void sort() {
+		for (var i = 1; i < size; i++) {
+			var start = starts[i];
+			if (start >= starts[i - 1]) {
+				continue;
+			}
+			var end = ends[i];
+			var title = titles[i];
+			var j = i - 1;
+			while (j >= 0 && starts[j] > start) {
+				starts[j + 1] = starts[j];
+				ends[j + 1] = ends[j];
+				titles[j + 1] = titles[j];
+				j--;
+			}
+			starts[j + 1] = start;
+			ends[j + 1] = end;
+			titles[j + 1] = title;
+		}
+	}
+
+	/**
+	 * The slot that is on at a time, or -1 if none is. Only valid after {@link #sort()}.
+	 */
+	int at(long time) {
+		// The last slot starting at or before the time
+		var low = 0;
+		var high = size - 1;
+		var found = -1;
+		while (low <= high) {
+			var middle = (low + high) >>> 1;
+			if (starts[middle] <= time) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found != -1 && time < ends[found] ? found : -1;
+	}
+
+	long start(int slot) {
+		return starts[slot];
+	}
+
+	long end(int slot) {
+		return ends[slot];
+	}
+
+	String title(int slot) {
+		return titles[slot];
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Something wrong with a guide.
+	 *
+	 * @param at    when it happens, in epoch milliseconds
+	 * @param title the programme it was found at
+	 */
+	record Problem(Kind kind, long at, String title, String detail) {
+
+		enum Kind {
+			GAP("gap"), OVERLAP("overlap"), OUT_OF_ORDER("out-of-order"), EMPTY("empty");
+
+			final String label;
+
+			Kind(String label) {
+				this.label = label;
+			}
+		}
+	}
+}
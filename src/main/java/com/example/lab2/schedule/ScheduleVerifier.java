@@ -0,0 +1,298 @@
+package com.example.lab2.schedule;
+
+import com.example.lab2.catalogue.NextData;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Checks the guide of every channel on the Kanaler page for a number of days around today.
+ * <p>
+ * The channels are read from the {@code Channel} objects of {@code /kanaler}, and the guide of each
+ * channel and day from {@code /kanaler/<channel>?date=<yyyy-mm-dd>}, whose {@code Channel} object has
+ * a {@code schedule} of programmes with a {@code name}, {@code start} and {@code end} in ISO 8601.
+ * Every channel-day is fetched concurrently, at most {@link Settings#concurrency()} at a time, and
+ * timed from request to parsed guide.
+ * <p>
+ * The days of a channel are put together in a {@link ScheduleIndex}, so that gaps and overlaps across
+ * midnight are found too. The report has one tab separated line per problem: kind, channel, time,
+ * programme and detail, with kinds {@code gap}, {@code overlap}, {@code out-of-order}, {@code empty}
+ * and {@code error}.
+ * <pre>
+ * java -cp ... com.example.lab2.schedule.ScheduleVerifier http://localhost:8080/ target/schedule-report.tsv
+ * </pre>
+ */
+public class ScheduleVerifier implements Closeable {
+
+	private static final ZoneId swedishTime = ZoneId.of("Europe/Stockholm");
+	private static final DateTimeFormatter reportTime = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm", Locale.ROOT)
+			.withZone(swedishTime);
+
+	private final URI base;
+	private final Settings settings;
+	private final Writer report;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		var thread = new Thread(runnable, "schedule-verifier");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private final HttpClient client;
+
+	public ScheduleVerifier(URI base, Settings settings, Writer report) {
+		this.base = base;
+		this.settings = settings;
+		this.report = report;
+		this.client = HttpClient.newBuilder()
+				.executor(executor)
+				.connectTimeout(settings.timeout())
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("Usage: ScheduleVerifier <base url> <report file>");
+			System.exit(2);
+		}
+
+		var base = URI.create(args[0].endsWith("/") ? args[0] : args[0] + "/");
+		try (var report = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8);
+			 var verifier = new ScheduleVerifier(base, Settings.defaults(), report)) {
+			var summary = verifier.verify();
+			System.out.println(summary);
+			summary.timings().forEach(System.out::println);
+		}
+	}
+
+	/**
+	 * Loads and checks the guides, and returns when every channel-day has been checked.
+	 *
+	 * @throws IOException if the Kanaler page can't be fetched
+	 */
+	public Summary verify() throws IOException, InterruptedException {
+		var start = System.nanoTime();
+		var channels = channels(get("kanaler"));
+		var days = 2 * settings.days() + 1;
+		var first = settings.today().minusDays(settings.days());
+
+		var guides = new Guide[channels.size()][days];
+		var inFlight = new Semaphore(settings.concurrency());
+		var loads = new ArrayList<CompletableFuture<?>>();
+		for (var c = 0; c < channels.size(); c++) {
+			for (var d = 0; d < days; d++) {
+				var channel = c;
+				var day = d;
+				inFlight.acquire();
+				loads.add(load(channels.get(c), first.plusDays(d))
+						.thenAccept(guide -> guides[channel][day] = guide)
+						.whenComplete((ignored, error) -> inFlight.release()));
+			}
+		}
+		CompletableFuture.allOf(loads.toArray(CompletableFuture[]::new)).join();
+
+		var timings = new ArrayList<Timing>();
+		int slots = 0, problems = 0, errors = 0;
+		for (var c = 0; c < channels.size(); c++) {
+			var channel = channels.get(c);
+			var index = new ScheduleIndex();
+			for (var d = 0; d < days; d++) {
+				var guide = guides[c][d];
+				timings.add(new Timing(channel, guide.date(), guide.slots(), guide.millis()));
+				if (guide.error() != null) {
+					errors++;
+					write("error", channel, guide.date().toString(), "", guide.error());
+					continue;
+				}
+				guide.addTo(index);
+			}
+
+			for (var problem : index.check(settings.maxGap().toMillis())) {
+				problems++;
+				write(problem.kind().label, channel, reportTime.format(Instant.ofEpochMilli(problem.at())),
+						problem.title(), problem.detail());
+			}
+			index.sort();
+			slots += index.size();
+		}
+		flushReport();
+
+		return new Summary(channels.size(), loads.size(), slots, problems, errors,
+				(System.nanoTime() - start) / 1_000_000, timings);
+	}
+
+	/**
+	 * The ids of the channels on the Kanaler page, in the order of the channel list in the page data.
+	 */
+	static List<String> channels(String html) {
+		var channels = new LinkedHashMap<String, String>();
+		for (var channel : NextData.parse(html).ofType("Channel")) {
+			channels.putIfAbsent(channel.getString("id"), channel.optString("name"));
+		}
+		return List.copyOf(channels.keySet());
+	}
+
+	private CompletableFuture<Guide> load(String channel, LocalDate date) {
+		var started = System.nanoTime();
+		var request = HttpRequest.newBuilder(base.resolve("kanaler/" + URLEncoder.encode(channel, StandardCharsets.UTF_8)
+						+ "?date=" + date))
+				.timeout(settings.timeout())
+				.GET()
+				.build();
+		return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+				.thenApply(response -> {
+					if (response.statusCode() < 200 || response.statusCode() >= 300) {
+						throw new UncheckedIOException(new IOException("GET " + request.uri() + " returned " + response.statusCode()));
+					}
+					return Guide.parse(channel, date, response.body(), started);
+				})
+				.exceptionally(error -> Guide.failed(date, error.getCause() != null ? error.getCause() : error, started));
+	}
+
+	private String get(String path) throws IOException, InterruptedException {
+		var request = HttpRequest.newBuilder(base.resolve(path)).timeout(settings.timeout()).GET().build();
+		var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() < 200 || response.statusCode() >= 300) {
+			throw new IOException("GET " + request.uri() + " returned " + response.statusCode());
+		}
+		return response.body();
+	}
+
+	private void write(String kind, String channel, String at, String title, String detail) {
+		try {
+			report.write(kind + '\t' + channel + '\t' + at + '\t' + title.replace('\t', ' ') + '\t'
+					+ detail.replace('\t', ' ').replace('\n', ' ') + '\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the schedule report", e);
+		}
+	}
+
+	private void flushReport() {
+		try {
+			report.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the schedule report", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * @param today       the day in the middle of the window
+	 * @param days        how many days before and after today to check
+	 * @param concurrency the most guides loading at a time
+	 * @param timeout     for connecting and for each response
+	 * @param maxGap      the longest gap between two programmes that isn't reported
+	 */
+	public record Settings(LocalDate today, int days, int concurrency, Duration timeout, Duration maxGap) {
+
+		public static Settings defaults() {
+			return new Settings(
+					LocalDate.now(swedishTime),
+					Integer.getInteger("svtplay.schedule.days", 7),
+					Integer.getInteger("svtplay.schedule.concurrency", 16),
+					Duration.ofSeconds(10),
+					Duration.ofMinutes(Long.getLong("svtplay.schedule.maxGapMinutes", 1)));
+		}
+	}
+
+	/**
+	 * How long the guide of a channel-day took to load and parse.
+	 */
+	public record Timing(String channel, LocalDate date, int slots, long millis) {
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "  %-20s %s %5d slots %6d ms", channel, date, slots, millis);
+		}
+	}
+
+	/**
+	 * What a verification found.
+	 *
+	 * @param slots    the programmes in every guide, a programme past midnight counted once
+	 * @param problems the gaps, overlaps, programmes out of order and empty programmes
+	 * @param errors   the channel-days whose guide couldn't be loaded
+	 */
+	public record Summary(int channels, int channelDays, int slots, int problems, int errors, long millis,
+						  List<Timing> timings) {
+
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "Checked %d programmes on %d channels, %d channel-days in %d ms: %d problems, %d errors",
+					slots, channels, channelDays, millis, problems, errors);
+		}
+	}
+
+	/**
+	 * The guide of a channel for a day, as loaded.
+	 */
+	private record Guide(LocalDate date, long[] starts, long[] ends, String[] titles, long millis, String error) {
+
+		static Guide parse(String channel, LocalDate date, String html, long started) {
+			var schedule = NextData.parse(html).ofType("Channel").stream()
+					.filter(candidate -> channel.equals(candidate.optString("id")))
+					.findFirst()
+					.map(candidate -> candidate.optJSONArray("schedule"))
+					.orElseThrow(() -> new IllegalArgumentException("No guide of " + channel + " for " + date));
+
+			var starts = new long[schedule.length()];
+			var ends = new long[schedule.length()];
+			var titles = new String[schedule.length()];
+			for (var i = 0; i < schedule.length(); i++) {
+				JSONObject programme = schedule.getJSONObject(i);
+				starts[i] = epochMillis(programme.getString("start"));
+				ends[i] = epochMillis(programme.getString("end"));
+				titles[i] = programme.optString("name");
+			}
+			return new Guide(date, starts, ends, titles, (System.nanoTime() - started) / 1_000_000, null);
+		}
+
+		static Guide failed(LocalDate date, Throwable error, long started) {
+			return new Guide(date, new long[0], new long[0], new String[0], (System.nanoTime() - started) / 1_000_000,
+					error.toString());
+		}
+
+		private static long epochMillis(String time) {
+			return OffsetDateTime.parse(time).toInstant().toEpochMilli();
+		}
+
+		int slots() {
+			return starts.length;
+		}
+
+		void addTo(ScheduleIndex index) {
+			for (var i = 0; i < starts.length; i++) {
+				index.add(starts[i], ends[i], titles[i]);
+			}
+		}
+	}
+}
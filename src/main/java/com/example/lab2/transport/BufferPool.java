@@ -0,0 +1,52 @@
+package com.example.lab2.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Byte arrays to read request bodies into, handed back after the request has been sent.
+ * <p>
+ * Every WebDriver command has a small JSON body, so the same few arrays serve a whole run instead
+ * of a new stream and array per command. The pool takes no locks, which keeps it friendly to
+ * virtual threads, and arrays that grew large are dropped instead of kept.
+ */
+class BufferPool {
+
+	private static final int initialSize = 8 * 1024;
+	private static final int largestKept = 1024 * 1024;
+
+	private final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Reads a stream to the end into a pooled array.
+	 */
+	Buffer read(InputStream in) throws IOException {
+		var bytes = free.poll();
+		if (bytes == null) {
+			bytes = new byte[initialSize];
+		}
+
+		var length = 0;
+		try (in) {
+			int read;
+			while ((read = in.read(bytes, length, bytes.length - length)) != -1) {
+				length += read;
+				if (length == bytes.length) {
+					bytes = Arrays.copyOf(bytes, bytes.length * 2);
+				}
+			}
+		}
+		return new Buffer(bytes, length);
+	}
+
+	void release(Buffer buffer) {
+		if (buffer.bytes().length <= largestKept) {
+			free.add(buffer.bytes());
+		}
+	}
+
+	record Buffer(byte[] bytes, int length) {
+	}
+}
@@ -0,0 +1,261 @@
+package com.example.lab2.transport;
+
+import org.openqa.selenium.Credentials;
+import org.openqa.selenium.UsernameAndPassword;
+import org.openqa.selenium.remote.http.BinaryMessage;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.CloseMessage;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.Message;
+import org.openqa.selenium.remote.http.TextMessage;
+import org.openqa.selenium.remote.http.WebSocket;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A Selenium HTTP client on top of {@link java.net.http.HttpClient}, see {@link JdkHttpClientFactory}.
+ */
+class JdkHttpClient implements HttpClient {
+
+	// Headers the JDK client sets itself and refuses to take from us
+	private static final Set<String> restrictedHeaders = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+	private final ClientConfig config;
+	private final URI baseUri;
+	private final java.net.http.HttpClient client;
+	private final BufferPool buffers;
+	private final HttpHandler handler;
+
+	JdkHttpClient(ClientConfig config, BufferPool buffers) {
+		this.config = config;
+		this.baseUri = config.baseUri();
+		this.buffers = buffers;
+
+		var builder = java.net.http.HttpClient.newBuilder()
+				.connectTimeout(config.connectionTimeout())
+				.followRedirects(java.net.http.HttpClient.Redirect.NEVER)
+				// chromedriver only speaks HTTP/1.1, asking it for h2c would cost a round trip per connection
+				.version("https".equalsIgnoreCase(baseUri.getScheme())
+						? java.net.http.HttpClient.Version.HTTP_2
+						: java.net.http.HttpClient.Version.HTTP_1_1);
+		if (config.proxy() != null && config.proxy().address() instanceof InetSocketAddress address) {
+			builder.proxy(ProxySelector.of(address));
+		}
+		this.client = builder.build();
+		this.handler = config.filter().andFinally(this::send);
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws UncheckedIOException {
+		return handler.execute(request);
+	}
+
+	private HttpResponse send(HttpRequest request) {
+		var uri = uri(request);
+		var builder = java.net.http.HttpRequest.newBuilder(uri).timeout(config.readTimeout());
+		for (var name : request.getHeaderNames()) {
+			if (!restrictedHeaders.contains(name.toLowerCase(Locale.ROOT))) {
+				for (var value : request.getHeaders(name)) {
+					builder.header(name, value);
+				}
+			}
+		}
+		authorization(config.credentials(), builder);
+
+		BufferPool.Buffer body = null;
+		try {
+			switch (request.getMethod()) {
+				case GET -> builder.GET();
+				case DELETE -> builder.DELETE();
+				case OPTIONS -> builder.method("OPTIONS", BodyPublishers.noBody());
+				default -> {
+					body = buffers.read(request.getContent().get());
+					builder.method(request.getMethod().name(), BodyPublishers.ofByteArray(body.bytes(), 0, body.length()));
+				}
+			}
+
+			var response = client.send(builder.build(), BodyHandlers.ofByteArray());
+			return toSelenium(uri, response);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for " + uri));
+		} finally {
+			// The body has been sent once send returns, so the array can be reused
+			if (body != null) {
+				buffers.release(body);
+			}
+		}
+	}
+
+	private static HttpResponse toSelenium(URI uri, java.net.http.HttpResponse<byte[]> response) {
+		var converted = new HttpResponse();
+		converted.setStatus(response.statusCode());
+		converted.setTargetHost(uri.getHost());
+		response.headers().map().forEach((name, values) -> {
+			// HTTP/2 pseudo headers like :status
+			if (!name.startsWith(":")) {
+				values.forEach(value -> converted.addHeader(name, value));
+			}
+		});
+		converted.setContent(Contents.bytes(response.body()));
+		return converted;
+	}
+
+	private URI uri(HttpRequest request) {
+		var target = request.getUri();
+		var builder = new StringBuilder();
+		if (target.startsWith("http://") || target.startsWith("https://") || target.startsWith("ws://")) {
+			builder.append(target);
+		} else {
+			var base = baseUri.toString();
+			builder.append(base.endsWith("/") ? base.substring(0, base.length() - 1) : base);
+			builder.append(target.startsWith("/") ? target : "/" + target);
+		}
+
+		var separator = builder.indexOf("?") < 0 ? '?' : '&';
+		for (var name : request.getQueryParameterNames()) {
+			for (var value : request.getQueryParameters(name)) {
+				builder.append(separator)
+						.append(URLEncoder.encode(name, StandardCharsets.UTF_8))
+						.append('=')
+						.append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+				separator = '&';
+			}
+		}
+		return URI.create(builder.toString());
+	}
+
+	private static void authorization(Credentials credentials, java.net.http.HttpRequest.Builder builder) {
+		if (credentials instanceof UsernameAndPassword user) {
+			var token = user.username() + ":" + user.password();
+			builder.header("Authorization",
+					"Basic " + Base64.getEncoder().encodeToString(token.getBytes(StandardCharsets.UTF_8)));
+		}
+	}
+
+	@Override
+	public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+		var uri = uri(request);
+		var scheme = "https".equalsIgnoreCase(uri.getScheme()) ? "wss" : uri.getScheme().replace("http", "ws");
+		var socketUri = URI.create(scheme + uri.toString().substring(uri.getScheme().length()));
+
+		try {
+			var socket = client.newWebSocketBuilder()
+					.connectTimeout(config.connectionTimeout())
+					.buildAsync(socketUri, new Forwarder(listener))
+					.get(config.connectionTimeout().toMillis(), TimeUnit.MILLISECONDS);
+			return new Socket(socket, config.readTimeout().toMillis());
+		} catch (ExecutionException e) {
+			throw new UncheckedIOException(new IOException("Could not open a web socket to " + socketUri, e.getCause()));
+		} catch (TimeoutException e) {
+			throw new UncheckedIOException(new IOException("Timed out opening a web socket to " + socketUri, e));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted opening a web socket to " + socketUri));
+		}
+	}
+
+	/**
+	 * Hands whole messages from the JDK socket to a Selenium listener.
+	 */
+	private static class Forwarder implements java.net.http.WebSocket.Listener {
+
+		private final WebSocket.Listener listener;
+		private final StringBuilder text = new StringBuilder();
+		private java.io.ByteArrayOutputStream binary = new java.io.ByteArrayOutputStream();
+
+		Forwarder(WebSocket.Listener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public CompletionStage<?> onText(java.net.http.WebSocket socket, CharSequence data, boolean last) {
+			text.append(data);
+			if (last) {
+				listener.onText(text.toString());
+				text.setLength(0);
+			}
+			socket.request(1);
+			return null;
+		}
+
+		@Override
+		public CompletionStage<?> onBinary(java.net.http.WebSocket socket, ByteBuffer data, boolean last) {
+			var bytes = new byte[data.remaining()];
+			data.get(bytes);
+			binary.writeBytes(bytes);
+			if (last) {
+				listener.onBinary(binary.toByteArray());
+				binary = new java.io.ByteArrayOutputStream();
+			}
+			socket.request(1);
+			return null;
+		}
+
+		@Override
+		public CompletionStage<?> onClose(java.net.http.WebSocket socket, int statusCode, String reason) {
+			listener.onClose(statusCode, reason);
+			return null;
+		}
+
+		@Override
+		public void onError(java.net.http.WebSocket socket, Throwable error) {
+			listener.onError(error);
+		}
+	}
+
+	private record Socket(java.net.http.WebSocket socket, long timeoutMillis) implements WebSocket {
+
+		@Override
+		public WebSocket send(Message message) {
+			CompletionStage<java.net.http.WebSocket> sent;
+			if (message instanceof TextMessage text) {
+				sent = socket.sendText(text.text(), true);
+			} else if (message instanceof BinaryMessage binary) {
+				sent = socket.sendBinary(ByteBuffer.wrap(binary.data()), true);
+			} else if (message instanceof CloseMessage close) {
+				sent = socket.sendClose(close.code(), close.reason() == null ? "" : close.reason());
+			} else {
+				throw new IllegalArgumentException("Unsupported message: " + message);
+			}
+
+			try {
+				sent.toCompletableFuture().get(timeoutMillis, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UncheckedIOException(new InterruptedIOException("Interrupted sending " + message));
+			} catch (ExecutionException | TimeoutException e) {
+				throw new UncheckedIOException(new IOException("Could not send " + message, e));
+			}
+			return this;
+		}
+
+		@Override
+		public void close() {
+			socket.sendClose(java.net.http.WebSocket.NORMAL_CLOSURE, "");
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.lab2.transport;
+
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpClientName;
+
+/**
+ * Sends WebDriver commands with the JDK's own {@link java.net.http.HttpClient} instead of Netty.
+ * <p>
+ * Connections to chromedriver are kept alive and reused for every command, request bodies are read
+ * into pooled buffers, and a command blocks its thread only by parking on the response, which costs
+ * nothing on virtual threads. Selenium picks the factory with {@code -Dwebdriver.http.factory=lab2-jdk},
+ * which has to be set before the first browser is started; the UI tests do that for
+ * {@code -Dsvtplay.http=jdk}.
+ */
+@HttpClientName(JdkHttpClientFactory.name)
+public class JdkHttpClientFactory implements HttpClient.Factory {
+
+	public static final String name = "lab2-jdk";
+
+	private final BufferPool buffers = new BufferPool();
+
+	/**
+	 * Makes this the factory of every browser started from now on.
+	 */
+	public static void select() {
+		System.setProperty("webdriver.http.factory", name);
+	}
+
+	@Override
+	public HttpClient createClient(ClientConfig config) {
+		return new JdkHttpClient(config, buffers);
+	}
+}
@@ -0,0 +1,95 @@
+package com.example.lab2;
+
+import com.example.lab2.catalogue.CatalogueClient;
+import com.example.lab2.support.SiteUnderTest;
+import com.example.lab2.support.TestHistoryExtension;
+import com.example.lab2.support.TestHistoryOrderer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+
+/**
+ * The catalogue facts checked by {@link SvtPlayTests}, read straight from the page data instead
+ * of a browser. These run in milliseconds and are the first thing to look at when the site changes,
+ * while {@link SvtPlayTests} remains the slower end-to-end check of the same facts.
+ * <p>
+ * They are skipped when the site can't be reached, {@code -Dsvtplay.fixtures=true} runs them against the stub pages.
+ */
+@ExtendWith(TestHistoryExtension.class)
+@TestMethodOrder(TestHistoryOrderer.class)
+public class SvtPlayDataTests {
+
+    private static CatalogueClient catalogue;
+
+    @BeforeAll
+    static void setup() {
+        Assumptions.assumeTrue(SiteUnderTest.reachable(), () -> SiteUnderTest.baseUrl() + " can't be reached");
+        catalogue = new CatalogueClient(SiteUnderTest.baseUrl());
+    }
+
+    @AfterAll
+    static void teardown() throws IOException {
+        if (catalogue != null) {
+            catalogue.close();
+        }
+    }
+
+    /**
+     * G7 - The number of categories on the Program page.
+     */
+    @Test
+    void checkNumberOfCategoriesOnProgramsPage() throws IOException {
+        // The number of categories as of 2023-03-20
+        var expectedCategories = 18;
+
+        Assertions.assertEquals(expectedCategories, catalogue.categories().size(), "Wrong number of categories listed");
+    }
+
+    /**
+     * VG1 - Agenda should be the first hit when searching for "Agenda".
+     */
+    @Test
+    void agendaShouldBeFirstMatchWhenSearchingForAgenda() throws IOException {
+        var hits = catalogue.search("agenda");
+
+        Assertions.assertFalse(hits.isEmpty(), "No hits when searching for 'Agenda'");
+        Assertions.assertEquals("Agenda", hits.get(0).title(), "Wrong program found when searching for 'Agenda'");
+    }
+
+    /**
+     * VG2 - The length of season 2 of Pistvakt, and the name of its 5th episode.
+     */
+    @Test
+    void verifySeasonLengthAndNameOfS2E5ofPistvakt() throws IOException {
+        // Find the program page the same way as in the browser, through the search
+        var hits = catalogue.search("pistvakt");
+        Assertions.assertFalse(hits.isEmpty(), "No hits when searching for 'Pistvakt'");
+
+        var seasonTwo = catalogue.seasons(hits.get(0).path()).stream()
+                .filter(season -> season.name().equalsIgnoreCase("Säsong 2"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No season two of 'Pistvakt'"));
+
+        Assertions.assertEquals(6, seasonTwo.episodes().size(), "Wrong number of episodes in season two of 'Pistvakt'");
+        Assertions.assertEquals("5. Personalfestan", seasonTwo.episodes().get(4),
+                "Wrong name of episode 5 in season two of 'Pistvakt'");
+    }
+
+    /**
+     * VG Extra 4 - Fewer programs should be available abroad than in Sweden.
+     */
+    @Test
+    void verifyThatFewerProgramsAreAvailableWhenAbroad() throws IOException {
+        var programs = catalogue.programs();
+        var programsViewableAbroad = programs.stream().filter(CatalogueClient.Program::availableAbroad).count();
+
+        Assertions.assertTrue(programsViewableAbroad < programs.size(),
+                "Expected the number of available programs abroad to be fewer than those available in Sweden");
+    }
+}
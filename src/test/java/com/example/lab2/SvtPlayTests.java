@@ -1,53 +1,215 @@
 package com.example.lab2;
 
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.impl.client.HttpClientBuilder;
+import com.example.lab2.pages.PageEvents;
+import com.example.lab2.pages.StartPage;
+import com.example.lab2.support.BrowserProfiles;
+import com.example.lab2.support.BrowserState;
+import com.example.lab2.support.CommandTimer;
+import com.example.lab2.support.DomWait;
+import com.example.lab2.support.ElementQuery;
+import com.example.lab2.support.FailureArtifacts;
+import com.example.lab2.support.HealingLocators;
+import com.example.lab2.support.LinkChecker;
+import com.example.lab2.support.PageMetrics;
+import com.example.lab2.support.ProfileSavings;
+import com.example.lab2.support.SessionSnapshot;
+import com.example.lab2.support.ShardFilter;
+import com.example.lab2.support.SiteUnderTest;
+import com.example.lab2.support.TestHistoryExtension;
+import com.example.lab2.support.TestHistoryOrderer;
+import com.example.lab2.support.VisualBaselines;
+import com.example.lab2.support.WebDriverPool;
+import com.example.lab2.transport.JdkHttpClientFactory;
 import org.json.JSONException;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.parallel.Execution;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Cookie;
 import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.html5.WebStorage;
-import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.file.Path;
 import java.text.DateFormatSymbols;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.stream.Stream;
 
+@ExtendWith({ShardFilter.class, TestHistoryExtension.class})
+@TestMethodOrder(TestHistoryOrderer.class)
+@Execution(ExecutionMode.CONCURRENT)
 public class SvtPlayTests {
 
-    private static WebDriver driver;
     private static final int toWait = 5;
 
+    // Tests with this tag change cookies, settings or the window. Their browser is reset afterwards.
+    private static final String mutatesState = "mutates-state";
+
+    // Pre-warmed browsers, shared by all tests running in parallel
+    private static WebDriverPool drivers;
+
+    // The state of a browser that has accepted the cookie consent, shared by all browsers
+    private static SessionSnapshot sessionSnapshot;
+
+    // Shared by all link checks so that connections are pooled for the whole run
+    private static LinkChecker linkChecker;
+
+    // Times every command sent to the browsers
+    private static final CommandTimer commandTimer = new CommandTimer();
+
+    // Navigation timings and Web Vitals of every page the tests visit
+    private static PageMetrics pageMetrics;
+
+    // Falls back to fingerprints for the elements that are only reachable through generated class names
+    private static final HealingLocators locators = HealingLocators.shared();
+
+    // Cached reads of the cookies and LocalStorage of every browser
+    private static final Map<WebDriver, BrowserState> browserStates = Collections.synchronizedMap(new WeakHashMap<>());
+
+    // What the browsers download, and what blocking the rest saves
+    private static final BrowserProfiles profiles = new BrowserProfiles();
+    private static final ProfileSavings profileSavings = ProfileSavings.create();
+
+    // Screenshots of every page at a few widths, to catch layout changes
+    private static final VisualBaselines visualBaselines = VisualBaselines.create();
+
+    // A screenshot, the DOM, console and network log of every failure, saved in the background
+    @RegisterExtension
+    static final FailureArtifacts failureArtifacts = FailureArtifacts.create(test -> ((SvtPlayTests) test).driver);
+
+    // Swedish month names, made once instead of by every test that formats a date
+    private static final DateFormatSymbols swedishSymbols = DateFormatSymbols.getInstance(Locale.forLanguageTag("sv-SE"));
+
+    // The browser leased by the current test, how we wait for it and how we read its state
+    private WebDriver driver;
+    private DomWait wait;
+    private BrowserState state;
+    private StartPage startPage;
+    private BrowserProfiles.Profile profile;
+    private long leasedAt;
+
     /**
-     * Sets up a fresh, new browser for every run.
-     * Navigates to the site and accepts the cookie consent dialog.
+     * Starts a pool of fresh, new browsers for every run.
+     * Each browser is on the site with the cookie consent accepted before it is used.
      */
     @BeforeAll
     static void setup() {
-        var options = new ChromeOptions();
-        options.addArguments("--remote-allow-origins=*", "--incognito");
-        driver = new ChromeDriver(options);
+        // Commands go over the JDK HTTP client with -Dsvtplay.http=jdk, over Netty otherwise
+        if ("jdk".equals(System.getProperty("svtplay.http"))) {
+            JdkHttpClientFactory.select();
+        }
+        pageMetrics = new PageMetrics(SiteUnderTest.baseUrl());
+        drivers = new WebDriverPool(WebDriverPool.configuredSize(), SvtPlayTests::newBrowser,
+                driver -> {
+                    profiles.use(driver, profiles.standard());
+                    driver.get(SiteUnderTest.baseUrl());
+                },
+                driver -> {
+                    profiles.use(driver, profiles.standard());
+                    sessionSnapshot.reset(driver);
+                });
+        linkChecker = LinkChecker.create(commandTimer);
+    }
+
+    static WebDriver newBrowser() {
+        var chromeDriver = startChrome(profiles.chromeOptions());
+        var state = new BrowserState(chromeDriver);
+        var pageEvents = new PageEvents();
+        WebDriver driver = new EventFiringDecorator<>(commandTimer, pageMetrics.listenerFor(chromeDriver), state,
+                pageEvents).decorate(chromeDriver);
+        browserStates.put(driver, state);
+        PageEvents.register(driver, pageEvents);
+        try {
+            profiles.register(driver, chromeDriver);
+            profiles.use(driver, profiles.standard());
+            if (!captureSessionSnapshot(driver)) {
+                sessionSnapshot.apply(driver);
+            }
+        } catch (RuntimeException e) {
+            driver.quit();
+            throw e;
+        }
+        return driver;
+    }
+
+    /**
+     * Starts Chrome locally, or on a Selenium Grid if {@code -Dsvtplay.grid=<hub url>} is given.
+     * A local grid is started with {@code java -jar selenium-server-<version>.jar standalone}.
+     * Remember to size the pool after the grid with {@code -Dsvtplay.drivers}.
+     */
+    static RemoteWebDriver startChrome(ChromeOptions options) {
+        var grid = System.getProperty("svtplay.grid");
+        if (grid == null) {
+            return new ChromeDriver(options);
+        }
+        try {
+            return new RemoteWebDriver(URI.create(grid).toURL(), options);
+        } catch (IllegalArgumentException | MalformedURLException e) {
+            throw new IllegalArgumentException("Not a grid URL: " + grid, e);
+        }
+    }
 
-        driver.get("https://www.svtplay.se/");
-        acceptCookieConsentDialog();
+    /**
+     * Makes sure there is a session snapshot, either from an earlier run or by accepting
+     * the cookie consent dialog in the given browser.
+     *
+     * @return true if the snapshot was captured from the browser, which is then ready to use
+     */
+    static synchronized boolean captureSessionSnapshot(WebDriver driver) {
+        var baseUrl = SiteUnderTest.baseUrl();
+        var file = Path.of(System.getProperty("svtplay.session.snapshot", "target/session-snapshot.json"));
+
+        if (sessionSnapshot == null) {
+            sessionSnapshot = SessionSnapshot.load(file)
+                    .filter(snapshot -> snapshot.isUsableFor(baseUrl))
+                    .orElse(null);
+        }
+        if (sessionSnapshot != null) {
+            return false;
+        }
+
+        driver.get(baseUrl);
+        acceptCookieConsentDialog(driver);
+        sessionSnapshot = SessionSnapshot.capture(driver, baseUrl);
+
+        try {
+            sessionSnapshot.save(file);
+        } catch (IOException e) {
+            // We can still use it for this run
+        }
+        return true;
     }
 
-    static void acceptCookieConsentDialog() {
+    static void acceptCookieConsentDialog(WebDriver driver) {
+        var wait = new DomWait(driver, Duration.ofSeconds(toWait));
+
         // The modal takes a couple of seconds to show up
         var modalXpath = "//div[@data-rt='cookie-consent-modal']";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(modalXpath)));
+        wait.until(ExpectedConditions.visibilityOfElementLocated(By.xpath(modalXpath)));
 
         // Accept the default settings
         var modal = driver.findElement(By.xpath(modalXpath));
@@ -55,24 +217,91 @@ public class SvtPlayTests {
         consentButton.click();
 
         // The modal takes a couple of seconds to close after accepting
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.invisibilityOfElementLocated(By.xpath(modalXpath)));
+        wait.until(ExpectedConditions.invisibilityOfElementLocated(By.xpath(modalXpath)));
     }
 
     /**
-     * Shuts down the driver after all tests are done.
+     * Shuts down the browsers and the link checker after all tests are done,
+     * and shows where the time was spent.
      */
     @AfterAll
-    static void teardown() {
-        driver.quit();
+    static void teardown() throws IOException {
+        drivers.close();
+        linkChecker.close();
+
+        System.out.println(DomWait.report());
+        System.out.println(commandTimer.report());
+        commandTimer.write(Path.of("target", "command-timings"));
+        pageMetrics.write(Path.of("target", "page-metrics"));
+
+        var repairs = locators.report();
+        if (!repairs.isEmpty()) {
+            System.out.println(repairs);
+        }
+        locators.save();
+
+        var savings = profileSavings.report();
+        if (!savings.isEmpty()) {
+            System.out.println(savings);
+        }
+        profileSavings.save();
+
+        failureArtifacts.close();
+        var artifacts = failureArtifacts.report();
+        if (!artifacts.isEmpty()) {
+            System.out.println(artifacts);
+        }
     }
 
     /**
-     * Navigates to the start page before each test.
+     * Leases a browser for the test. It is already showing the start page,
+     * which is reloaded if the test needs a browser profile that downloads more.
      */
     @BeforeEach
-    void navigate() {
-        driver.get("https://www.svtplay.se/");
+    void leaseBrowser(TestInfo testInfo) {
+        CommandTimer.setCurrentTest(testName(testInfo));
+        driver = drivers.lease();
+        leasedAt = System.nanoTime();
+        wait = new DomWait(driver, Duration.ofSeconds(toWait));
+        state = browserStates.get(driver);
+        state.invalidate();
+
+        profile = profiles.forTags(testInfo.getTags());
+        if (profiles.use(driver, profile)) {
+            driver.navigate().refresh();
+        }
+        startPage = new StartPage(driver, wait);
+    }
+
+    /**
+     * The name the timings and page metrics of a test are kept under. Invocations of a parameterized
+     * test each get their own, e.g. "verifyLayout start at 768 px".
+     */
+    static String testName(TestInfo testInfo) {
+        var method = testInfo.getTestMethod().map(Method::getName).orElse(testInfo.getDisplayName());
+        var displayName = testInfo.getDisplayName();
+        return displayName.startsWith(method + "(") ? method : method + " " + displayName;
+    }
+
+    /**
+     * Hands the browser back to the pool, which resets it if the test changed its state.
+     * Fails the test if any page it visited was over its performance budget.
+     */
+    @AfterEach
+    void releaseBrowser(TestInfo testInfo) {
+        if (driver != null) {
+            drivers.release(driver, testInfo.getTags().contains(mutatesState));
+        }
+
+        var test = CommandTimer.currentTest();
+        if (profile != null) {
+            profileSavings.record(test, profile, pageMetrics.bytes(test), (System.nanoTime() - leasedAt) / 1_000_000);
+        }
+
+        var violations = pageMetrics.violations(test);
+        CommandTimer.setCurrentTest(null);
+
+        Assertions.assertTrue(violations.isEmpty(), "Over the performance budget:\n" + String.join("\n", violations));
     }
 
     /**
@@ -81,7 +310,7 @@ public class SvtPlayTests {
     @Test
     void isTitleCorrect() {
         // Grab the title
-        var actualTitle = driver.getTitle();
+        var actualTitle = startPage.title();
         var expectedTitle = "SVT Play";
 
         Assertions.assertEquals(expectedTitle, actualTitle, "Incorrect title is shown");
@@ -91,9 +320,9 @@ public class SvtPlayTests {
      * G2 - Kontrollera att webbplatsens logotyp är synlig.
      */
     @Test
+    @Tag(BrowserProfiles.needsImages)
     void isLogoVisible() {
-        // The logo is the only svg in the site
-        var logo = driver.findElement(By.tagName("svg"));
+        var logo = startPage.logo();
 
         Assertions.assertTrue(logo.isDisplayed(), "No logo is displayed");
     }
@@ -103,24 +332,17 @@ public class SvtPlayTests {
      */
     @Test
     void areMainLinksOnStartPageCorrect() {
+        var linkTexts = startPage.mainLinkTexts();
+
         // Actual values are Pascal cased but then upper-cased through CSS
         var expectedStartText = "Start".toUpperCase();
-        var startTextXpath = "//li[@type='start']/a";
-        var startText = driver.findElement(By.xpath(startTextXpath));
-
-        Assertions.assertEquals(expectedStartText, startText.getText(), "Wrong text on 'Start' link");
+        Assertions.assertEquals(expectedStartText, linkTexts.get("start"), "Wrong text on 'Start' link");
 
         var expectedProgramsText = "Program".toUpperCase();
-        var expectedProgramsXpath = "//li[@type='programs']/a";
-        var programsText = driver.findElement(By.xpath(expectedProgramsXpath));
-
-        Assertions.assertEquals(expectedProgramsText, programsText.getText(), "Wrong text on 'Program' link");
+        Assertions.assertEquals(expectedProgramsText, linkTexts.get("programs"), "Wrong text on 'Program' link");
 
         var expectedChannelsText = "Kanaler".toUpperCase();
-        var expectedChannelsXpath = "//li[@type='channels']/a";
-        var channelsText = driver.findElement(By.xpath(expectedChannelsXpath));
-
-        Assertions.assertEquals(expectedChannelsText, channelsText.getText(), "Wrong text on 'Kanaler' link");
+        Assertions.assertEquals(expectedChannelsText, linkTexts.get("channels"), "Wrong text on 'Kanaler' link");
     }
 
     /**
@@ -129,15 +351,9 @@ public class SvtPlayTests {
     @Test
     void checkAvailabilityLink() {
         var expectedLinkText = "Tillgänglighet i SVT Play";
-        var linkXpath = "//a[@href='https://kontakt.svt.se/guide/tillganglighet']";
-        var link = driver.findElement(By.xpath(linkXpath));
-
-        Assertions.assertTrue(link.isDisplayed(), "No availability link displayed");
 
-        // Selenium cannot CSS select using compound class names,
-        // so we work around it by concatenating the names
-        var linkSpan = link.findElement(By.cssSelector(".sc-343fed33-3.dmRxHt"));
-        Assertions.assertEquals(expectedLinkText, linkSpan.getText(), "Wrong text on availability link");
+        Assertions.assertTrue(startPage.availabilityLink().isDisplayed(), "No availability link displayed");
+        Assertions.assertEquals(expectedLinkText, startPage.availabilityLinkText(), "Wrong text on availability link");
     }
 
     /**
@@ -146,14 +362,10 @@ public class SvtPlayTests {
     @Test
     void verifyHeadingInAvailabilitySite() {
         var expectedText = "Så arbetar SVT med tillgänglighet";
-        var linkXpath = "//a[@href='https://kontakt.svt.se/guide/tillganglighet']";
 
-        // Navigate to the availability site
-        driver.findElement(By.xpath(linkXpath)).click();
-
-        // Grab the heading
-        var heading = driver.findElement(By.tagName("h1"));
-        Assertions.assertEquals(expectedText, heading.getText(), "Wrong heading on availability page");
+        // Navigate to the availability site and grab the heading
+        var heading = startPage.openAvailabilitySite();
+        Assertions.assertEquals(expectedText, heading, "Wrong heading on availability page");
     }
 
     /**
@@ -163,17 +375,11 @@ public class SvtPlayTests {
     @Test
     void checkNumberOfCategoriesOnProgramsPage() {
         // Navigate to the Programs page
-        var programsXpath = "//li[@type='programs']/a";
-        driver.findElement(By.xpath(programsXpath)).click();
+        var programsPage = startPage.openPrograms();
 
         // The number of categories as of 2023-03-20
         var expectedCategories = 18;
-        var categoriesXpath = "//article";
-
-        // Get the actual categories
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(categoriesXpath)));
-        var actualCategories = driver.findElements(By.xpath(categoriesXpath)).size();
+        var actualCategories = programsPage.categoryCount();
 
         Assertions.assertEquals(expectedCategories, actualCategories, "Wrong number of categories displayed");
     }
@@ -184,6 +390,7 @@ public class SvtPlayTests {
      *             and verifies the new value.
      */
     @Test
+    @Tag(mutatesState)
     void verifyThatCookieSettingsAreRespected() {
         // Note: The cookie handling really annoys me...
         //       Sometimes it works flawlessly without any waits or anything,
@@ -200,13 +407,12 @@ public class SvtPlayTests {
         // Try to get the raw cookie
         Cookie rawCookie = null;
         try {
-            rawCookie = new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                    .until(
-                            (ExpectedCondition<Cookie>) webDriver -> {
-                                // We either return the actual cookie or null if not found
-                                return driver.manage().getCookieNamed(cookieName);
-                            }
-                    );
+            rawCookie = wait.until(
+                    (ExpectedCondition<Cookie>) webDriver -> {
+                        // We either return the actual cookie or null if not found
+                        return driver.manage().getCookieNamed(cookieName);
+                    }
+            );
 
         } catch (Exception e){
             Assertions.fail("Exception while getting initial cookie");
@@ -216,16 +422,14 @@ public class SvtPlayTests {
             Assertions.fail("Failed to get initial cookie");
         }
 
-        // Convert the cookie to json
-        var cookie = rawCookie.toJson();
-
         // We accepted all cookies in the setup
         var expectedInitialAdStorageConsent = true;
         var adStorageConsent = false;
 
         try {
-            // Json-parse the cookie and get the "ad_storage" value
-            adStorageConsent = (boolean) new org.json.JSONObject(cookie.get("value").toString()).get("ad_storage");
+            // Read only the "ad_storage" value out of the cookie
+            // Missing or null counts as not consented
+            adStorageConsent = Boolean.TRUE.equals(state.cookie(cookieName, "ad_storage"));
         } catch (JSONException e) {
             // Invalid json in the cookie. We handle it in the assertion.
         }
@@ -233,44 +437,18 @@ public class SvtPlayTests {
         Assertions.assertEquals(expectedInitialAdStorageConsent, adStorageConsent,
                 "Wrong default 'ad storage' consent setting");
 
-        // Navigate to the Settings page
-        var settingsLinkXpath = "//a[@class='sc-5b00349a-0 hwpvwu sc-87f10045-4 imzlFR' and @href='/installningar']";
-        driver.findElement(By.xpath(settingsLinkXpath)).click();
-
-        // Open the cookie consent dialog
-        var cookieButtonClass = ".sc-5b00349a-2.hLpVUw";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.cssSelector(cookieButtonClass)));
-        driver.findElement(By.cssSelector(cookieButtonClass)).click();
-
-        // Wait for ad storage option to show up
-        var adStorageId = "play_cookie_consent_ad_storage";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.id(adStorageId)));
-
-        // Toggle the ad storage consent switch
-        var consentSwitchXpath = "//label[@for='play_cookie_consent_ad_storage']";
-        driver.findElement(By.xpath(consentSwitchXpath)).click();
-
-        // Save the new cookie preferences
-        var saveButtonSelector = ".sc-5b00349a-2.fuGbXH.sc-4f221cd2-9.hEiUxP";
-        driver.findElement(By.cssSelector(saveButtonSelector)).click();
-
-        // The modal takes a couple of seconds to close after accepting
-        var modalXpath = "//div[@data-rt='cookie-consent-modal']";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.invisibilityOfElementLocated(By.xpath(modalXpath)));
+        // Toggle the ad storage consent in the cookie settings and save it
+        startPage.openSettings().toggleAdStorageConsent();
 
         // Try to get the updated cookie
         rawCookie = null;
         try {
-            rawCookie = new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                    .until(
-                            (ExpectedCondition<Cookie>) webDriver -> {
-                                // We either return the actual cookie or null if not found
-                                return driver.manage().getCookieNamed(cookieName);
-                            }
-                    );
+            rawCookie = wait.until(
+                    (ExpectedCondition<Cookie>) webDriver -> {
+                        // We either return the actual cookie or null if not found
+                        return driver.manage().getCookieNamed(cookieName);
+                    }
+            );
 
         } catch (Exception e){
             Assertions.fail("Exception while getting updated cookie");
@@ -280,14 +458,12 @@ public class SvtPlayTests {
             Assertions.fail("Failed to get updated cookie");
         }
 
-        // Convert the updated cookie
-        cookie = rawCookie.toJson();
-
         var expectedAdStorageConsent = false;
         var adStorageConsentAfterToggle = false;
 
         try {
-            adStorageConsentAfterToggle = (boolean) new org.json.JSONObject(cookie.get("value").toString()).get("ad_storage");
+            // Only an explicit false counts as toggled off
+            adStorageConsentAfterToggle = !Boolean.FALSE.equals(state.cookie(cookieName, "ad_storage"));
         } catch (JSONException e) {
             // Invalid json in the cookie. We handle it in the assertion.
             adStorageConsentAfterToggle = true;
@@ -302,22 +478,17 @@ public class SvtPlayTests {
      *             program doesn't play
      */
     @Test
+    @Tag(mutatesState)
     void verifyThatChildProtectionSettingsAreRespected() {
-        // Navigate to the Settings page.
-        driver.findElement(By.linkText("Inställningar".toUpperCase())).click();
-
-        // Toggle the child protection switch
-        var childProtectionSwitchXpath = "//label[@data-rt='child-protection-switch']";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(childProtectionSwitchXpath)));
-        driver.findElement(By.xpath(childProtectionSwitchXpath)).click();
+        // Navigate to the Settings page and toggle the child protection switch
+        var settingsPage = startPage.openSettings().toggleChildProtection();
 
         // The pin code must be four digits.
         // If we only enter three, the "Activate" button shouldn't be available.
-        var input = driver.findElement(By.id("play_settings-parental-control-input"));
+        var input = settingsPage.pinInput();
         input.sendKeys("111");
 
-        var button = driver.findElement(By.xpath("//button[@data-rt='child-protection-password-activate']"));
+        var button = settingsPage.activatePinButton();
         Assertions.assertFalse(button.isEnabled(), "Button is enabled when only three digits have been entered");
 
         // Set the last digit of the code and verify that the button is enabled
@@ -327,30 +498,14 @@ public class SvtPlayTests {
         // Save the code
         button.click();
 
-        // Search for a known program that has age restrictions.
-        var searchText = driver.findElement(By.id("search"));
-        searchText.sendKeys("detektiven från beledweyne");
-        searchText.submit();
-
-        // Navigate to the program page
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath("//main/section/div/ul/li[1]/article/a")));
-        var seriesLink = driver.findElement(By.xpath("//main/section/div/ul/li[1]/article/a"));
-        seriesLink.click();
-
-        // Try to play the first episode
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath("//a[@data-rt='top-area-play-button']")));
-        var playFirstEpisode = driver.findElement(By.xpath("//a[@data-rt='top-area-play-button']"));
-        playFirstEpisode.click();
+        // Search for a known program that has age restrictions, and try to play the first episode
+        var seriesPage = settingsPage.search("detektiven från beledweyne")
+                .openFirstHitLink()
+                .play();
 
         // The "Unsuitable for children" dialog should appear
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath("//div[@role='alertdialog']/h2")));
-        var alert = driver.findElement(By.xpath("//div[@role='alertdialog']/h2"));
-
         var expectedWarningText = "Detta program är olämpligt för barn";
-        Assertions.assertEquals(expectedWarningText, alert.getText(),
+        Assertions.assertEquals(expectedWarningText, seriesPage.alertHeading(),
                 "Could play age restricted program although a code has been set");
     }
 
@@ -359,38 +514,31 @@ public class SvtPlayTests {
      *             turned off.
      */
     @Test
+    @Tag(mutatesState)
     void verifyThatAutoplaySettingIsRespected() {
-        // Get hold of the LocalStorage implementation
-        var webStorage = (WebStorage) new Augmenter().augment(driver);
-        var localStorage = webStorage.getLocalStorage();
-
         var expectedInitialAutoplayEnabled = true;
         var autoplayEnabled = false;
 
         // Grab the autoplay setting from LocalStorage
         try {
-            autoplayEnabled = (boolean) new org.json.JSONObject(localStorage.getItem("redux")).getJSONObject("settings").get("autoplay");
+            // Missing or null counts as disabled
+            autoplayEnabled = Boolean.TRUE.equals(state.localStorage("redux", "settings.autoplay"));
         } catch (JSONException e) {
             // Invalid json in the entry. We handle it in the assertion.
         }
 
         Assertions.assertEquals(expectedInitialAutoplayEnabled, autoplayEnabled, "Wrong default autoplay setting");
 
-        // Navigate to the Settings page.
-        driver.findElement(By.linkText("Inställningar".toUpperCase())).click();
-
-        // Toggle the autoplay switch
-        var autoplaySwitchClassName = "jmdfsN";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.className(autoplaySwitchClassName)));
-        driver.findElement(By.className(autoplaySwitchClassName)).click();
+        // Navigate to the Settings page and toggle the autoplay switch
+        startPage.openSettings().toggleAutoplay();
 
         var expectedAutoplayEnabled = false;
         var autoplayEnabledAfterToggle = false;
 
         // Grab the autoplay setting from LocalStorage again
         try {
-            autoplayEnabledAfterToggle = (boolean) new org.json.JSONObject(localStorage.getItem("redux")).getJSONObject("settings").get("autoplay");
+            // Only an explicit false counts as toggled off
+            autoplayEnabledAfterToggle = !Boolean.FALSE.equals(state.localStorage("redux", "settings.autoplay"));
         } catch (JSONException e) {
             // Invalid json in the entry. We handle it in the assertion.
             autoplayEnabledAfterToggle = true;
@@ -406,27 +554,12 @@ public class SvtPlayTests {
      */
     @Test
     void verifyThatVisualAidIsActiveIfSelected() {
-        // Navigate to the Programs page
-        driver.findElement(By.linkText("Program".toUpperCase())).click();
-
-        // Find and click the "Visual aid" link
-        var visualAidLinkText = "Syntolkat";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.linkText(visualAidLinkText)));
-        driver.findElement(By.linkText(visualAidLinkText)).click();
-
-        // Find the first available program and navigate to it
-        var firstShowXpath = "//main/descendant::article[1]";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath((firstShowXpath))));
-        driver.findElement(By.xpath(firstShowXpath)).click();
+        // Navigate to the first program of the "Visual aid" category
+        var seriesPage = startPage.openPrograms().openFirstVisualAidProgram();
 
         // Check that the option to view the program without aid id displayed.
         // This indicates that the current program is in "visual aid" mode.
-        var withoutVisualAidLinkText = "utan tolkning";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.linkText(withoutVisualAidLinkText)));
-        var noVisualAid = driver.findElement(By.linkText(withoutVisualAidLinkText));
+        var noVisualAid = seriesPage.withoutVisualAidLink();
 
         Assertions.assertTrue(noVisualAid.isDisplayed(),
                 "No 'visual aid' available although we selected a program that has it");
@@ -439,17 +572,10 @@ public class SvtPlayTests {
     @Test
     void searchingWithoutTermShouldShouldShowNoResultsPage() {
         // Click/submit an empty search
-        var searchFormXpath = "//button[@type='submit']";
-        driver.findElement(By.xpath(searchFormXpath)).click();
+        var resultsPage = startPage.searchForNothing();
 
         // Verify that no programs were found
-        var mainElementId = "play_main-content";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.id(mainElementId)));
-        var mainElement = driver.findElement(By.id(mainElementId));
-
-        var paragraphXpath = "section/div/p[1]";
-        var actualResultText = mainElement.findElement(By.xpath(paragraphXpath)).getText();
+        var actualResultText = resultsPage.message();
         var expectedResultText = "Inga sökträffar.";
 
         Assertions.assertEquals(expectedResultText, actualResultText, "Empty search criteria yielded results");
@@ -462,19 +588,11 @@ public class SvtPlayTests {
      */
     @Test
     void agendaShouldBeFirstMatchWhenSearchingForAgenda() {
-        // Search for "agenda"
-        var searchForm = driver.findElement(By.name("q"));
-        searchForm.sendKeys("agenda");
-        searchForm.submit();
+        // Search for "agenda", the search form is located by its name
+        var resultsPage = startPage.search("agenda");
 
         // Grab the first available program and verify that it is correct
-        var firstSearchHitXpath = "//ul/li[@data-rt='search-result-item'][1]";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(firstSearchHitXpath)));
-        var firstSearchElement = driver.findElement(By.xpath(firstSearchHitXpath));
-        var programTitle = firstSearchElement.findElement(By.tagName("h2"));
-
-        Assertions.assertEquals("Agenda", programTitle.getText(),
+        Assertions.assertEquals("Agenda", resultsPage.firstHitTitle(),
                 "Wrong program found when searching for 'Agenda'");
     }
 
@@ -485,34 +603,22 @@ public class SvtPlayTests {
      */
     @Test
     void verifySeasonLengthAndNameOfS2E5ofPistvakt() {
-        // Search for "pistvakt"
-        var searchForm = driver.findElement(By.name("q"));
-        searchForm.sendKeys("pistvakt");
-        searchForm.submit();
-
-        // Navigate to the first available program, which should be "Pistvakt"
-        var firstSearchHitXpath = "//ul/li[@data-rt='search-result-item'][1]";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(firstSearchHitXpath)));
-        driver.findElement(By.xpath(firstSearchHitXpath)).click();
+        // Search for "pistvakt" and navigate to the first available program, which should be "Pistvakt"
+        var seriesPage = startPage.search("pistvakt").openFirstHit();
 
         // Find and click on the second season
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.linkText("SÄSONG 2")));
-        driver.findElement(By.linkText("SÄSONG 2")).click();
+        seriesPage.openSeason("Säsong 2");
 
         // Verify the number of episodes in the season
         var expectedEpisodesInS2 = 6;
-        var S2ListXpath = "//section[@data-helix-type='list'][2]/div/article";
-        var actualEpisodesInS2 = driver.findElements(By.xpath(S2ListXpath)).size();
+        var actualEpisodesInS2 = seriesPage.episodeCount();
 
         Assertions.assertEquals(expectedEpisodesInS2, actualEpisodesInS2,
                 "Wrong number of episodes in season two of 'Pistvakt'");
 
         // Verify the name of the 5th episode
         var expectedS2E5Name = "5. Personalfestan";
-        var S2E5Xpath = "//section[@data-helix-type='list'][2]/div/article[5]/div[2]/h3/a";
-        var actualS2E5Name = driver.findElement(By.xpath(S2E5Xpath)).getText();
+        var actualS2E5Name = seriesPage.episodeTitle(5);
 
         Assertions.assertEquals(expectedS2E5Name, actualS2E5Name,
                 "Wrong name of episode 5 in season two of 'Pistvakt'");
@@ -524,9 +630,10 @@ public class SvtPlayTests {
      *
      */
     @Test
+    @Tag(mutatesState)
     void verifyThatSearchFormIsHiddenInResponsivePortraitMode() {
         // The input should visible to start with
-        var searchForm = driver.findElement(By.name("q"));
+        var searchForm = startPage.searchInput();
         Assertions.assertTrue(searchForm.isDisplayed());
 
         // We need this to restore the screen size later
@@ -537,54 +644,78 @@ public class SvtPlayTests {
         driver.manage().window().setSize(new Dimension(600, 900));
 
         // The input should be there, but not visible
-        searchForm = driver.findElement(By.name("q"));
         Assertions.assertFalse(searchForm.isDisplayed());
 
         // Restore the old size
         driver.manage().window().setSize(originalSize);
     }
 
+    /**
+     * The pages the tests visit, for the visual checks: name and path.
+     */
+    static Stream<Arguments> visualPages() {
+        var pages = Map.of("start", "", "program", "program", "kanaler", "kanaler",
+                "installningar", "installningar", "sok-agenda", "sok?q=agenda");
+        return pages.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .flatMap(page -> VisualBaselines.widths().stream()
+                        .map(width -> Arguments.of(page.getKey(), page.getValue(), width)));
+    }
+
+    /**
+     * Visual regression - Compares a full page screenshot at a viewport width with its baseline.
+     * Only runs with {@code -Dsvtplay.visual=compare} or {@code update}, see {@link VisualBaselines}.
+     */
+    @ParameterizedTest(name = "{0} at {2} px")
+    @MethodSource("visualPages")
+    @EnabledIfSystemProperty(named = "svtplay.visual", matches = "compare|update")
+    @Tag(mutatesState)
+    @Tag(BrowserProfiles.needsImages)
+    void verifyLayout(String name, String path, int width) {
+        var originalSize = driver.manage().window().getSize();
+        try {
+            driver.manage().window().setSize(new Dimension(width, originalSize.getHeight()));
+            driver.get(SiteUnderTest.url(path));
+            wait.until(webDriver -> "complete".equals(
+                    ((JavascriptExecutor) webDriver).executeScript("return document.readyState")));
+
+            // Make the window as tall as the page, so that the screenshot covers all of it
+            var height = ((Number) ((JavascriptExecutor) driver)
+                    .executeScript("return document.documentElement.scrollHeight")).intValue();
+            driver.manage().window().setSize(new Dimension(width, Math.min(height, 8000)));
+
+            var screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+            var difference = visualBaselines.check(name + "-" + width, screenshot);
+
+            Assertions.assertTrue(difference.isEmpty(), () -> "Layout changed: " + difference.get());
+        } finally {
+            driver.manage().window().setSize(originalSize);
+        }
+    }
+
     /**
      * VG Extra 2 - Adds a show to "My list", navigates and then verifies
      *              that the show is still in "My list".
      */
     @Test
+    @Tag(mutatesState)
     void verifyThatShowsInMyListAreRememberedWhenNavigating() {
-        // Navigate to the Programs page
-        driver.findElement(By.linkText("Program".toUpperCase())).click();
-
-        // Navigate to the first available program
-        var firstProgramXpath = "(//li[@data-rt='alphabetic-list-item']/a)[1]";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(firstProgramXpath)));
-        driver.findElement(By.xpath(firstProgramXpath)).click();
+        // Navigate to the first available program on the Programs page
+        var programsPage = startPage.openPrograms();
+        var seriesPage = programsPage.openProgram(1);
 
         // Find the "Add to my list" button and add the current program
-        var addToListXpath = "//button[@data-rt='my-list-btn']";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(addToListXpath)));
-        driver.findElement(By.xpath(addToListXpath)).click();
+        seriesPage.myListButton().click();
 
         // Go back to the listing and select another show
         driver.navigate().back();
-
-        var secondProgramXpath = "(//li[@data-rt='alphabetic-list-item']/a)[2]";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(secondProgramXpath)));
-        driver.findElement(By.xpath(secondProgramXpath)).click();
+        programsPage.openProgram(2);
 
         // Navigate back to the listing
         driver.navigate().back();
 
-        // Go to the first program again
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(firstProgramXpath)));
-        driver.findElement(By.xpath(firstProgramXpath)).click();
-
-        // Grab the 'Add' button
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(addToListXpath)));
-        var addButton = driver.findElement(By.xpath(addToListXpath));
+        // Go to the first program again and grab the 'Add' button
+        var addButton = programsPage.openProgram(1).myListButton();
 
         Assertions.assertEquals("Ta bort från Min lista".toUpperCase(), addButton.getText(),
                 "Program was not saved in 'My list'");
@@ -603,6 +734,7 @@ public class SvtPlayTests {
      *              I have reported this to SVT, but they haven't responded yet (2023-03-20).
      */
     @Test
+    @Tag(BrowserProfiles.needsImages)
     void verifyImages() {
         // These are the images that lack an alt text at the time of writing (2023-03-20).
         // Since they are only for decoration, all guidelines say it is ok.
@@ -614,37 +746,14 @@ public class SvtPlayTests {
         );
 
         // Grab all images from the main page
-        var images = driver.findElements(By.tagName("img"));
-
-        for (var image : images) {
-            {
-                // The alt attribute is allowed to be missing or empty for
-                // images in the known exceptions list.
-                var altText = image.getAttribute("alt");
-                var src = image.getAttribute("src");
-
-                if ((altText == null || altText.isEmpty()) && !exceptions.contains(src)) {
-                    Assertions.fail("Image " + src + " does not have an alt text");
-                }
-
-                // It is probably not the best of practises to create a new
-                // instance for each request. It is a big no-no in Dotnet.
-                var client = HttpClientBuilder.create().build();
-
-                // Get the actual source image
-                var request = new HttpGet(image.getAttribute("src"));
-                CloseableHttpResponse response;
-                try {
-                    response = client.execute(request);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-
-                var expectedResponseCode = 200;
-                Assertions.assertEquals(expectedResponseCode, response.getStatusLine().getStatusCode(),
-                        "Found a broken image link");
-            }
-        }
+        var images = ElementQuery.query(driver, By.tagName("img"), "src", "alt").stream()
+                .map(image -> new LinkChecker.Image(image.attribute("src"), image.attribute("alt")))
+                .toList();
+
+        // Check all of them concurrently and report every problem, not just the first one
+        var report = linkChecker.checkImages(images, exceptions);
+
+        Assertions.assertTrue(report.isClean(), report.toString());
     }
 
     /**
@@ -653,20 +762,12 @@ public class SvtPlayTests {
      */
     @Test
     void verifyThatFewerProgramsAreAvailableWhenAbroad() {
-        // Navigate to the Programs page
-        driver.findElement(By.linkText("Program".toUpperCase())).click();
+        // Navigate to the Programs page and count the number of programs available
+        var programsPage = startPage.openPrograms();
+        var programsViewableInSweden = programsPage.programCount();
 
-        // Count the number of programs available
-        var programsXpath = "//li[@data-rt='alphabetic-list-item']/a";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(programsXpath)));
-        var programsViewableInSweden = driver.findElements(By.xpath(programsXpath)).size();
-
-        // Tick the "Abroad" box
-        driver.findElement(By.id("abroad")).click();
-
-        // Count the available programs
-        var programsViewableAbroad = driver.findElements(By.xpath(programsXpath)).size();
+        // Tick the "Abroad" box and count the available programs
+        var programsViewableAbroad = programsPage.showOnlyAvailableAbroad().programCount();
 
         Assertions.assertTrue(programsViewableAbroad < programsViewableInSweden,
                 "Expected the number of available programs abroad to be fewer than those available in Sweden");
@@ -677,23 +778,16 @@ public class SvtPlayTests {
      */
     @Test
     void verifyThatTodayIsDefaultOnChannelsPage() {
-        // Navigate to the Channels page
-        driver.findElement(By.linkText("Kanaler".toUpperCase())).click();
-
-        // Find the displayed date
-        var todayXpath = "//span[@data-rt='navigation-date-current']/h2";
-        new WebDriverWait(driver, Duration.ofSeconds(toWait))
-                .until(ExpectedConditions.visibilityOfElementLocated(By.xpath(todayXpath)));
-        var today = driver.findElement(By.xpath(todayXpath));
+        // Navigate to the Channels page and find the displayed date
+        var today = startPage.openChannels().currentDate();
 
         // Construct a localized version of the expected result
-        var localizedSymbols = new DateFormatSymbols(Locale.forLanguageTag("SV-SE"));
         var localDate = LocalDate.now();
         var dayOfMonth = localDate.getDayOfMonth();
-        var month = localizedSymbols.getShortMonths()[localDate.getMonthValue() - 1].substring(0, 3);
+        var month = swedishSymbols.getShortMonths()[localDate.getMonthValue() - 1].substring(0, 3);
         var expectedText = "Idag " + dayOfMonth + " " + month;
 
-        Assertions.assertEquals(expectedText.toUpperCase(), today.getText(),
+        Assertions.assertEquals(expectedText.toUpperCase(), today,
                 "Wrong day and month is displayed as 'today'");
     }
 }
@@ -0,0 +1,80 @@
+package com.example.lab2.catalogue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the catalogue from the stub pages, so the parsing is checked without network access.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class CatalogueClientTests {
+
+    @LocalServerPort
+    private int port;
+
+    private CatalogueClient catalogue;
+
+    @BeforeEach
+    void createClient() {
+        catalogue = new CatalogueClient("http://localhost:" + port);
+    }
+
+    @AfterEach
+    void closeClient() throws IOException {
+        catalogue.close();
+    }
+
+    /**
+     * The categories come from a GraphQL response stored as a string in urqlState.
+     */
+    @Test
+    void readsCategoriesFromGraphQlState() throws IOException {
+        var categories = catalogue.categories();
+
+        Assertions.assertEquals(18, categories.size());
+        Assertions.assertEquals("Barn", categories.get(0));
+    }
+
+    /**
+     * The programs come straight from the page props.
+     */
+    @Test
+    void readsProgramsFromPageProps() throws IOException {
+        var programs = catalogue.programs();
+
+        Assertions.assertEquals(6, programs.size());
+        Assertions.assertEquals(new CatalogueClient.Program("Pistvakt", "/pistvakt", false), programs.get(2));
+    }
+
+    @Test
+    void keepsTheOrderOfSearchHits() throws IOException {
+        Assertions.assertEquals(List.of("Agenda", "Agenda 2030"),
+                catalogue.search("agenda").stream().map(CatalogueClient.SearchHit::title).toList());
+    }
+
+    @Test
+    void readsSeasonsOfAProgram() throws IOException {
+        var seasons = catalogue.seasons("/pistvakt");
+
+        Assertions.assertEquals(List.of("Säsong 1", "Säsong 2"), seasons.stream().map(CatalogueClient.Season::name).toList());
+        Assertions.assertEquals("5. Personalfestan", seasons.get(1).episodes().get(4));
+    }
+
+    @Test
+    void missingPageIsAnError() {
+        Assertions.assertThrows(IOException.class, () -> catalogue.page("finns-inte"));
+    }
+
+    @Test
+    void pageWithoutPayloadIsAnError() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> catalogue.page("/"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.lab2.catalogue;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Parses hand written payloads with the odd shapes the site sometimes sends.
+ */
+class NextDataTests {
+
+    private static List<String> names(NextData data, String typename) {
+        return data.ofType(typename).stream().map(object -> object.getString("name")).toList();
+    }
+
+    @Test
+    void skipsUrqlStateEntriesThatArentResponses() {
+        var data = NextData.parse("""
+                <script id="__NEXT_DATA__" type="application/json">{"props":{"urqlState":{
+                "1":null,
+                "2":"stale",
+                "3":{"data":"{\\"channel\\":{\\"__typename\\":\\"Channel\\",\\"name\\":\\"SVT1\\"}}"}
+                }}}</script>
+                """);
+
+        Assertions.assertEquals(List.of("SVT1"), names(data, "Channel"));
+    }
+
+    @Test
+    void findsMatchesInTheSameOrderOnEveryRun() {
+        var data = NextData.parse("""
+                <script id="__NEXT_DATA__" type="application/json">{"props":{"pageProps":{
+                "zebra":{"__typename":"Channel","name":"Kunskapskanalen"},
+                "list":[{"__typename":"Channel","name":"SVT2"},{"__typename":"Channel","name":"SVT1"}],
+                "barn":{"__typename":"Channel","name":"Barnkanalen"}
+                }}}</script>
+                """);
+
+        // Keys sorted by name, arrays in their own order
+        Assertions.assertEquals(List.of("Barnkanalen", "SVT2", "SVT1", "Kunskapskanalen"), names(data, "Channel"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.lab2.catalogue;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.StringWriter;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Verifies the search ranking of the titles on the stub Program page, against the stub search pages.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class SearchRankingVerifierTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void reportsTitlesThatAreNotTheFirstHit() throws Exception {
+        var report = new StringWriter();
+        SearchRankingVerifier.Summary summary;
+        try (var verifier = new SearchRankingVerifier(URI.create("http://localhost:" + port + "/"),
+                new SearchRankingVerifier.Settings(4, Duration.ofSeconds(5), "program"), report)) {
+            summary = verifier.verify();
+        }
+
+        Assertions.assertEquals(6, summary.titles());
+        Assertions.assertEquals(6, summary.searches());
+        // Agenda, Pistvakt, and Bolibompa found as BOLIBOMPA
+        Assertions.assertEquals(3, summary.first());
+        Assertions.assertEquals(1, summary.misranked());
+        Assertions.assertEquals(2, summary.missing());
+        Assertions.assertEquals(0, summary.errors());
+        Assertions.assertEquals(List.of(
+                "misranked\tRapport\tHit 2, after Lokala Rapport",
+                "no-hits\tSportspegeln\t",
+                "missing\tUppdrag granskning\t1 hits, first Uppdrag: mat"), report.toString().lines().toList());
+    }
+
+    @Test
+    void searchesOnceForNearDuplicates() {
+        var index = SearchRankingVerifier.harvest("""
+                <ul>
+                    <li data-rt="alphabetic-list-item"><a href="/agenda">Agenda</a></li>
+                    <li data-rt="alphabetic-list-item"><a href="/agenda-2030">Agenda 2030</a></li>
+                    <li class="x" data-rt="alphabetic-list-item">
+                        <a class="link" href="/agenda-extra"><span>AGENDA!</span></a>
+                    </li>
+                    <li data-rt="alphabetic-list-item"><a href="/fort">Fort &amp; Fl&#228;kt</a></li>
+                    <li data-rt="other"><a href="/kategori/barn">Barn</a></li>
+                </ul>
+                """);
+
+        Assertions.assertEquals(4, index.size());
+        Assertions.assertEquals("AGENDA!", index.title(2));
+        Assertions.assertEquals("/agenda-extra", index.path(2));
+        Assertions.assertEquals("Fort & Fläkt", index.title(3));
+        Assertions.assertEquals(1, index.nearDuplicates().size());
+        Assertions.assertArrayEquals(new int[]{0, 2}, index.nearDuplicates().get(0));
+        Assertions.assertFalse(index.isFirst(2));
+        Assertions.assertEquals(0, index.find(" agenda "));
+        Assertions.assertEquals(-1, index.find("Agend"));
+        Assertions.assertTrue(index.matches(2, "Agenda"));
+        Assertions.assertFalse(index.matches(1, "Agenda"));
+    }
+}
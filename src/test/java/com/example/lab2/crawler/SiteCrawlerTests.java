@@ -0,0 +1,86 @@
+package com.example.lab2.crawler;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Crawls the stub site.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class SiteCrawlerTests {
+
+    @LocalServerPort
+    private int port;
+
+    @TempDir
+    Path reports;
+
+    @Test
+    void reportsBrokenLinksAndMissingAltTexts() throws Exception {
+        var base = "http://localhost:" + port + "/";
+        var reportFile = reports.resolve("crawl.tsv");
+
+        SiteCrawler.Summary summary;
+        try (var report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+             var crawler = new SiteCrawler(URI.create(base), settings(10), report)) {
+            summary = crawler.crawl(List.of("bilder"));
+        }
+
+        var findings = Set.copyOf(Files.readAllLines(reportFile, StandardCharsets.UTF_8));
+        Assertions.assertEquals(Set.of(
+                "missing-alt\t" + base + "logo.svg\tNo alt text\t" + base + "bilder",
+                "broken\t" + base + "saknas.jpg\tHTTP 404\t" + base + "bilder",
+                "broken\t" + base + "saknas-2x.jpg\tHTTP 404\t" + base + "bilder",
+                "broken\t" + base + "bakgrund.jpg\tHTTP 404\t" + base + "bilder",
+                "broken\t" + base + "finns-inte\tHTTP 404\t" + base + "bilder"), findings);
+
+        // The page, its five images and the link to a missing page, each only once: 7 URLs,
+        // 2 of them pages. The link back to the page itself and the mailto link don't count.
+        Assertions.assertEquals(7, summary.checked(), summary.toString());
+        Assertions.assertEquals(2, summary.pages(), summary.toString());
+        Assertions.assertEquals(5, summary.findings());
+    }
+
+    @Test
+    void crawlsFromTheSeedsWithinThePageLimit() throws Exception {
+        var reportFile = reports.resolve("crawl.tsv");
+
+        SiteCrawler.Summary summary;
+        try (var report = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8);
+             var crawler = new SiteCrawler(URI.create("http://localhost:" + port + "/"), settings(5), report)) {
+            summary = crawler.crawl(SiteCrawler.seeds);
+        }
+
+        Assertions.assertEquals(5, summary.pages(), summary.toString());
+        Assertions.assertTrue(summary.checked() > summary.pages(), "Links beyond the page limit should still be checked");
+        Assertions.assertEquals(summary.findings(), Files.readAllLines(reportFile).size());
+    }
+
+    @Test
+    void remembersUrlsCompactly() {
+        var visited = new VisitedUrls(4);
+        for (var i = 0; i < 10_000; i++) {
+            Assertions.assertTrue(visited.add("http://localhost/program/" + i));
+        }
+        for (var i = 0; i < 10_000; i++) {
+            Assertions.assertFalse(visited.add("http://localhost/program/" + i));
+        }
+        Assertions.assertEquals(10_000, visited.size());
+    }
+
+    private static SiteCrawler.Settings settings(int maxPages) {
+        return new SiteCrawler.Settings(8, 1000, maxPages, Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.lab2.fixture;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class SnapshotControllerTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * The start page should be served from index.html.
+     */
+    @Test
+    void servesStartPage() {
+        var response = restTemplate.getForEntity("/", String.class);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertTrue(MediaType.TEXT_HTML.isCompatibleWith(response.getHeaders().getContentType()));
+        Assertions.assertTrue(response.getBody().contains("<title>SVT Play</title>"), "Wrong page served for '/'");
+    }
+
+    /**
+     * Search pages are recorded per query.
+     */
+    @Test
+    void servesSearchSnapshotByQuery() {
+        var response = restTemplate.getForEntity("/sok?q=Agenda", String.class);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertTrue(response.getBody().contains("<h2>Agenda</h2>"), "Wrong page served for the search");
+    }
+
+    @Test
+    void unknownPageIsNotFound() {
+        var response = restTemplate.getForEntity("/finns-inte", String.class);
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void candidatesArePickedInOrder() {
+        Assertions.assertEquals(List.of("program.html", "program/index.html"),
+                SnapshotController.candidates("/program", null));
+        Assertions.assertEquals(List.of("sok__q=pistvakt.html", "sok.html", "sok/index.html"),
+                SnapshotController.candidates("/sok", "q=Pistvakt"));
+        Assertions.assertEquals(List.of("sok__q=detektiven_fran_beledweyne.html", "sok.html", "sok/index.html"),
+                SnapshotController.candidates("/sok", "q=Detektiven+fr%C3%A5n+Beledweyne"));
+        Assertions.assertEquals(List.of("static/images/logo.png"),
+                SnapshotController.candidates("/static/images/logo.png", null));
+    }
+}
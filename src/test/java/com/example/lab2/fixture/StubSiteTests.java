@@ -0,0 +1,165 @@
+package com.example.lab2.fixture;
+
+import com.example.lab2.pages.SettingsPage;
+import com.example.lab2.pages.StartPage;
+import com.example.lab2.support.BrowserState;
+import com.example.lab2.support.DomWait;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Walks the page objects of the UI tests through the stub site, with HtmlUnit standing in for Chrome,
+ * so that {@code -Dsvtplay.fixtures=true} keeps working as the locators change.
+ * <p>
+ * HtmlUnit doesn't upper-case texts through CSS like Chrome does, so texts are compared ignoring case,
+ * and the links the page objects find by their upper-cased text are followed here by their own text.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class StubSiteTests {
+
+    private static final String modalXpath = "//div[@data-rt='cookie-consent-modal']";
+
+    @LocalServerPort
+    private int port;
+
+    private HtmlUnitDriver driver;
+    private DomWait wait;
+    private StartPage startPage;
+
+    /**
+     * Opens the start page and accepts the cookie consent, the same way as SvtPlayTests.
+     */
+    @BeforeEach
+    void acceptCookieConsent() {
+        driver = new HtmlUnitDriver(true);
+        wait = new DomWait(driver, Duration.ofSeconds(5));
+        driver.get("http://localhost:" + port + "/");
+
+        wait.until(ExpectedConditions.visibilityOfElementLocated(By.xpath(modalXpath)));
+        driver.findElement(By.xpath(modalXpath)).findElement(By.xpath(".//button[text() = 'Acceptera alla']")).click();
+        wait.until(ExpectedConditions.invisibilityOfElementLocated(By.xpath(modalXpath)));
+
+        startPage = new StartPage(driver, wait);
+    }
+
+    @AfterEach
+    void closeBrowser() {
+        driver.quit();
+    }
+
+    private Object cookie(String path) {
+        return new BrowserState(driver).cookie("cookie-consent-1", path);
+    }
+
+    private Object localStorage(String key, String path) {
+        return new BrowserState(driver).localStorage(key, path);
+    }
+
+    @Test
+    void acceptingTheCookieConsentIsRemembered() {
+        Assertions.assertEquals(true, cookie("ad_storage"));
+        Assertions.assertEquals(true, localStorage("redux", "settings.autoplay"));
+
+        driver.navigate().refresh();
+        Assertions.assertFalse(driver.findElement(By.xpath(modalXpath)).isDisplayed(), "The consent was asked for again");
+    }
+
+    @Test
+    void startPageHasTheHeaderAndTheAvailabilityLink() {
+        Assertions.assertEquals("SVT Play", startPage.title());
+        Assertions.assertTrue(startPage.logo().isDisplayed(), "No logo is displayed");
+        Assertions.assertTrue(startPage.searchInput().isDisplayed(), "No search input is displayed");
+
+        var linkTexts = startPage.mainLinkTexts();
+        Assertions.assertTrue("Start".equalsIgnoreCase(linkTexts.get("start")), linkTexts.toString());
+        Assertions.assertTrue("Program".equalsIgnoreCase(linkTexts.get("programs")), linkTexts.toString());
+        Assertions.assertTrue("Kanaler".equalsIgnoreCase(linkTexts.get("channels")), linkTexts.toString());
+
+        Assertions.assertEquals("Tillgänglighet i SVT Play", startPage.availabilityLinkText());
+        Assertions.assertEquals("Så arbetar SVT med tillgänglighet", startPage.openAvailabilitySite());
+    }
+
+    @Test
+    void programsPageListsCategoriesAndPrograms() {
+        var programsPage = startPage.openPrograms();
+        Assertions.assertEquals(18, programsPage.categoryCount());
+
+        var programsViewableInSweden = programsPage.programCount();
+        var programsViewableAbroad = programsPage.showOnlyAvailableAbroad().programCount();
+        Assertions.assertTrue(programsViewableAbroad < programsViewableInSweden,
+                programsViewableAbroad + " of " + programsViewableInSweden + " programs are available abroad");
+
+        var seriesPage = startPage.openPrograms().openFirstVisualAidProgram();
+        Assertions.assertTrue(seriesPage.withoutVisualAidLink().isDisplayed(), "No 'visual aid' available");
+    }
+
+    @Test
+    void searchLeadsToTheSeasonsOfAProgram() {
+        Assertions.assertEquals("Agenda", startPage.search("agenda").firstHitTitle());
+        Assertions.assertEquals("Inga sökträffar.", startPage.searchForNothing().message());
+
+        var seriesPage = startPage.search("pistvakt").openFirstHit();
+        driver.findElement(By.linkText("Säsong 2")).click();
+        Assertions.assertEquals(6, seriesPage.episodeCount());
+        Assertions.assertEquals("5. Personalfestan", seriesPage.episodeTitle(5));
+    }
+
+    private SettingsPage openSettings() {
+        driver.findElement(By.linkText("Inställningar")).click();
+        return new SettingsPage(driver, wait);
+    }
+
+    @Test
+    void settingsAreStoredLikeOnTheSite() {
+        openSettings().toggleAutoplay();
+        Assertions.assertEquals(false, localStorage("redux", "settings.autoplay"));
+
+        openSettings().toggleAdStorageConsent();
+        Assertions.assertEquals(false, cookie("ad_storage"));
+
+        var settingsPage = openSettings().toggleChildProtection();
+        settingsPage.pinInput().sendKeys("111");
+        Assertions.assertFalse(settingsPage.activatePinButton().isEnabled(), "Three digits are enough");
+        settingsPage.pinInput().sendKeys("1");
+        Assertions.assertTrue(settingsPage.activatePinButton().isEnabled(), "Four digits aren't enough");
+        settingsPage.activatePinButton().click();
+
+        var seriesPage = settingsPage.search("detektiven från beledweyne").openFirstHitLink().play();
+        Assertions.assertEquals("Detta program är olämpligt för barn", seriesPage.alertHeading());
+    }
+
+    @Test
+    void myListIsRememberedWhenNavigating() {
+        var programsPage = startPage.openPrograms();
+        programsPage.openProgram(1).myListButton().click();
+        driver.navigate().back();
+        programsPage.openProgram(2);
+        driver.navigate().back();
+
+        var text = programsPage.openProgram(1).myListButton().getText();
+        Assertions.assertTrue("Ta bort från Min lista".equalsIgnoreCase(text), text);
+    }
+
+    @Test
+    void channelsPageShowsToday() {
+        var today = LocalDate.now();
+        var month = new String[] {"jan", "feb", "mar", "apr", "maj", "jun", "jul", "aug", "sep", "okt", "nov", "dec"}
+                [today.getMonthValue() - 1];
+
+        var currentDate = startPage.openChannels().currentDate();
+        Assertions.assertEquals(("Idag " + today.getDayOfMonth() + " " + month).toLowerCase(Locale.ROOT),
+                currentDate.toLowerCase(Locale.ROOT));
+    }
+}
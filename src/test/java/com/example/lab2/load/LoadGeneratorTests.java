@@ -0,0 +1,94 @@
+package com.example.lab2.load;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Puts a short load on the stub site.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class LoadGeneratorTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void closedModelRunsEveryFlow() throws Exception {
+        var properties = properties(LoadProperties.Model.CLOSED, 8, 0, Duration.ofMillis(10));
+        LoadReport report;
+        try (var generator = new LoadGenerator(properties, base(), SvtPlayFlows.all())) {
+            report = generator.run();
+        }
+
+        // The five flows, and the two steps of the Pistvakt flow
+        Assertions.assertEquals(7, report.rows().size(), report.table());
+        for (var row : report.rows()) {
+            Assertions.assertTrue(row.count() > 0, "No " + row.name() + " in\n" + report.table());
+            Assertions.assertEquals(0, row.errors(), report.table());
+            Assertions.assertTrue(row.p50Millis() <= row.p99Millis() && row.p99Millis() <= row.maxMillis(), report.table());
+        }
+    }
+
+    @Test
+    void openModelStartsFlowsAtTheArrivalRate() throws Exception {
+        var properties = properties(LoadProperties.Model.OPEN, 20, 100, Duration.ZERO);
+        LoadReport report;
+        try (var generator = new LoadGenerator(properties, base(), List.of(new Flow("start", "")))) {
+            report = generator.run();
+        }
+
+        // 100 flows/s for a second, half of that during the 200 ms ramp up
+        var started = report.rows().get(0).count() + report.dropped();
+        Assertions.assertEquals(90, started, 2, report.table());
+    }
+
+    @Test
+    void countsFailedFlows() throws Exception {
+        var properties = properties(LoadProperties.Model.CLOSED, 2, 0, Duration.ofMillis(50));
+        LoadReport report;
+        try (var generator = new LoadGenerator(properties, base(), List.of(new Flow("missing", "", "finns-inte")))) {
+            report = generator.run();
+        }
+
+        var flow = report.rows().get(0);
+        Assertions.assertEquals(0, flow.count(), report.table());
+        Assertions.assertTrue(flow.errors() > 0, report.table());
+        Assertions.assertEquals(0, report.rows().get(1).errors(), "The start page is fine\n" + report.table());
+        Assertions.assertEquals(flow.errors(), report.rows().get(2).errors(), report.table());
+    }
+
+    @Test
+    void histogramPercentilesAreWithinABucket() {
+        var histogram = new LatencyHistogram();
+        for (var micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        Assertions.assertEquals(10_000, histogram.count());
+        Assertions.assertEquals(10_000_000, histogram.max());
+        Assertions.assertEquals(5_000_000, histogram.percentile(0.5), 5_000_000 / 32.0);
+        Assertions.assertEquals(9_900_000, histogram.percentile(0.99), 9_900_000 / 32.0);
+        Assertions.assertEquals(10_000_000, histogram.percentile(1));
+        for (var value : new long[]{0, 31, 32, 33, 1000, 123_456_789}) {
+            var index = LatencyHistogram.index(value);
+            Assertions.assertTrue(LatencyHistogram.highestIn(index) >= value && (index == 0
+                    || LatencyHistogram.highestIn(index - 1) < value), "Wrong bucket for " + value);
+        }
+    }
+
+    private URI base() {
+        return URI.create("http://localhost:" + port + "/");
+    }
+
+    private static LoadProperties properties(LoadProperties.Model model, int users, double arrivalRate, Duration thinkTime) {
+        return new LoadProperties(true, "", model, users, arrivalRate, Duration.ofMillis(200), Duration.ofSeconds(1),
+                thinkTime, Duration.ofSeconds(5), List.of());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.lab2.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the monitor against the stub site, with HtmlUnit standing in for Chrome.
+ */
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class MonitorTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void exposesScenarioResultsToPrometheus() throws Exception {
+        // A browser per scenario, so that none is skipped
+        var properties = properties("http://localhost:" + port + "/", SvtPlayScenarios.all().size());
+        try (var browsers = new BrowserPool(properties.browsers(), () -> new HtmlUnitDriver(false));
+             var monitor = new Monitor(properties, SvtPlayScenarios.all(), browsers, registry)) {
+            monitor.runOnce().get(30, TimeUnit.SECONDS);
+        }
+
+        var response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/prometheus")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode());
+
+        var metrics = response.body();
+        for (var scenario : List.of("title", "main-links", "program-categories", "search-agenda")) {
+            Assertions.assertTrue(metrics.lines().anyMatch(line -> line.startsWith("svtplay_scenario_runs_total{")
+                            && line.contains("scenario=\"" + scenario + "\"") && line.contains("outcome=\"pass\"")),
+                    "No passing run of " + scenario + " in\n" + metrics);
+        }
+        Assertions.assertTrue(metrics.contains("svtplay_scenario_duration_seconds_bucket{"),
+                "No latency histogram in\n" + metrics);
+    }
+
+    @Test
+    void skipsScenariosInsteadOfQueueingThem() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var release = new CountDownLatch(1);
+        var slow = scenario("slow", session -> release.await(10, TimeUnit.SECONDS));
+        var fast = scenario("fast", session -> {
+        });
+
+        var properties = properties("http://localhost:" + port + "/", 1);
+        try (var browsers = new BrowserPool(properties.browsers(), () -> new HtmlUnitDriver(false));
+             var monitor = new Monitor(properties, List.of(slow, fast), browsers, registry)) {
+            // The slow scenario holds the only browser, so the others get none
+            var first = monitor.runOnce();
+            var second = monitor.runOnce();
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(1, browsers.started(), "Only one browser may be started");
+            Assertions.assertEquals(1, skipped(registry, "slow", "busy"));
+            Assertions.assertEquals(2, skipped(registry, "fast", "no-browser"));
+            Assertions.assertEquals(1, runs(registry, "slow", "pass"));
+        }
+    }
+
+    @Test
+    void countsFailedScenarios() throws Exception {
+        var registry = new SimpleMeterRegistry();
+        var failing = scenario("failing", session -> {
+            throw new IllegalStateException("Broken on purpose");
+        });
+
+        var properties = properties("http://localhost:" + port + "/", 1);
+        try (var browsers = new BrowserPool(properties.browsers(), () -> new HtmlUnitDriver(false));
+             var monitor = new Monitor(properties, List.of(failing), browsers, registry)) {
+            monitor.runOnce().get(10, TimeUnit.SECONDS);
+            monitor.runOnce().get(10, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(1, browsers.started(), "A failed scenario should not replace the browser");
+        }
+
+        Assertions.assertEquals(2, runs(registry, "failing", "fail"));
+        Assertions.assertEquals(0, runs(registry, "failing", "pass"));
+    }
+
+    private static MonitorProperties properties(String baseUrl, int browsers) {
+        return new MonitorProperties(true, baseUrl, Duration.ofHours(1), browsers, Duration.ofSeconds(5), true, List.of());
+    }
+
+    private static double skipped(MeterRegistry registry, String scenario, String reason) {
+        var counter = registry.find("svtplay.scenario.skipped").tag("scenario", scenario).tag("reason", reason).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static double runs(MeterRegistry registry, String scenario, String outcome) {
+        var counter = registry.find("svtplay.scenario.runs").tag("scenario", scenario).tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static Scenario scenario(String name, Body body) {
+        return new Scenario() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void run(Session session) throws Exception {
+                body.run(session);
+            }
+        };
+    }
+
+    private interface Body {
+        void run(Scenario.Session session) throws Exception;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * The channels page, with the schedule of every channel.
+ */
+public class ChannelsPage extends Page {
+
+    public ChannelsPage(WebDriver driver, DomWait wait) {
+        super(driver, wait);
+    }
+
+    /**
+     * The date the schedule is showing, e.g. "IDAG 20 MAR".
+     */
+    public String currentDate() {
+        return element(By.xpath("//span[@data-rt='navigation-date-current']/h2")).waitUntilVisible().getText();
+    }
+}
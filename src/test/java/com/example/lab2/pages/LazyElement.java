@@ -0,0 +1,111 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.util.function.Function;
+
+/**
+ * A handle to an element that is looked up on first use and then reused.
+ * <p>
+ * The element is looked up again after the browser has navigated, or when it turns out to be stale
+ * because the page re-rendered it. The stale case is retried once, without the caller noticing.
+ */
+public class LazyElement {
+
+    private final WebDriver driver;
+    private final DomWait wait;
+    private final PageEvents events;
+    private final By locator;
+
+    private WebElement element;
+    private long foundAt;
+
+    LazyElement(WebDriver driver, DomWait wait, PageEvents events, By locator) {
+        this.driver = driver;
+        this.wait = wait;
+        this.events = events;
+        this.locator = locator;
+    }
+
+    public By locator() {
+        return locator;
+    }
+
+    /**
+     * The element, looked up if there is no usable one cached.
+     */
+    public WebElement get() {
+        if (element == null || foundAt != events.navigations()) {
+            foundAt = events.navigations();
+            element = driver.findElement(locator);
+        }
+        return element;
+    }
+
+    /**
+     * Waits until the element is visible, and keeps it.
+     */
+    public LazyElement waitUntilVisible() {
+        if (element != null && foundAt == events.navigations() && isDisplayed()) {
+            return this;
+        }
+        foundAt = events.navigations();
+        element = wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+        return this;
+    }
+
+    public void click() {
+        apply(element -> {
+            element.click();
+            return null;
+        });
+    }
+
+    public void sendKeys(CharSequence... keys) {
+        apply(element -> {
+            element.sendKeys(keys);
+            return null;
+        });
+    }
+
+    public void submit() {
+        apply(element -> {
+            element.submit();
+            return null;
+        });
+    }
+
+    public String getText() {
+        return apply(WebElement::getText);
+    }
+
+    public boolean isDisplayed() {
+        return apply(WebElement::isDisplayed);
+    }
+
+    public boolean isEnabled() {
+        return apply(WebElement::isEnabled);
+    }
+
+    /**
+     * An element inside this one. It isn't cached, use the page for that.
+     */
+    public WebElement findElement(By by) {
+        return apply(element -> element.findElement(by));
+    }
+
+    private <T> T apply(Function<WebElement, T> action) {
+        try {
+            return action.apply(get());
+        } catch (StaleElementReferenceException e) {
+            // The page replaced the element, e.g. after a client side update
+            element = null;
+            return action.apply(get());
+        }
+    }
+}
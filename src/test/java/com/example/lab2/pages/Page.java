@@ -0,0 +1,82 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import com.example.lab2.support.HealingLocators;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The base of all page objects, with the header that every page of the site shares.
+ * <p>
+ * Every locator is turned into one {@link LazyElement} per page object, so asking a page for the same
+ * element twice costs one lookup. Page objects are cheap and meant to live for one test.
+ */
+public abstract class Page {
+
+    protected final WebDriver driver;
+    protected final DomWait wait;
+    private final PageEvents events;
+    private final Map<By, LazyElement> elements = new HashMap<>();
+
+    protected Page(WebDriver driver, DomWait wait) {
+        this.driver = driver;
+        this.wait = wait;
+        this.events = PageEvents.of(driver);
+    }
+
+    public String title() {
+        return driver.getTitle();
+    }
+
+    /**
+     * The search input of the header.
+     */
+    public LazyElement searchInput() {
+        return element(By.name("q"));
+    }
+
+    public SearchResultsPage search(String term) {
+        var input = searchInput();
+        input.sendKeys(term);
+        input.submit();
+        return new SearchResultsPage(driver, wait);
+    }
+
+    public SearchResultsPage searchForNothing() {
+        element(By.xpath("//button[@type='submit']")).click();
+        return new SearchResultsPage(driver, wait);
+    }
+
+    public ProgramsPage openPrograms() {
+        element(By.xpath("//li[@type='programs']/a")).click();
+        return new ProgramsPage(driver, wait);
+    }
+
+    public ChannelsPage openChannels() {
+        element(By.xpath("//li[@type='channels']/a")).click();
+        return new ChannelsPage(driver, wait);
+    }
+
+    public SettingsPage openSettings() {
+        element(By.linkText("Inställningar".toUpperCase())).click();
+        return new SettingsPage(driver, wait);
+    }
+
+    protected LazyElement element(By locator) {
+        return elements.computeIfAbsent(locator, key -> new LazyElement(driver, wait, events, key));
+    }
+
+    /**
+     * An element only reachable through generated class names, see {@link HealingLocators}.
+     */
+    protected LazyElement healingElement(String name, By primary) {
+        return element(healingLocator(name, primary));
+    }
+
+    protected By healingLocator(String name, By primary) {
+        return HealingLocators.shared().by(name, primary);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.lab2.pages;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the navigations of one browser, so that page objects know when their cached elements are gone.
+ * <p>
+ * Register an instance as a listener when decorating the browser, and with {@link #register(WebDriver, PageEvents)}
+ * under the decorated browser the tests use.
+ */
+public class PageEvents implements WebDriverListener {
+
+    private static final Map<WebDriver, PageEvents> registered = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AtomicLong navigations = new AtomicLong();
+
+    public static void register(WebDriver driver, PageEvents events) {
+        registered.put(driver, events);
+    }
+
+    /**
+     * The events of a browser. A browser that was never registered gets a counter that never moves,
+     * and its page objects rely on stale element detection alone.
+     */
+    public static PageEvents of(WebDriver driver) {
+        var events = registered.get(driver);
+        return events != null ? events : new PageEvents();
+    }
+
+    public long navigations() {
+        return navigations.get();
+    }
+
+    @Override
+    public void afterGet(WebDriver driver, String url) {
+        navigations.incrementAndGet();
+    }
+
+    @Override
+    public void afterTo(WebDriver.Navigation navigation, String url) {
+        navigations.incrementAndGet();
+    }
+
+    @Override
+    public void afterBack(WebDriver.Navigation navigation) {
+        navigations.incrementAndGet();
+    }
+
+    @Override
+    public void afterForward(WebDriver.Navigation navigation) {
+        navigations.incrementAndGet();
+    }
+
+    @Override
+    public void afterRefresh(WebDriver.Navigation navigation) {
+        navigations.incrementAndGet();
+    }
+}
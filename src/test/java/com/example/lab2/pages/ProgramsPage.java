@@ -0,0 +1,58 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import com.example.lab2.support.ElementQuery;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * The A-Ö listing of all programs, with the categories on top.
+ */
+public class ProgramsPage extends Page {
+
+    private static final String programsXpath = "//li[@data-rt='alphabetic-list-item']/a";
+    private static final By categories = By.xpath("//article");
+
+    public ProgramsPage(WebDriver driver, DomWait wait) {
+        super(driver, wait);
+    }
+
+    public int categoryCount() {
+        element(categories).waitUntilVisible();
+        return ElementQuery.count(driver, categories);
+    }
+
+    /**
+     * A program of the listing, counting from 1.
+     */
+    public LazyElement program(int position) {
+        return element(By.xpath("(" + programsXpath + ")[" + position + "]"));
+    }
+
+    public int programCount() {
+        program(1).waitUntilVisible();
+        return ElementQuery.count(driver, By.xpath(programsXpath));
+    }
+
+    public SeriesPage openProgram(int position) {
+        program(position).waitUntilVisible().click();
+        return new SeriesPage(driver, wait);
+    }
+
+    /**
+     * Ticks the "Can be seen abroad" box, which filters the listing.
+     */
+    public ProgramsPage showOnlyAvailableAbroad() {
+        element(By.id("abroad")).click();
+        return this;
+    }
+
+    /**
+     * Opens the first program of the "Syntolkat" category.
+     */
+    public SeriesPage openFirstVisualAidProgram() {
+        element(By.linkText("Syntolkat")).waitUntilVisible().click();
+        element(By.xpath("//main/descendant::article[1]")).waitUntilVisible().click();
+        return new SeriesPage(driver, wait);
+    }
+}
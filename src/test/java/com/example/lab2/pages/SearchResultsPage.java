@@ -0,0 +1,41 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * The results of a search from the header.
+ */
+public class SearchResultsPage extends Page {
+
+    private static final By firstHit = By.xpath("//ul/li[@data-rt='search-result-item'][1]");
+
+    public SearchResultsPage(WebDriver driver, DomWait wait) {
+        super(driver, wait);
+    }
+
+    public String firstHitTitle() {
+        return element(firstHit).waitUntilVisible().findElement(By.tagName("h2")).getText();
+    }
+
+    public SeriesPage openFirstHit() {
+        element(firstHit).waitUntilVisible().click();
+        return new SeriesPage(driver, wait);
+    }
+
+    /**
+     * Opens the first hit through its link, for hits that only react to the link being clicked.
+     */
+    public SeriesPage openFirstHitLink() {
+        element(By.xpath("//main/section/div/ul/li[1]/article/a")).waitUntilVisible().click();
+        return new SeriesPage(driver, wait);
+    }
+
+    /**
+     * The message shown instead of hits, e.g. when searching for nothing.
+     */
+    public String message() {
+        return element(By.id("play_main-content")).waitUntilVisible().findElement(By.xpath("section/div/p[1]")).getText();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * The page of a program, with its seasons and episodes.
+ */
+public class SeriesPage extends Page {
+
+    // The first list is the top area, the selected season is the second
+    private static final String seasonXpath = "//section[@data-helix-type='list'][2]/div/article";
+
+    public SeriesPage(WebDriver driver, DomWait wait) {
+        super(driver, wait);
+    }
+
+    public SeriesPage openSeason(String name) {
+        element(By.linkText(name.toUpperCase())).waitUntilVisible().click();
+        return this;
+    }
+
+    public int episodeCount() {
+        return driver.findElements(By.xpath(seasonXpath)).size();
+    }
+
+    /**
+     * The title of an episode of the selected season, counting from 1.
+     */
+    public String episodeTitle(int episode) {
+        return element(By.xpath(seasonXpath + "[" + episode + "]/div[2]/h3/a")).getText();
+    }
+
+    /**
+     * Plays the first episode.
+     */
+    public SeriesPage play() {
+        element(By.xpath("//a[@data-rt='top-area-play-button']")).waitUntilVisible().click();
+        return this;
+    }
+
+    /**
+     * The heading of the dialog shown instead of playing, e.g. for age restricted programs.
+     */
+    public String alertHeading() {
+        return element(By.xpath("//div[@role='alertdialog']/h2")).waitUntilVisible().getText();
+    }
+
+    /**
+     * The "Add to my list" button, which reads "Remove from my list" for programs already in the list.
+     */
+    public LazyElement myListButton() {
+        return element(By.xpath("//button[@data-rt='my-list-btn']")).waitUntilVisible();
+    }
+
+    /**
+     * The link to the same program without visual description, only shown when it is on.
+     */
+    public LazyElement withoutVisualAidLink() {
+        return element(By.linkText("utan tolkning")).waitUntilVisible();
+    }
+}
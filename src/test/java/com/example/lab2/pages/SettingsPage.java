@@ -0,0 +1,51 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+/**
+ * The settings page: child protection, autoplay and cookie consent.
+ */
+public class SettingsPage extends Page {
+
+    public SettingsPage(WebDriver driver, DomWait wait) {
+        super(driver, wait);
+    }
+
+    public SettingsPage toggleChildProtection() {
+        element(By.xpath("//label[@data-rt='child-protection-switch']")).waitUntilVisible().click();
+        return this;
+    }
+
+    public LazyElement pinInput() {
+        return element(By.id("play_settings-parental-control-input"));
+    }
+
+    public LazyElement activatePinButton() {
+        return element(By.xpath("//button[@data-rt='child-protection-password-activate']"));
+    }
+
+    public SettingsPage toggleAutoplay() {
+        healingElement("autoplay-switch", By.className("jmdfsN")).waitUntilVisible().click();
+        return this;
+    }
+
+    /**
+     * Opens the cookie consent dialog, toggles the ad storage consent and saves it.
+     */
+    public SettingsPage toggleAdStorageConsent() {
+        healingElement("cookie-settings-button", By.cssSelector(".sc-5b00349a-2.hLpVUw")).waitUntilVisible().click();
+
+        // Wait for ad storage option to show up
+        element(By.id("play_cookie_consent_ad_storage")).waitUntilVisible();
+        element(By.xpath("//label[@for='play_cookie_consent_ad_storage']")).click();
+
+        healingElement("cookie-save-button", By.cssSelector(".sc-5b00349a-2.fuGbXH.sc-4f221cd2-9.hEiUxP")).click();
+
+        // The modal takes a couple of seconds to close after saving
+        wait.until(ExpectedConditions.invisibilityOfElementLocated(By.xpath("//div[@data-rt='cookie-consent-modal']")));
+        return this;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.lab2.pages;
+
+import com.example.lab2.support.DomWait;
+import com.example.lab2.support.ElementQuery;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The start page, where every leased browser begins.
+ */
+public class StartPage extends Page {
+
+    private static final By mainLinks = By.xpath("//li[@type='start' or @type='programs' or @type='channels']/a");
+    private static final By availabilityLink = By.xpath("//a[@href='https://kontakt.svt.se/guide/tillganglighet']");
+
+    public StartPage(WebDriver driver, DomWait wait) {
+        super(driver, wait);
+    }
+
+    /**
+     * The logo, the only svg in the site.
+     */
+    public LazyElement logo() {
+        return element(By.tagName("svg"));
+    }
+
+    /**
+     * The texts of the main menu links, keyed on their type: start, programs and channels.
+     */
+    public Map<String, String> mainLinkTexts() {
+        // The text of the link, not of the whole list item, with the type of its list item in the same call
+        var linkTexts = new HashMap<String, String>();
+        for (var link : ElementQuery.query(driver, mainLinks, "text", "../type")) {
+            linkTexts.putIfAbsent(link.attribute("../type"), link.text());
+        }
+        return linkTexts;
+    }
+
+    public LazyElement availabilityLink() {
+        return element(availabilityLink);
+    }
+
+    public String availabilityLinkText() {
+        // Selenium cannot CSS select using compound class names,
+        // so we work around it by concatenating the names
+        return availabilityLink().findElement(healingLocator("availability-link-text",
+                By.cssSelector(".sc-343fed33-3.dmRxHt"))).getText();
+    }
+
+    /**
+     * Follows the availability link, which leaves the site.
+     *
+     * @return the main heading of the availability site
+     */
+    public String openAvailabilitySite() {
+        availabilityLink().click();
+        return driver.findElement(By.tagName("h1")).getText();
+    }
+}
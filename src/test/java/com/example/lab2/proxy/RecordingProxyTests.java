@@ -0,0 +1,98 @@
+package com.example.lab2.proxy;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Records the stub site through the proxy and replays it from disk.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class RecordingProxyTests {
+
+    @LocalServerPort
+    private int upstreamPort;
+
+    @TempDir
+    Path recordings;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void recordsAndReplays() throws Exception {
+        var store = recordings.resolve("stub");
+
+        // First run records, and the second request for the same page is warm
+        var recordStats = new ProxyStats();
+        var recordProperties = properties(ProxyProperties.Mode.RECORD, store);
+        try (var recordingStore = new RecordingStore(store);
+             var proxy = new RecordingProxy(recordProperties, recordingStore, recordStats)) {
+            proxy.start();
+
+            Assertions.assertTrue(get(recordProperties, "/").body().contains("<title>SVT Play</title>"));
+            Assertions.assertTrue(get(recordProperties, "/").body().contains("<title>SVT Play</title>"));
+        }
+
+        var recorded = recordStats.snapshot();
+        Assertions.assertEquals(1, recorded.coldRequests(), "The start page should be fetched once");
+        Assertions.assertEquals(1, recorded.warmRequests(), "The start page should be replayed once");
+
+        // Replay only serves what was recorded
+        var replayStats = new ProxyStats();
+        var replayProperties = properties(ProxyProperties.Mode.REPLAY, store);
+        try (var recordingStore = new RecordingStore(store);
+             var proxy = new RecordingProxy(replayProperties, recordingStore, replayStats)) {
+            proxy.start();
+
+            Assertions.assertTrue(get(replayProperties, "/").body().contains("<title>SVT Play</title>"));
+            Assertions.assertEquals(504, get(replayProperties, "/program").statusCode());
+        }
+
+        var replayed = replayStats.snapshot();
+        Assertions.assertEquals(0, replayed.coldRequests(), "Nothing should be fetched when replaying");
+        Assertions.assertEquals(1, replayed.misses());
+    }
+
+    @Test
+    void rewritesAbsoluteUrls() throws IOException {
+        var properties = properties(ProxyProperties.Mode.RECORD, recordings.resolve("rewrite"));
+        try (var store = new RecordingStore(recordings.resolve("rewrite"));
+             var proxy = new RecordingProxy(properties, store, new ProxyStats())) {
+            var base = "http://localhost:" + properties.port();
+
+            Assertions.assertEquals(base + "/__host/www.svtstatic.se/image.jpg",
+                    proxy.rewrite("https://www.svtstatic.se/image.jpg"));
+            Assertions.assertEquals("https://www.svtstatic.se/image.jpg",
+                    proxy.resolve("/__host/www.svtstatic.se/image.jpg"));
+            Assertions.assertEquals("http://localhost:" + upstreamPort + "/program", proxy.resolve("/program"));
+        }
+    }
+
+    private HttpResponse<String> get(ProxyProperties properties, String path) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + properties.port() + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private ProxyProperties properties(ProxyProperties.Mode mode, Path store) throws IOException {
+        return new ProxyProperties(mode, freePort(), store.toString(), "http://localhost:" + upstreamPort,
+                List.of("www.svtstatic.se"), List.of("Accept-Language"));
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
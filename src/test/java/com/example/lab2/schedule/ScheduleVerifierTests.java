@@ -0,0 +1,72 @@
+package com.example.lab2.schedule;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.StringWriter;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Checks the stub guides of SVT1 and SVT2 around 2023-03-20. SVT1 is fine, SVT2 has a few faults
+ * on the 20th and no guide at all for the 21st.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "lab2.snapshots.location=classpath:/stub/")
+class ScheduleVerifierTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void reportsGapsOverlapsAndProgrammesOutOfOrder() throws Exception {
+        var report = new StringWriter();
+        ScheduleVerifier.Summary summary;
+        try (var verifier = new ScheduleVerifier(URI.create("http://localhost:" + port + "/"),
+                new ScheduleVerifier.Settings(LocalDate.of(2023, 3, 20), 1, 4, Duration.ofSeconds(5), Duration.ofMinutes(1)),
+                report)) {
+            summary = verifier.verify();
+        }
+
+        Assertions.assertEquals(2, summary.channels());
+        Assertions.assertEquals(6, summary.channelDays());
+        // Nattfilm is listed on two days, but counted once
+        Assertions.assertEquals(21, summary.slots());
+        Assertions.assertEquals(3, summary.problems());
+        Assertions.assertEquals(1, summary.errors());
+        Assertions.assertEquals(6, summary.timings().size());
+        var firstDay = summary.timings().get(0);
+        Assertions.assertEquals("svt1", firstDay.channel());
+        Assertions.assertEquals(LocalDate.of(2023, 3, 19), firstDay.date());
+        Assertions.assertEquals(5, firstDay.slots());
+
+        var lines = report.toString().lines().toList();
+        Assertions.assertEquals(List.of(
+                "overlap\tsvt2\t2023-03-20 18:10\tSportnytt\t5 min into Rapport",
+                "gap\tsvt2\t2023-03-20 19:30\tAgenda\t30 min after Sportnytt",
+                "out-of-order\tsvt2\t2023-03-20 20:30\tKulturnyheterna\tListed after Dokument utifrån"),
+                lines.subList(1, lines.size()));
+        Assertions.assertTrue(lines.get(0).startsWith("error\tsvt2\t2023-03-21\t\t"), lines.get(0));
+    }
+
+    @Test
+    void findsTheProgrammeOnAtATime() {
+        var index = new ScheduleIndex();
+        index.add(0, 100, "A");
+        index.add(200, 300, "C");
+        index.add(100, 150, "B");
+        index.sort();
+
+        Assertions.assertEquals(List.of("A", "B", "C"), List.of(index.title(0), index.title(1), index.title(2)));
+        Assertions.assertEquals(0, index.at(0));
+        Assertions.assertEquals(1, index.at(100));
+        Assertions.assertEquals(-1, index.at(150));
+        Assertions.assertEquals(2, index.at(299));
+        Assertions.assertEquals(-1, index.at(300));
+        Assertions.assertEquals(-1, index.at(-1));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.lab2.support;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+
+/**
+ * How the browsers are started, and what they are allowed to download.
+ * <p>
+ * Profiles are read from {@code browser-profiles.properties} on the classpath, as
+ * {@code <profile>.block=<pattern>,<pattern>,...} with the URL patterns of the CDP
+ * {@code Network.setBlockedURLs} command. Tests tagged {@value #needsImages} get the {@code full}
+ * profile, everything else the one named by {@code -Dsvtplay.profile}, {@code lean} by default.
+ * <p>
+ * Browsers run headless unless {@code -Dsvtplay.headless=false}, with a fixed window size from
+ * {@code -Dsvtplay.viewport} (default {@code 1280,1024}). Headless, the window is the viewport,
+ * so layout dependent tests see the same width everywhere. Console messages are kept for
+ * {@link FailureArtifacts}.
+ */
+public class BrowserProfiles {
+
+    /**
+     * The tag of tests that look at images, and need them downloaded.
+     */
+    public static final String needsImages = "needs-images";
+
+    private static final String fullProfile = "full";
+
+    private final Map<String, Profile> profiles;
+    private final String standard;
+
+    // The DevTools connection of each browser, and what it currently blocks
+    private final Map<WebDriver, HasCdp> devTools = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<WebDriver, Profile> current = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public BrowserProfiles() {
+        this(loadProperties(), System.getProperty("svtplay.profile", "lean"));
+    }
+
+    /**
+     * @param properties the profiles, as in {@code browser-profiles.properties}
+     * @param standard   the name of the profile for tests that don't need images
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    BrowserProfiles(Properties properties, String standard) {
+        this.profiles = parse(properties);
+        this.standard = standard;
+        if (!profiles.containsKey(standard)) {
+            throw new IllegalArgumentException("Unknown browser profile " + standard + ", expected one of " + profiles.keySet());
+        }
+    }
+
+    private static Properties loadProperties() {
+        var properties = new Properties();
+        try (InputStream in = BrowserProfiles.class.getResourceAsStream("/browser-profiles.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read browser-profiles.properties", e);
+        }
+        return properties;
+    }
+
+    private static Map<String, Profile> parse(Properties properties) {
+        var profiles = new HashMap<String, Profile>();
+        profiles.put(fullProfile, new Profile(fullProfile, List.of()));
+        for (var key : properties.stringPropertyNames()) {
+            if (key.endsWith(".block")) {
+                var name = key.substring(0, key.length() - ".block".length());
+                var patterns = Arrays.stream(properties.getProperty(key).split(","))
+                        .map(String::trim)
+                        .filter(pattern -> !pattern.isEmpty())
+                        .toList();
+                profiles.put(name, new Profile(name, patterns));
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Options for a new Chrome: headless and with a fixed window size unless told otherwise.
+     */
+    public ChromeOptions chromeOptions() {
+        var options = new ChromeOptions();
+        options.addArguments("--remote-allow-origins=*", "--incognito",
+                "--window-size=" + System.getProperty("svtplay.viewport", "1280,1024"));
+        if (!"false".equals(System.getProperty("svtplay.headless"))) {
+            options.addArguments("--headless=new");
+        }
+        // Kept by the browser until asked for, which only the failure artifacts do
+        var logs = new LoggingPreferences();
+        logs.enable(LogType.BROWSER, Level.ALL);
+        options.setCapability(ChromeOptions.LOGGING_PREFS, logs);
+        return options;
+    }
+
+    /**
+     * The profile for browsers that aren't running a test.
+     */
+    public Profile standard() {
+        return profiles.get(standard);
+    }
+
+    /**
+     * The profile for a test with the given tags.
+     */
+    public Profile forTags(Set<String> tags) {
+        return tags.contains(needsImages) ? profiles.get(fullProfile) : standard();
+    }
+
+    /**
+     * Makes a new browser known, so that profiles can be switched later on.
+     *
+     * @param driver  the browser as the tests see it
+     * @param browser the browser itself, which may need to be augmented to talk DevTools, e.g. on a grid
+     */
+    public void register(WebDriver driver, RemoteWebDriver browser) {
+        WebDriver augmented = browser instanceof HasCdp ? browser : new Augmenter().augment(browser);
+        if (augmented instanceof HasCdp cdp) {
+            devTools.put(driver, cdp);
+        }
+    }
+
+    /**
+     * Switches a browser to a profile. Pages that are already loaded are not affected.
+     *
+     * @return true if the browser was using another profile
+     */
+    public boolean use(WebDriver driver, Profile profile) {
+        if (profile.equals(current.get(driver))) {
+            return false;
+        }
+        var cdp = devTools.get(driver);
+        if (cdp == null) {
+            // Without DevTools everything is downloaded, same as the full profile
+            return false;
+        }
+
+        cdp.executeCdpCommand("Network.enable", Map.of());
+        cdp.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", profile.blockedUrls()));
+        current.put(driver, profile);
+        return true;
+    }
+
+    public record Profile(String name, List<String> blockedUrls) {
+
+        public boolean blocksNothing() {
+            return blockedUrls.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Reads browser profiles from properties, without starting a browser.
+ */
+class BrowserProfilesTests {
+
+    private static Properties properties(String... keysAndValues) {
+        var properties = new Properties();
+        for (var i = 0; i < keysAndValues.length; i += 2) {
+            properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return properties;
+    }
+
+    @Test
+    void readsTheProfilesOnTheClasspath() {
+        var profiles = new BrowserProfiles();
+
+        Assertions.assertEquals(System.getProperty("svtplay.profile", "lean"), profiles.standard().name());
+        Assertions.assertTrue(profiles.forTags(Set.of()).blockedUrls().contains("*.jpg"), profiles.standard().toString());
+        Assertions.assertTrue(profiles.forTags(Set.of()).blockedUrls().contains("*.mp4"), profiles.standard().toString());
+    }
+
+    @Test
+    void trimsPatternsAndSkipsEmptyOnes() {
+        var profiles = new BrowserProfiles(properties(
+                "lean.block", " *.png ,, *.gif ,",
+                "empty.block", " , ",
+                "lean.comment", "not a profile"), "lean");
+
+        Assertions.assertEquals(new BrowserProfiles.Profile("lean", List.of("*.png", "*.gif")), profiles.standard());
+        Assertions.assertTrue(new BrowserProfiles(properties("empty.block", " , "), "empty").standard().blocksNothing());
+    }
+
+    @Test
+    void rejectsAnUnknownProfile() {
+        var thrown = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new BrowserProfiles(properties("lean.block", "*.png"), "leen"));
+
+        Assertions.assertTrue(thrown.getMessage().startsWith("Unknown browser profile leen"), thrown.getMessage());
+        Assertions.assertTrue(thrown.getMessage().contains("lean"), thrown.getMessage());
+        Assertions.assertTrue(thrown.getMessage().contains("full"), thrown.getMessage());
+    }
+
+    @Test
+    void givesTestsThatNeedImagesTheFullProfile() {
+        var profiles = new BrowserProfiles(properties("lean.block", "*.png"), "lean");
+
+        var full = profiles.forTags(Set.of("slow", BrowserProfiles.needsImages));
+        Assertions.assertEquals("full", full.name());
+        Assertions.assertTrue(full.blocksNothing());
+
+        Assertions.assertEquals(profiles.standard(), profiles.forTags(Set.of()));
+        Assertions.assertEquals(profiles.standard(), profiles.forTags(Set.of("slow")));
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.lab2.support;
+
+import org.json.JSONException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads single values out of the JSON kept in cookies and LocalStorage of one browser.
+ * <p>
+ * Values are addressed with a {@link JsonPath}, e.g. {@code localStorage("redux", "settings.autoplay")}.
+ * By default a LocalStorage entry is fetched once and every value is streamed out of it here,
+ * without building the whole tree. With {@code -Dsvtplay.state.inPage=true} the value is looked up
+ * in the page instead, so only the value crosses the wire, at the cost of a {@code JSON.parse} of the
+ * whole entry in the browser on every read. Cookies are always read here, their values are small.
+ * <p>
+ * Everything read is cached until the page changes: this is also a listener that forgets it all
+ * after every navigation, click, submit and key press.
+ */
+public class BrowserState implements WebDriverListener {
+
+    private static final String extractScript = """
+            var raw = window.localStorage.getItem(arguments[0]);
+            if (raw === null) {
+                return {found: false};
+            }
+            var value;
+            try {
+                value = JSON.parse(raw);
+            } catch (e) {
+                return {found: false, error: 'Not JSON: ' + e.message};
+            }
+            var segments = arguments[1];
+            for (var i = 0; i < segments.length; i++) {
+                if (value === null || typeof value !== 'object' || !(segments[i] in value)) {
+                    return {found: false};
+                }
+                value = value[segments[i]];
+            }
+            // Objects are sent back as JSON, Selenium would otherwise turn them into maps
+            return {found: true, value: typeof value === 'object' && value !== null ? JSON.stringify(value) : value,
+                json: typeof value === 'object' && value !== null};
+            """;
+
+    // ConcurrentHashMap doesn't take null values
+    private static final Object nullValue = new Object();
+
+    private final WebDriver driver;
+    private final boolean inPage;
+
+    // Extracted values by "<source>:<key>:<path>", and whole entries by "raw:<source>:<key>"
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param driver the browser to read from, preferably the undecorated one so reads aren't timed as test commands
+     */
+    public BrowserState(WebDriver driver) {
+        this(driver, Boolean.getBoolean("svtplay.state.inPage"));
+    }
+
+    public BrowserState(WebDriver driver, boolean inPage) {
+        this.driver = driver;
+        this.inPage = inPage;
+    }
+
+    /**
+     * The value at a path in the JSON of a LocalStorage entry.
+     *
+     * @throws JSONException if there is no such entry, it isn't JSON, or there is nothing at the path
+     */
+    public Object localStorage(String key, String path) {
+        var cacheKey = "localStorage:" + key + ":" + path;
+        var cached = cache.get(cacheKey);
+        if (cached == null) {
+            cached = inPage ? extractInPage(key, path) : JsonPath.extract(rawLocalStorage(key), path);
+            cache.put(cacheKey, cached == null ? nullValue : cached);
+        }
+        return cached == nullValue ? null : cached;
+    }
+
+    /**
+     * The value at a path in the JSON value of a cookie.
+     *
+     * @throws JSONException if there is no such cookie, it isn't JSON, or there is nothing at the path
+     */
+    public Object cookie(String name, String path) {
+        var cacheKey = "cookie:" + name + ":" + path;
+        var cached = cache.get(cacheKey);
+        if (cached == null) {
+            var cookie = driver.manage().getCookieNamed(name);
+            if (cookie == null) {
+                throw new JSONException("No cookie named " + name);
+            }
+            cached = JsonPath.extract(cookie.getValue(), path);
+            cache.put(cacheKey, cached == null ? nullValue : cached);
+        }
+        return cached == nullValue ? null : cached;
+    }
+
+    /**
+     * Forgets everything read so far.
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private String rawLocalStorage(String key) {
+        var cacheKey = "raw:localStorage:" + key;
+        var raw = (String) cache.get(cacheKey);
+        if (raw == null) {
+            raw = (String) ((JavascriptExecutor) driver).executeScript("return window.localStorage.getItem(arguments[0]);", key);
+            if (raw == null) {
+                throw new JSONException("No LocalStorage entry " + key);
+            }
+            cache.put(cacheKey, raw);
+        }
+        return raw;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object extractInPage(String key, String path) {
+        // Indexes are just property names in JavaScript
+        var segments = JsonPath.parse(path).stream().map(String::valueOf).toList();
+        var result = (Map<String, Object>) ((JavascriptExecutor) driver).executeScript(extractScript, key, segments);
+
+        if (!Boolean.TRUE.equals(result.get("found"))) {
+            var error = result.get("error");
+            throw new JSONException(error != null ? key + ": " + error : "Nothing at " + path + " in " + key);
+        }
+        var value = result.get("value");
+        if (Boolean.TRUE.equals(result.get("json"))) {
+            // Let the streaming reader decide between object and array
+            return JsonPath.extract((String) value, "");
+        }
+        return value;
+    }
+
+    @Override
+    public void afterGet(WebDriver driver, String url) {
+        invalidate();
+    }
+
+    @Override
+    public void afterTo(WebDriver.Navigation navigation, String url) {
+        invalidate();
+    }
+
+    @Override
+    public void afterBack(WebDriver.Navigation navigation) {
+        invalidate();
+    }
+
+    @Override
+    public void afterForward(WebDriver.Navigation navigation) {
+        invalidate();
+    }
+
+    @Override
+    public void afterRefresh(WebDriver.Navigation navigation) {
+        invalidate();
+    }
+
+    @Override
+    public void afterClick(WebElement element) {
+        invalidate();
+    }
+
+    @Override
+    public void afterSubmit(WebElement element) {
+        invalidate();
+    }
+
+    @Override
+    public void afterSendKeys(WebElement element, CharSequence... keysToSend) {
+        invalidate();
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.lab2.support;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Records the latency of every WebDriver command, tagged by test method and locator.
+ * <p>
+ * Register it with an {@code EventFiringDecorator}. Element commands, like click or getText,
+ * are tagged with the locator that found the element. Other timings, e.g. plain HTTP requests,
+ * can be added through {@link #record(String, String, long)}.
+ * <p>
+ * {@link #report()} summarises p50/p95/p99 per command and the slowest locators,
+ * and {@link #write(Path)} saves all numbers as CSV and JSON.
+ */
+public class CommandTimer implements WebDriverListener {
+
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+
+    private final ThreadLocal<Long> started = new ThreadLocal<>();
+    private final Map<WebElement, String> locators = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<Key, Samples> samples = new ConcurrentHashMap<>();
+
+    /**
+     * Tags all commands run on this thread with a test name, until it's cleared with null.
+     * The name has to tell the invocations of a parameterized test apart, since page metrics
+     * and budgets are looked up by it as well.
+     */
+    public static void setCurrentTest(String test) {
+        if (test == null) {
+            currentTest.remove();
+        } else {
+            currentTest.set(test);
+        }
+    }
+
+    /**
+     * The test running on this thread. Work done by the browser pool is tagged "(pool)".
+     */
+    public static String currentTest() {
+        var test = currentTest.get();
+        return test != null ? test : "(pool)";
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        started.set(System.nanoTime());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        stop(target, method, args);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        stop(target, method, args);
+    }
+
+    @Override
+    public void afterFindElement(WebDriver driver, By locator, WebElement result) {
+        locators.put(result, locator.toString());
+    }
+
+    @Override
+    public void afterFindElements(WebDriver driver, By locator, List<WebElement> result) {
+        result.forEach(element -> locators.put(element, locator.toString()));
+    }
+
+    @Override
+    public void afterFindElement(WebElement element, By locator, WebElement result) {
+        locators.put(result, locatorOf(element) + " >> " + locator);
+    }
+
+    @Override
+    public void afterFindElements(WebElement element, By locator, List<WebElement> result) {
+        var parent = locatorOf(element);
+        result.forEach(child -> locators.put(child, parent + " >> " + locator));
+    }
+
+    private void stop(Object target, Method method, Object[] args) {
+        var start = started.get();
+        if (start == null) {
+            return;
+        }
+        started.remove();
+
+        var elapsed = System.nanoTime() - start;
+        record(commandName(target, method), locator(target, args), elapsed);
+    }
+
+    /**
+     * Adds a timing that didn't go through WebDriver, tagged with the current test.
+     */
+    public void record(String command, String locator, long nanos) {
+        record(currentTest(), command, locator, nanos);
+    }
+
+    /**
+     * Adds a timing for a given test, e.g. from a thread other than the test's own.
+     */
+    public void record(String test, String command, String locator, long nanos) {
+        samples.computeIfAbsent(new Key(test, command, locator == null ? "" : locator), key -> new Samples())
+                .add(nanos);
+    }
+
+    private static String commandName(Object target, Method method) {
+        String prefix;
+        if (target instanceof WebElement) {
+            prefix = "element";
+        } else if (target instanceof WebDriver) {
+            prefix = "driver";
+        } else if (target instanceof WebDriver.Navigation) {
+            prefix = "navigate";
+        } else if (target instanceof WebDriver.Window) {
+            prefix = "window";
+        } else if (target instanceof WebDriver.Options) {
+            prefix = "manage";
+        } else {
+            prefix = method.getDeclaringClass().getSimpleName();
+        }
+        return prefix + "." + method.getName();
+    }
+
+    private String locator(Object target, Object[] args) {
+        if (args != null) {
+            for (var arg : args) {
+                if (arg instanceof By) {
+                    // Searches from an element are tagged with the full chain
+                    return target instanceof WebElement element ? locatorOf(element) + " >> " + arg : arg.toString();
+                }
+            }
+        }
+        return target instanceof WebElement element ? locatorOf(element) : "";
+    }
+
+    private String locatorOf(WebElement element) {
+        var locator = locators.get(element);
+        return locator != null ? locator : "?";
+    }
+
+    /**
+     * A human readable summary: percentiles per command and the ten slowest locators by p95.
+     */
+    public String report() {
+        var byCommand = merge(key -> key.command());
+        var byLocator = merge(key -> key.locator());
+        byLocator.remove("");
+
+        var builder = new StringBuilder("Command latency (ms)          count     p50     p95     p99\n");
+        byCommand.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> appendRow(builder, entry.getKey(), entry.getValue()));
+
+        builder.append("Slowest locators by p95 (ms)\n");
+        byLocator.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Samples> entry) -> entry.getValue().percentile(95)).reversed())
+                .limit(10)
+                .forEach(entry -> appendRow(builder, entry.getKey(), entry.getValue()));
+        return builder.toString();
+    }
+
+    private static void appendRow(StringBuilder builder, String name, Samples samples) {
+        builder.append(String.format("  %-26s %6d %7.1f %7.1f %7.1f%n", name, samples.count(),
+                millis(samples.percentile(50)), millis(samples.percentile(95)), millis(samples.percentile(99))));
+    }
+
+    private Map<String, Samples> merge(Function<Key, String> grouping) {
+        return samples.entrySet().stream().collect(Collectors.toMap(
+                entry -> grouping.apply(entry.getKey()),
+                Map.Entry::getValue,
+                Samples::merge));
+    }
+
+    /**
+     * Writes all timings of this run as {@code <timestamp>.csv} and {@code <timestamp>.json} in a directory.
+     */
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        var name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        var csv = new StringBuilder("test,command,locator,count,p50_ms,p95_ms,p99_ms,max_ms\n");
+        var json = new JSONArray();
+
+        var keys = new ArrayList<>(samples.keySet());
+        keys.sort(Comparator.comparing(Key::test).thenComparing(Key::command).thenComparing(Key::locator));
+        for (var key : keys) {
+            var values = samples.get(key);
+            csv.append(String.format(Locale.ROOT, "%s,%s,%s,%d,%.3f,%.3f,%.3f,%.3f%n",
+                    csvField(key.test()), csvField(key.command()), csvField(key.locator()), values.count(),
+                    millis(values.percentile(50)), millis(values.percentile(95)),
+                    millis(values.percentile(99)), millis(values.percentile(100))));
+
+            json.put(new JSONObject()
+                    .put("test", key.test())
+                    .put("command", key.command())
+                    .put("locator", key.locator())
+                    .put("count", values.count())
+                    .put("p50Ms", millis(values.percentile(50)))
+                    .put("p95Ms", millis(values.percentile(95)))
+                    .put("p99Ms", millis(values.percentile(99)))
+                    .put("maxMs", millis(values.percentile(100))));
+        }
+
+        Files.writeString(directory.resolve(name + ".csv"), csv, StandardCharsets.UTF_8);
+        Files.writeString(directory.resolve(name + ".json"), json.toString(2), StandardCharsets.UTF_8);
+    }
+
+    private static String csvField(String value) {
+        return value.contains(",") || value.contains("\"") ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private record Key(String test, String command, String locator) {
+    }
+
+    /**
+     * The raw latencies of one key. There are only a few thousand per run, so we simply keep them all.
+     */
+    private static final class Samples {
+
+        private long[] values = new long[16];
+        private int count;
+
+        synchronized void add(long nanos) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = nanos;
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long percentile(int percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            var sorted = Arrays.copyOf(values, count);
+            Arrays.sort(sorted);
+            var index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        static Samples merge(Samples first, Samples second) {
+            var merged = new Samples();
+            for (var samples : List.of(first, second)) {
+                synchronized (samples) {
+                    for (int i = 0; i < samples.count; i++) {
+                        merged.add(samples.values[i]);
+                    }
+                }
+            }
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.lab2.support;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A drop-in replacement for {@code WebDriverWait} that reacts to DOM changes instead of
+ * polling every 500 ms.
+ * <p>
+ * When a condition isn't met, a MutationObserver is installed in the page and the wait
+ * blocks until the DOM changes, a CSS transition or animation ends, or a short slice of
+ * time has passed. The condition is then checked again. If the script can't run, e.g.
+ * because the page is navigating away, we fall back to a short sleep.
+ * <p>
+ * Every wait records how long it actually blocked, see {@link #report()}.
+ */
+public class DomWait {
+
+    // Not everything is visible to a MutationObserver, so never block longer than this without checking
+    private static final long sliceMillis = 250;
+    private static final long fallbackPollMillis = 50;
+
+    private static final String waitForChangeScript = """
+            var done = arguments[arguments.length - 1];
+            var observer, timer;
+            var finish = function (changed) {
+                observer.disconnect();
+                clearTimeout(timer);
+                document.removeEventListener('transitionend', onEvent, true);
+                document.removeEventListener('animationend', onEvent, true);
+                done(changed);
+            };
+            var onEvent = function () { finish(true); };
+            observer = new MutationObserver(onEvent);
+            observer.observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+            document.addEventListener('transitionend', onEvent, true);
+            document.addEventListener('animationend', onEvent, true);
+            timer = setTimeout(function () { finish(false); }, arguments[0]);
+            """;
+
+    private static final ConcurrentLinkedQueue<Blocked> blocked = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Boolean> polling = ThreadLocal.withInitial(() -> false);
+
+    private final WebDriver driver;
+    private final Duration timeout;
+
+    public DomWait(WebDriver driver, Duration timeout) {
+        this.driver = driver;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Waits until the condition returns something other than null or false.
+     *
+     * @throws TimeoutException if the condition isn't met in time
+     */
+    public <T> T until(ExpectedCondition<T> condition) {
+        var start = System.nanoTime();
+        var deadline = start + timeout.toNanos();
+        var lastCheck = false;
+
+        while (true) {
+            var value = check(condition, lastCheck);
+            if (value != null && !Boolean.FALSE.equals(value)) {
+                blocked.add(new Blocked(condition.toString(), System.nanoTime() - start));
+                return value;
+            }
+            if (lastCheck) {
+                blocked.add(new Blocked(condition.toString(), System.nanoTime() - start));
+                throw new TimeoutException("Expected condition failed: " + condition
+                        + " (tried for " + timeout.toSeconds() + " second(s))");
+            }
+
+            var remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                // Out of time, check once more with every fallback of HealingLocators allowed
+                lastCheck = true;
+            } else {
+                waitForChange(Math.min(remainingMillis, sliceMillis));
+            }
+        }
+    }
+
+    private <T> T check(ExpectedCondition<T> condition, boolean lastCheck) {
+        polling.set(!lastCheck);
+        try {
+            return condition.apply(driver);
+        } catch (NotFoundException | StaleElementReferenceException e) {
+            // Same as WebDriverWait, the element just isn't there yet
+            return null;
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Whether the current thread is checking the condition of a wait that still has time left,
+     * i.e. a missing element may just not have been rendered yet.
+     */
+    public static boolean isPolling() {
+        return polling.get();
+    }
+
+    private void waitForChange(long millis) {
+        try {
+            ((JavascriptExecutor) driver).executeAsyncScript(waitForChangeScript, millis);
+        } catch (WebDriverException e) {
+            // The page is probably unloading, so there is nothing to observe yet
+            sleep(Math.min(millis, fallbackPollMillis));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting", e);
+        }
+    }
+
+    /**
+     * Summarises how long all waits so far have blocked, slowest first.
+     */
+    public static String report() {
+        var all = new ArrayList<>(blocked);
+        if (all.isEmpty()) {
+            return "No waits";
+        }
+
+        var totalMillis = all.stream().mapToLong(Blocked::nanos).sum() / 1_000_000;
+        var builder = new StringBuilder()
+                .append(all.size()).append(" waits blocked for ").append(totalMillis).append(" ms in total");
+
+        all.sort(Comparator.comparingLong(Blocked::nanos).reversed());
+        for (var wait : all.subList(0, Math.min(10, all.size()))) {
+            builder.append("\n  ").append(wait.nanos() / 1_000_000).append(" ms  ").append(wait.condition());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * All recorded waits, in the order they finished.
+     */
+    public static List<Blocked> blocked() {
+        return List.copyOf(blocked);
+    }
+
+    public record Blocked(String condition, long nanos) {
+    }
+}
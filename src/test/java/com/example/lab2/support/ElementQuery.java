@@ -0,0 +1,144 @@
+package com.example.lab2.support;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the state of all elements matching a locator in a single {@code executeScript} call.
+ * <p>
+ * Reading k properties of n elements the usual way costs n * k round trips to chromedriver.
+ * Here it costs one, no matter the size of the page.
+ * <p>
+ * The property names "text" and "displayed" are special, everything else is read as an attribute.
+ * Attributes are read like {@code WebElement.getAttribute}, i.e. the DOM property if there is one,
+ * so that e.g. "src" comes back as an absolute URL. "displayed" is a cheaper approximation of
+ * {@code isDisplayed}: the element takes up space and isn't hidden by visibility or opacity.
+ */
+public final class ElementQuery {
+
+    // Shared with other in-page lookups: resolves a remote locator to an array of elements
+    static final String findScript = """
+            function find(using, value, root) {
+                root = root || document;
+                if (using === 'xpath') {
+                    var snapshot = document.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+                    var found = [];
+                    for (var i = 0; i < snapshot.snapshotLength; i++) {
+                        found.push(snapshot.snapshotItem(i));
+                    }
+                    return found;
+                }
+                if (using === 'css selector') {
+                    return Array.prototype.slice.call(root.querySelectorAll(value));
+                }
+                if (using === 'tag name') {
+                    return Array.prototype.slice.call(root.getElementsByTagName(value));
+                }
+                if (using === 'class name') {
+                    return Array.prototype.slice.call(root.getElementsByClassName(value));
+                }
+                if (using === 'id' || using === 'name') {
+                    return Array.prototype.filter.call(root.getElementsByTagName('*'), function (element) {
+                        return element.getAttribute(using) === value;
+                    });
+                }
+                var partial = using === 'partial link text';
+                return Array.prototype.filter.call(root.getElementsByTagName('a'), function (a) {
+                    var text = a.innerText.trim();
+                    return partial ? text.indexOf(value) >= 0 : text === value;
+                });
+            }
+            """;
+
+    private static final String queryScript = findScript + """
+            var properties = arguments[2];
+
+            // A property if it is a plain value, like the absolute href, else the attribute
+            function read(element, name) {
+                if (name.indexOf('../') === 0) {
+                    return element.parentElement ? read(element.parentElement, name.substring(3)) : null;
+                }
+                var property = element[name];
+                var primitive = property !== undefined && property !== null
+                    && typeof property !== 'object' && typeof property !== 'function';
+                return primitive ? String(property) : element.getAttribute(name);
+            }
+
+            return find(arguments[0], arguments[1]).map(function (element) {
+                var state = {attributes: {}};
+                properties.forEach(function (name) {
+                    if (name === 'text') {
+                        state.text = element.innerText.trim();
+                    } else if (name === 'displayed') {
+                        var style = getComputedStyle(element);
+                        state.displayed = element.getClientRects().length > 0
+                            && style.visibility !== 'hidden' && style.opacity !== '0';
+                    } else {
+                        state.attributes[name] = read(element, name);
+                    }
+                });
+                return state;
+            });
+            """;
+
+    private static final String countScript = findScript + "return find(arguments[0], arguments[1]).length;";
+
+    private ElementQuery() {
+    }
+
+    /**
+     * Reads the given properties of every element matching the locator.
+     *
+     * @param properties "text", "displayed" and/or attribute names, "../name" for an attribute of the parent
+     */
+    @SuppressWarnings("unchecked")
+    public static List<ElementState> query(WebDriver driver, By locator, String... properties) {
+        var parameters = remoteParameters(locator);
+        var result = (List<Map<String, Object>>) ((JavascriptExecutor) driver)
+                .executeScript(queryScript, parameters.using(), String.valueOf(parameters.value()), List.of(properties));
+
+        var states = new ArrayList<ElementState>(result.size());
+        for (var state : result) {
+            var attributes = (Map<String, Object>) state.getOrDefault("attributes", Collections.emptyMap());
+            var stringAttributes = new LinkedHashMap<String, String>();
+            attributes.forEach((name, value) -> stringAttributes.put(name, value == null ? null : value.toString()));
+
+            states.add(new ElementState((String) state.get("text"), (Boolean) state.get("displayed"), stringAttributes));
+        }
+        return states;
+    }
+
+    /**
+     * Counts the elements matching the locator without sending any element references over the wire.
+     */
+    public static int count(WebDriver driver, By locator) {
+        var parameters = remoteParameters(locator);
+        var count = ((JavascriptExecutor) driver)
+                .executeScript(countScript, parameters.using(), String.valueOf(parameters.value()));
+        return ((Number) count).intValue();
+    }
+
+    static By.Remotable.Parameters remoteParameters(By locator) {
+        if (locator instanceof By.Remotable remotable) {
+            return remotable.getRemoteParameters();
+        }
+        throw new IllegalArgumentException("Locator can't be run in the page: " + locator);
+    }
+
+    /**
+     * The requested state of one element. Properties that weren't asked for are null.
+     */
+    public record ElementState(String text, Boolean displayed, Map<String, String> attributes) {
+
+        public String attribute(String name) {
+            return attributes.get(name);
+        }
+    }
+}
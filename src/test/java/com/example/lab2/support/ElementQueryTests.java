@@ -0,0 +1,83 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.By;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Reads a small page in HtmlUnit with every kind of locator the page objects use.
+ */
+class ElementQueryTests {
+
+    @TempDir
+    Path directory;
+
+    private HtmlUnitDriver driver;
+
+    @BeforeEach
+    void openPage() throws IOException {
+        var page = directory.resolve("page.html");
+        Files.writeString(page, """
+                <html><body>
+                <ul>
+                <li type="start"><a href="/" class="menu active">Start</a></li>
+                <li type="programs"><a href="/program" class="menu">Program</a></li>
+                </ul>
+                <input id="search" name="q" type="search">
+                </body></html>
+                """);
+        driver = new HtmlUnitDriver(true);
+        driver.get(page.toUri().toString());
+    }
+
+    @AfterEach
+    void closePage() {
+        driver.quit();
+    }
+
+    private List<String> texts(By locator) {
+        return ElementQuery.query(driver, locator, "text").stream().map(ElementQuery.ElementState::text).toList();
+    }
+
+    @Test
+    void findsByEveryKindOfLocator() {
+        Assertions.assertEquals(List.of("Start", "Program"), texts(By.xpath("//li/a")));
+        Assertions.assertEquals(List.of("Start", "Program"), texts(By.cssSelector("li > a")));
+        Assertions.assertEquals(List.of("Start", "Program"), texts(By.tagName("a")));
+        Assertions.assertEquals(List.of("Start"), texts(By.className("active")));
+        Assertions.assertEquals(List.of("Program"), texts(By.linkText("Program")));
+        Assertions.assertEquals(List.of("Start"), texts(By.partialLinkText("Sta")));
+
+        Assertions.assertEquals(1, ElementQuery.count(driver, By.id("search")));
+        Assertions.assertEquals(1, ElementQuery.count(driver, By.name("q")));
+        Assertions.assertEquals(0, ElementQuery.count(driver, By.name("search")));
+    }
+
+    @Test
+    void readsAttributesAsProperties() {
+        var links = ElementQuery.query(driver, By.tagName("a"), "href", "class");
+
+        // The href property is absolute, there is no class property so the attribute is read
+        Assertions.assertTrue(links.get(1).attribute("href").endsWith("/program"), links.get(1).attribute("href"));
+        Assertions.assertFalse(links.get(1).attribute("href").startsWith("/"), links.get(1).attribute("href"));
+        Assertions.assertEquals("menu", links.get(1).attribute("class"));
+        Assertions.assertNull(links.get(1).text());
+    }
+
+    @Test
+    void readsAttributesOfTheParent() {
+        var links = ElementQuery.query(driver, By.xpath("//li/a"), "text", "../type");
+
+        Assertions.assertEquals(List.of("start", "programs"), links.stream().map(link -> link.attribute("../type")).toList());
+        Assertions.assertEquals("Program", links.get(1).text());
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.TestExecutionExceptionHandler;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Saves what the browser showed when a test failed: a screenshot, the DOM, the console and the network requests.
+ * <p>
+ * Only failing tests pay anything. The artifacts are read from the browser on the test thread, since the
+ * browser goes back to the pool right after, and handed to a background thread that zips and writes them,
+ * one zip per failure in {@code target/failure-artifacts} unless {@code -Dsvtplay.artifacts} says otherwise.
+ * The network log is a HAR file built from the resource timing of the page, without headers or bodies.
+ * <p>
+ * At most {@value #defaultQueueSize} failures wait to be written. A failing test waits up to a second for room
+ * and then drops its artifacts, as does every failure once {@code -Dsvtplay.artifacts.maxBytes} (default
+ * 200 MB) have been written. Where the zip ends up is added to the failure. {@link #report()} tells what
+ * capturing cost the test threads and the writer.
+ * <p>
+ * Console logs need the {@code browser} log type to be enabled, see {@link BrowserProfiles#chromeOptions()}.
+ */
+public class FailureArtifacts implements BeforeEachCallback, TestExecutionExceptionHandler, Closeable {
+
+    private static final int defaultQueueSize = 8;
+
+    private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace.create(FailureArtifacts.class);
+
+    private static final String harScript = """
+            var toIso = function (time) { return new Date(performance.timeOrigin + time).toISOString(); };
+            var navigation = performance.getEntriesByType('navigation')[0];
+            var entries = (navigation ? [navigation] : []).concat(performance.getEntriesByType('resource'));
+            return JSON.stringify({log: {
+                version: '1.2',
+                creator: {name: 'lab2 resource timing', version: '1'},
+                pages: [{id: 'page', title: document.title, startedDateTime: toIso(0), pageTimings: {
+                    onContentLoad: navigation ? navigation.domContentLoadedEventEnd : -1,
+                    onLoad: navigation ? navigation.loadEventEnd : -1}}],
+                entries: entries.map(function (entry) {
+                    return {
+                        pageref: 'page',
+                        startedDateTime: toIso(entry.startTime),
+                        time: entry.duration,
+                        request: {method: 'GET', url: entry.name, httpVersion: entry.nextHopProtocol || '',
+                            headers: [], queryString: [], cookies: [], headersSize: -1, bodySize: 0},
+                        response: {status: entry.responseStatus || 0, statusText: '', httpVersion: entry.nextHopProtocol || '',
+                            headers: [], cookies: [], redirectURL: '', headersSize: -1,
+                            bodySize: entry.encodedBodySize || -1, _transferSize: entry.transferSize,
+                            content: {size: entry.decodedBodySize || 0, mimeType: ''}},
+                        cache: {},
+                        timings: {
+                            blocked: -1, dns: entry.domainLookupEnd - entry.domainLookupStart,
+                            connect: entry.connectEnd - entry.connectStart,
+                            ssl: entry.secureConnectionStart > 0 ? entry.connectEnd - entry.secureConnectionStart : -1,
+                            send: 0, wait: entry.responseStart - entry.requestStart,
+                            receive: entry.responseEnd - entry.responseStart},
+                        _initiatorType: entry.initiatorType
+                    };
+                })
+            }});
+            """;
+
+    private final Function<Object, WebDriver> browserOf;
+    private final Path directory;
+    private final long maxBytes;
+
+    private final BlockingQueue<Capture> queue;
+    private final Thread writer;
+    // Tells apart failures of the same test within the same millisecond
+    private final AtomicInteger captures = new AtomicInteger();
+    private volatile boolean closed;
+
+    // What it costs, in ns, and how it went
+    private final AtomicLong[] captureNanos = new AtomicLong[Artifact.values().length];
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong writtenBytes = new AtomicLong();
+    // Written, plus waiting to be written at their uncompressed size
+    private final AtomicLong committedBytes = new AtomicLong();
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger dropped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @param browserOf the browser of a test instance, null if it has none
+     */
+    public FailureArtifacts(Function<Object, WebDriver> browserOf, Path directory, long maxBytes) {
+        this(browserOf, directory, maxBytes, defaultQueueSize, task -> new Thread(task, "failure-artifacts"));
+    }
+
+    /**
+     * @param writerThreads makes the thread that writes the zips, the tests use it to hold the writer back
+     */
+    FailureArtifacts(Function<Object, WebDriver> browserOf, Path directory, long maxBytes, int queueSize,
+                     ThreadFactory writerThreads) {
+        this.browserOf = browserOf;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        for (var i = 0; i < captureNanos.length; i++) {
+            captureNanos[i] = new AtomicLong();
+        }
+
+        writer = writerThreads.newThread(this::writeAll);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public static FailureArtifacts create(Function<Object, WebDriver> browserOf) {
+        return new FailureArtifacts(browserOf,
+                Path.of(System.getProperty("svtplay.artifacts", "target/failure-artifacts")),
+                Long.getLong("svtplay.artifacts.maxBytes", 200L * 1024 * 1024));
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        // Console messages from earlier tests in the same browser are left out
+        context.getStore(namespace).put("start", System.currentTimeMillis());
+    }
+
+    @Override
+    public void handleTestExecutionException(ExtensionContext context, Throwable throwable) throws Throwable {
+        var driver = context.getTestInstance().map(browserOf).orElse(null);
+        if (driver == null || closed) {
+            throw throwable;
+        }
+
+        var test = context.getRequiredTestClass().getSimpleName() + "#" + context.getTestMethod().map(Method::getName).orElse("?");
+        var since = context.getStore(namespace).getOrDefault("start", Long.class, 0L);
+        var capture = capture(driver, test, since, throwable);
+
+        // Counted before it's queued, so that failures waiting to be written can't exceed the cap together
+        var size = capture.size();
+        if (committedBytes.addAndGet(size) > maxBytes) {
+            committedBytes.addAndGet(-size);
+            dropped.incrementAndGet();
+            throwable.addSuppressed(new ArtifactNote("Failure artifacts dropped, " + maxBytes + " bytes already saved"));
+        } else if (queue.offer(capture, 1, TimeUnit.SECONDS)) {
+            throwable.addSuppressed(new ArtifactNote("Failure artifacts in " + capture.file().toAbsolutePath()));
+        } else {
+            committedBytes.addAndGet(-size);
+            dropped.incrementAndGet();
+            throwable.addSuppressed(new ArtifactNote("Failure artifacts dropped, the writer is behind"));
+        }
+        throw throwable;
+    }
+
+    private Capture capture(WebDriver driver, String test, long since, Throwable throwable) {
+        var file = directory.resolve(test.replaceAll("[^\\w.#-]", "_").replace('#', '-')
+                + "-" + System.currentTimeMillis() + "-" + captures.incrementAndGet() + ".zip");
+        var capture = new Capture(file, new ArrayList<>());
+
+        var failure = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(failure));
+        capture.add("failure.txt", failure.toString().getBytes(StandardCharsets.UTF_8), true);
+
+        var start = System.nanoTime();
+        try {
+            capture.add("screenshot.png", ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES), false);
+        } catch (RuntimeException e) {
+            capture.add("screenshot.error.txt", e.toString().getBytes(StandardCharsets.UTF_8), true);
+        }
+        start = took(Artifact.SCREENSHOT, start);
+
+        try {
+            capture.add("dom.html", ("<!-- " + driver.getCurrentUrl() + " -->\n" + driver.getPageSource())
+                    .getBytes(StandardCharsets.UTF_8), true);
+        } catch (RuntimeException e) {
+            capture.add("dom.error.txt", e.toString().getBytes(StandardCharsets.UTF_8), true);
+        }
+        start = took(Artifact.DOM, start);
+
+        try {
+            var console = new StringBuilder();
+            for (var entry : driver.manage().logs().get(LogType.BROWSER)) {
+                if (entry.getTimestamp() >= since) {
+                    console.append(Instant.ofEpochMilli(entry.getTimestamp())).append(' ')
+                            .append(entry.getLevel()).append(' ').append(entry.getMessage()).append('\n');
+                }
+            }
+            capture.add("console.log", console.toString().getBytes(StandardCharsets.UTF_8), true);
+        } catch (RuntimeException e) {
+            capture.add("console.error.txt", e.toString().getBytes(StandardCharsets.UTF_8), true);
+        }
+        start = took(Artifact.CONSOLE, start);
+
+        try {
+            var har = String.valueOf(((JavascriptExecutor) driver).executeScript(harScript));
+            capture.add("network.har", har.getBytes(StandardCharsets.UTF_8), true);
+        } catch (RuntimeException e) {
+            capture.add("network.error.txt", e.toString().getBytes(StandardCharsets.UTF_8), true);
+        }
+        took(Artifact.NETWORK, start);
+
+        return capture;
+    }
+
+    private long took(Artifact artifact, long start) {
+        var now = System.nanoTime();
+        captureNanos[artifact.ordinal()].addAndGet(now - start);
+        return now;
+    }
+
+    private void writeAll() {
+        while (!closed || !queue.isEmpty()) {
+            Capture capture;
+            try {
+                capture = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (capture == null) {
+                continue;
+            }
+
+            var start = System.nanoTime();
+            var size = capture.size();
+            try {
+                var zipped = zip(capture);
+                Files.createDirectories(capture.file().getParent());
+                try (OutputStream out = Files.newOutputStream(capture.file())) {
+                    out.write(zipped);
+                }
+                writtenBytes.addAndGet(zipped.length);
+                committedBytes.addAndGet(zipped.length - size);
+                written.incrementAndGet();
+            } catch (IOException e) {
+                committedBytes.addAndGet(-size);
+                failed.incrementAndGet();
+            }
+            writeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private static byte[] zip(Capture capture) throws IOException {
+        var bytes = new ByteArrayOutputStream(capture.size() / 2);
+        try (var zip = new ZipOutputStream(bytes)) {
+            for (var file : capture.files()) {
+                var entry = new ZipEntry(file.name());
+                if (!file.compress()) {
+                    // A PNG doesn't get any smaller
+                    var crc = new CRC32();
+                    crc.update(file.content());
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(file.content().length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(file.content());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Waits for the failures already captured to be written. Failures after this are not captured.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * What capturing cost, or an empty string if no test failed.
+     */
+    public String report() {
+        var captured = written.get() + failed.get() + dropped.get();
+        if (captured == 0) {
+            return "";
+        }
+
+        var builder = new StringBuilder(String.format(Locale.ROOT,
+                "Failure artifacts: %d failures, %d written (%.1f kB), %d dropped, %d not written, in %s",
+                captured, written.get(), writtenBytes.get() / 1024.0, dropped.get(), failed.get(), directory.toAbsolutePath()));
+        builder.append("\n  On the test threads, per failure:");
+        for (var artifact : Artifact.values()) {
+            builder.append(String.format(Locale.ROOT, " %s %.1f ms", artifact.name().toLowerCase(Locale.ROOT),
+                    captureNanos[artifact.ordinal()].get() / 1e6 / captured));
+        }
+        if (written.get() + failed.get() > 0) {
+            builder.append(String.format(Locale.ROOT, "\n  In the background, per failure: zip and write %.1f ms",
+                    writeNanos.get() / 1e6 / (written.get() + failed.get())));
+        }
+        return builder.toString();
+    }
+
+    private enum Artifact {
+        SCREENSHOT, DOM, CONSOLE, NETWORK
+    }
+
+    private record Capture(Path file, List<CapturedFile> files) {
+
+        void add(String name, byte[] content, boolean compress) {
+            files.add(new CapturedFile(name, content, compress));
+        }
+
+        int size() {
+            return files.stream().mapToInt(file -> file.content().length).sum();
+        }
+    }
+
+    private record CapturedFile(String name, byte[] content, boolean compress) {
+    }
+
+    /**
+     * Tells where the artifacts of a failure are, as a suppressed exception of the failure.
+     */
+    private static class ArtifactNote extends Exception {
+
+        ArtifactNote(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Fails tests through the extension with an HtmlUnit browser, with the writer held back where it matters.
+ */
+class FailureArtifactsTests {
+
+    private static final long kB = 1024;
+
+    // Random bytes don't compress, like a real screenshot
+    private static final byte[] png = new byte[4 * (int) kB];
+
+    static {
+        new Random(42).nextBytes(png);
+    }
+
+    @TempDir
+    Path directory;
+
+    private ScreenshotDriver driver;
+    private final CountDownLatch writerHeld = new CountDownLatch(1);
+    private final List<FailureArtifacts> created = new ArrayList<>();
+
+    /**
+     * Opens a page of a bit over 100 kB that compresses to a few kB.
+     */
+    @BeforeEach
+    void openPage() throws IOException {
+        var page = directory.resolve("page.html");
+        Files.writeString(page, "<html><body><p>" + "Hantera kakor ".repeat(8000) + "</p></body></html>");
+        driver = new ScreenshotDriver();
+        driver.get(page.toUri().toString());
+    }
+
+    @AfterEach
+    void closeBrowser() {
+        writerHeld.countDown();
+        created.forEach(FailureArtifacts::close);
+        driver.quit();
+    }
+
+    private FailureArtifacts artifacts(long maxBytes, int queueSize) {
+        var artifacts = new FailureArtifacts(test -> driver, directory.resolve("artifacts"), maxBytes, queueSize,
+                task -> new Thread(() -> {
+                    try {
+                        writerHeld.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    task.run();
+                }, "failure-artifacts"));
+        created.add(artifacts);
+        return artifacts;
+    }
+
+    /**
+     * Fails a test through the extension and returns what was added to the failure.
+     */
+    private List<String> fail(FailureArtifacts artifacts) {
+        var context = Mockito.mock(ExtensionContext.class);
+        var store = Mockito.mock(ExtensionContext.Store.class);
+        Mockito.when(context.getTestInstance()).thenReturn(Optional.of(this));
+        Mockito.doReturn(FailureArtifactsTests.class).when(context).getRequiredTestClass();
+        Mockito.when(context.getTestMethod()).thenReturn(Optional.empty());
+        Mockito.when(context.getStore(Mockito.any())).thenReturn(store);
+        Mockito.when(store.getOrDefault("start", Long.class, 0L)).thenReturn(0L);
+
+        var failure = new AssertionError("Expected the cookie consent to be gone");
+        var thrown = Assertions.assertThrows(AssertionError.class,
+                () -> artifacts.handleTestExecutionException(context, failure));
+        Assertions.assertSame(failure, thrown);
+        return Arrays.stream(thrown.getSuppressed()).map(Throwable::getMessage).toList();
+    }
+
+    private List<Path> zips() throws IOException {
+        var artifacts = directory.resolve("artifacts");
+        if (!Files.isDirectory(artifacts)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(artifacts)) {
+            return files.filter(file -> file.toString().endsWith(".zip")).sorted().toList();
+        }
+    }
+
+    private static void awaitWritten(FailureArtifacts artifacts, int count) throws InterruptedException {
+        for (var i = 0; i < 100 && !artifacts.report().contains(", " + count + " written"); i++) {
+            Thread.sleep(50);
+        }
+        Assertions.assertTrue(artifacts.report().contains(", " + count + " written"), artifacts.report());
+    }
+
+    @Test
+    void zipsWhatTheBrowserShowed() throws IOException {
+        var artifacts = artifacts(200 * kB, 8);
+        var notes = fail(artifacts);
+        writerHeld.countDown();
+        artifacts.close();
+
+        var zips = zips();
+        Assertions.assertEquals(1, zips.size());
+        Assertions.assertEquals(List.of("Failure artifacts in " + zips.get(0).toAbsolutePath()), notes);
+
+        try (var zip = new ZipFile(zips.get(0).toFile())) {
+            var names = zip.stream().map(ZipEntry::getName).toList();
+            Assertions.assertEquals(List.of("failure.txt", "screenshot.png", "dom.html"), names.subList(0, 3), names.toString());
+            Assertions.assertTrue(names.get(3).startsWith("console."), names.toString());
+            Assertions.assertTrue(names.get(4).startsWith("network."), names.toString());
+
+            // The screenshot is stored as is, the texts are deflated
+            var screenshot = zip.getEntry("screenshot.png");
+            Assertions.assertEquals(ZipEntry.STORED, screenshot.getMethod());
+            Assertions.assertArrayEquals(png, zip.getInputStream(screenshot).readAllBytes());
+
+            var dom = zip.getEntry("dom.html");
+            Assertions.assertEquals(ZipEntry.DEFLATED, dom.getMethod());
+            Assertions.assertTrue(dom.getCompressedSize() < dom.getSize() / 10, dom.getCompressedSize() + " of " + dom.getSize());
+            Assertions.assertTrue(new String(zip.getInputStream(dom).readAllBytes(), StandardCharsets.UTF_8)
+                    .startsWith("<!-- " + driver.getCurrentUrl() + " -->"));
+
+            var failure = new String(zip.getInputStream(zip.getEntry("failure.txt")).readAllBytes(), StandardCharsets.UTF_8);
+            Assertions.assertTrue(failure.contains("Expected the cookie consent to be gone"), failure);
+        }
+        Assertions.assertTrue(artifacts.report().contains("1 failures, 1 written"), artifacts.report());
+    }
+
+    @Test
+    void countsFailuresWaitingToBeWrittenAgainstTheCap() throws IOException, InterruptedException {
+        // Room for one failure at its uncompressed size, or several zipped
+        var artifacts = artifacts(150 * kB, 8);
+        Assertions.assertTrue(fail(artifacts).get(0).startsWith("Failure artifacts in "));
+        Assertions.assertEquals(List.of("Failure artifacts dropped, " + 150 * kB + " bytes already saved"), fail(artifacts));
+
+        // Once written only the zip counts
+        writerHeld.countDown();
+        awaitWritten(artifacts, 1);
+        Assertions.assertTrue(fail(artifacts).get(0).startsWith("Failure artifacts in "));
+        artifacts.close();
+
+        Assertions.assertEquals(2, zips().size());
+        Assertions.assertTrue(artifacts.report().contains("3 failures, 2 written"), artifacts.report());
+        Assertions.assertTrue(artifacts.report().contains("1 dropped"), artifacts.report());
+    }
+
+    @Test
+    void dropsFailuresWhileTheWriterIsBehind() throws IOException, InterruptedException {
+        // Room for two failures, so a third only fits if the dropped one was taken off again
+        var artifacts = artifacts(250 * kB, 1);
+        Assertions.assertTrue(fail(artifacts).get(0).startsWith("Failure artifacts in "));
+
+        var start = System.nanoTime();
+        Assertions.assertEquals(List.of("Failure artifacts dropped, the writer is behind"), fail(artifacts));
+        Assertions.assertTrue(System.nanoTime() - start >= 1_000_000_000L, "Didn't wait for room in the queue");
+        Assertions.assertEquals(List.of("Failure artifacts dropped, the writer is behind"), fail(artifacts));
+
+        writerHeld.countDown();
+        awaitWritten(artifacts, 1);
+        artifacts.close();
+
+        Assertions.assertEquals(1, zips().size());
+        Assertions.assertTrue(artifacts.report().contains("3 failures, 1 written"), artifacts.report());
+        Assertions.assertTrue(artifacts.report().contains("2 dropped"), artifacts.report());
+    }
+
+    @Test
+    void writesEveryWaitingFailureOnClose() throws IOException {
+        var artifacts = artifacts(1024 * kB, 8);
+        fail(artifacts);
+        fail(artifacts);
+        fail(artifacts);
+        Assertions.assertEquals(List.of(), zips());
+
+        writerHeld.countDown();
+        artifacts.close();
+        Assertions.assertEquals(3, zips().size());
+        Assertions.assertTrue(artifacts.report().contains("3 failures, 3 written"), artifacts.report());
+
+        // Failures after closing are passed on untouched
+        Assertions.assertEquals(List.of(), fail(artifacts));
+        Assertions.assertEquals(3, zips().size());
+    }
+
+    /**
+     * HtmlUnit doesn't take screenshots, this one always shows the same picture.
+     */
+    private static class ScreenshotDriver extends HtmlUnitDriver implements TakesScreenshot {
+
+        ScreenshotDriver() {
+            super(true);
+        }
+
+        @Override
+        public <X> X getScreenshotAs(OutputType<X> target) {
+            return target.convertFromPngBytes(png);
+        }
+    }
+}
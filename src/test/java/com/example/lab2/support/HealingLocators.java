@@ -0,0 +1,324 @@
+package com.example.lab2.support;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Locators that survive the styled-components class hashes changing on every deploy.
+ * <p>
+ * Every element looked up through {@link #by(String, By)} has a fingerprint stored under a logical name:
+ * its tag, data-rt, role, id, href, for, type, text, tag path and classes. The fingerprint is refreshed
+ * whenever the primary locator finds the element. When the primary locator finds nothing, the element
+ * with the fingerprint that matches best is used instead, and the repair is added to {@link #report()}.
+ * <p>
+ * Inside a {@link DomWait} an element may just not have been rendered yet, so it isn't swapped for a
+ * look-alike too early. A match of at least the confident score is used right away. A weaker match is
+ * used once the page has settled, i.e. it has loaded and the DOM hasn't changed for a short grace
+ * period, or else once the wait has run out of time. Both steps run in the same script call, so a
+ * drifted selector costs little more than the lookup itself.
+ * <p>
+ * Tuning is done through system properties:
+ * <ul>
+ *     <li>{@code svtplay.locators.fingerprints} - where fingerprints are saved
+ *     (default {@code target/locator-fingerprints.json}). Until a run has saved some, the ones committed in
+ *     {@code src/test/resources/locator-fingerprints.json} are used. To refresh those, copy the saved
+ *     file over them after a run against the live site.</li>
+ *     <li>{@code svtplay.locators.threshold} - the lowest score, 0 to 1, that counts as a match (default 0.6)</li>
+ *     <li>{@code svtplay.locators.confident} - the lowest score that is used while the page is still
+ *     changing (default 0.85)</li>
+ *     <li>{@code svtplay.locators.grace} - how long the DOM has to stay unchanged, in ms, before the page
+ *     counts as settled (default 500)</li>
+ * </ul>
+ */
+public class HealingLocators {
+
+    private static final String lookupScript = ElementQuery.findScript + """
+            var root = arguments[2];
+            var stored = arguments[3];
+            var threshold = arguments[4];
+            var polling = arguments[5];
+            var confident = arguments[6];
+            var grace = arguments[7];
+
+            // Loaded, and no DOM changes for the grace period. The observer stays in the page once installed.
+            function settled() {
+                if (!window.__healingObserver) {
+                    window.__healingChanged = performance.now();
+                    window.__healingObserver = new MutationObserver(function () {
+                        window.__healingChanged = performance.now();
+                    });
+                    window.__healingObserver.observe(document,
+                        {subtree: true, childList: true, attributes: true, characterData: true});
+                }
+                return document.readyState === 'complete' && performance.now() - window.__healingChanged >= grace;
+            }
+
+            function fingerprint(element) {
+                var path = [];
+                for (var node = element; node && node.nodeType === 1; node = node.parentElement) {
+                    path.unshift(node.tagName.toLowerCase());
+                }
+                return {
+                    tag: element.tagName.toLowerCase(),
+                    dataRt: element.getAttribute('data-rt'),
+                    role: element.getAttribute('role'),
+                    id: element.id || null,
+                    href: element.getAttribute('href'),
+                    for: element.getAttribute('for'),
+                    type: element.getAttribute('type'),
+                    text: (element.innerText || '').trim().substring(0, 200) || null,
+                    path: path.join('>'),
+                    classes: element.getAttribute('class')
+                };
+            }
+
+            // How much of the tail of two tag paths is the same, 0 to 1
+            function pathSimilarity(a, b) {
+                a = a.split('>');
+                b = b.split('>');
+                var same = 0;
+                while (same < a.length && same < b.length && a[a.length - 1 - same] === b[b.length - 1 - same]) {
+                    same++;
+                }
+                return same / Math.max(a.length, b.length);
+            }
+
+            function classSimilarity(a, b) {
+                a = (a || '').split(/\\s+/).filter(Boolean);
+                b = (b || '').split(/\\s+/).filter(Boolean);
+                if (!a.length && !b.length) {
+                    return 1;
+                }
+                var shared = a.filter(function (name) { return b.indexOf(name) >= 0; }).length;
+                return shared / (a.length + b.length - shared);
+            }
+
+            var weights = {dataRt: 5, id: 4, text: 4, href: 3, for: 3, role: 2, type: 1};
+
+            function score(candidate) {
+                var total = 4;
+                var points = 2 * pathSimilarity(stored.path, candidate.path)
+                    + 2 * classSimilarity(stored.classes, candidate.classes);
+                for (var key in weights) {
+                    if (stored[key] === null || stored[key] === undefined) {
+                        continue;
+                    }
+                    total += weights[key];
+                    if (candidate[key] === stored[key]) {
+                        points += weights[key];
+                    } else if (key === 'text' && candidate.text
+                        && (candidate.text.indexOf(stored.text) >= 0 || stored.text.indexOf(candidate.text) >= 0)) {
+                        points += weights[key] / 2;
+                    }
+                }
+                return points / total;
+            }
+
+            var found = find(arguments[0], arguments[1], root);
+            if (found.length) {
+                return {elements: found, fingerprint: fingerprint(found[0])};
+            }
+            if (!stored) {
+                return {elements: []};
+            }
+
+            var best = null;
+            var bestScore = polling && !settled() ? Math.max(threshold, confident) : threshold;
+            var bestPrint = null;
+            var candidates = (root || document).getElementsByTagName(stored.tag);
+            for (var i = 0; i < candidates.length; i++) {
+                var print = fingerprint(candidates[i]);
+                var candidateScore = score(print);
+                if (candidateScore >= bestScore && (best === null || candidateScore > bestScore)) {
+                    best = candidates[i];
+                    bestScore = candidateScore;
+                    bestPrint = print;
+                }
+            }
+            return best === null ? {elements: []} : {elements: [best], healed: bestPrint, score: bestScore};
+            """;
+
+    private static final List<String> fields = List.of(
+            "tag", "dataRt", "role", "id", "href", "for", "type", "text", "path", "classes");
+
+    private static final String seed = "/locator-fingerprints.json";
+
+    private final Path file;
+    private final String seedResource;
+    private final double threshold;
+    private final double confident;
+    private final long graceMillis;
+    private final Map<String, Map<String, String>> fingerprints = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> repairs = new ConcurrentLinkedQueue<>();
+    private volatile boolean dirty;
+
+    private static HealingLocators shared;
+
+    /**
+     * @param file         where fingerprints are read from and saved to
+     * @param seedResource the classpath resource to read fingerprints from while the file doesn't exist, or null
+     */
+    public HealingLocators(Path file, String seedResource, double threshold, double confident, long graceMillis) {
+        this.file = file;
+        this.seedResource = seedResource;
+        this.threshold = threshold;
+        this.confident = confident;
+        this.graceMillis = graceMillis;
+        load();
+    }
+
+    /**
+     * Creates locators configured from system properties, with the fingerprints saved by earlier runs.
+     */
+    public static HealingLocators create() {
+        return new HealingLocators(
+                Path.of(System.getProperty("svtplay.locators.fingerprints", "target/locator-fingerprints.json")),
+                seed,
+                Double.parseDouble(System.getProperty("svtplay.locators.threshold", "0.6")),
+                Double.parseDouble(System.getProperty("svtplay.locators.confident", "0.85")),
+                Long.parseLong(System.getProperty("svtplay.locators.grace", "500")));
+    }
+
+    /**
+     * The locators shared by all tests and page objects of this run, see {@link #create()}.
+     */
+    public static synchronized HealingLocators shared() {
+        if (shared == null) {
+            shared = create();
+        }
+        return shared;
+    }
+
+    /**
+     * A locator that tries the primary locator first and falls back to the fingerprint stored under the name.
+     *
+     * @param name    the logical name of the element, e.g. "cookie-settings-button"
+     * @param primary any locator that can run in the page, i.e. anything but chained or composite ones
+     */
+    public By by(String name, By primary) {
+        var parameters = ElementQuery.remoteParameters(primary);
+        return new By() {
+            @Override
+            public List<WebElement> findElements(SearchContext context) {
+                return lookup(name, primary, parameters, context);
+            }
+
+            @Override
+            public String toString() {
+                return name + " (" + primary + ")";
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WebElement> lookup(String name, By primary, By.Remotable.Parameters parameters, SearchContext context) {
+        // Element lookups get the element as root and run the script in its browser
+        WebElement root = context instanceof WebElement element ? element : null;
+        var executor = context instanceof JavascriptExecutor javascript
+                ? javascript
+                : (JavascriptExecutor) ((WrapsDriver) context).getWrappedDriver();
+
+        // Not every driver takes null arguments, the script treats false the same
+        var stored = fingerprints.get(name);
+        var result = (Map<String, Object>) executor.executeScript(lookupScript,
+                parameters.using(), String.valueOf(parameters.value()), root == null ? false : root,
+                stored == null ? false : stored, threshold, DomWait.isPolling(), confident, graceMillis);
+
+        var elements = (List<WebElement>) result.getOrDefault("elements", Collections.emptyList());
+        if (result.get("fingerprint") != null) {
+            remember(name, (Map<String, Object>) result.get("fingerprint"));
+        } else if (result.get("healed") != null) {
+            var healed = (Map<String, Object>) result.get("healed");
+            var repair = String.format("%s: %s found nothing, using <%s> \"%s\" with class \"%s\" (score %.2f)",
+                    name, primary, healed.get("tag"), healed.get("text"), healed.get("classes"),
+                    ((Number) result.get("score")).doubleValue());
+            repairs.add(CommandTimer.currentTest() + " - " + repair);
+        }
+        return elements;
+    }
+
+    private void remember(String name, Map<String, Object> found) {
+        var fingerprint = new TreeMap<String, String>();
+        for (var field : fields) {
+            var value = found.get(field);
+            if (value != null) {
+                fingerprint.put(field, value.toString());
+            }
+        }
+        if (!fingerprint.equals(fingerprints.put(name, fingerprint))) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Every repair made during the run, or an empty string if there were none.
+     */
+    public String report() {
+        if (repairs.isEmpty()) {
+            return "";
+        }
+        var builder = new StringBuilder("Healed locators (update the primary locators):");
+        repairs.forEach(repair -> builder.append("\n  ").append(repair));
+        return builder.toString();
+    }
+
+    /**
+     * Writes the fingerprints back to disk if any of them changed.
+     */
+    public void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        var json = new JSONObject();
+        new TreeMap<>(fingerprints).forEach((name, fingerprint) -> json.put(name, new JSONObject(fingerprint)));
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, json.toString(2), StandardCharsets.UTF_8);
+        dirty = false;
+    }
+
+    private void load() {
+        try {
+            String text;
+            if (Files.exists(file)) {
+                text = Files.readString(file, StandardCharsets.UTF_8);
+            } else if (seedResource != null && HealingLocators.class.getResource(seedResource) != null) {
+                try (var in = HealingLocators.class.getResourceAsStream(seedResource)) {
+                    text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            } else {
+                return;
+            }
+            var json = new JSONObject(text);
+            for (var name : json.keySet()) {
+                var stored = json.getJSONObject(name);
+                var fingerprint = new TreeMap<String, String>();
+                for (var field : stored.keySet()) {
+                    fingerprint.put(field, stored.getString(field));
+                }
+                fingerprints.put(name, fingerprint);
+            }
+        } catch (IOException | JSONException e) {
+            // Start over, the fingerprints are recorded again as the tests run
+            fingerprints.clear();
+        }
+    }
+}
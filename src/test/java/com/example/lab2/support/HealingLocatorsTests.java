@@ -0,0 +1,133 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Finds a button by a generated class name, then again after the class name changed, in HtmlUnit.
+ */
+class HealingLocatorsTests {
+
+    private static final By primary = By.className("hLpVUw");
+
+    @TempDir
+    Path directory;
+
+    private HtmlUnitDriver driver;
+
+    @BeforeEach
+    void startBrowser() {
+        driver = new HtmlUnitDriver(true);
+    }
+
+    @AfterEach
+    void stopBrowser() {
+        driver.quit();
+    }
+
+    private void open(String buttonClass) throws IOException {
+        var page = directory.resolve(buttonClass + ".html");
+        Files.writeString(page, """
+                <html><body><main>
+                <button class="%s" data-rt="cookie-settings">Hantera kakor</button>
+                <button class="other">Spara</button>
+                </main></body></html>
+                """.formatted(buttonClass));
+        driver.get(page.toUri().toString());
+    }
+
+    private HealingLocators locators(double confident, long graceMillis) {
+        return new HealingLocators(directory.resolve("fingerprints.json"), null, 0.6, confident, graceMillis);
+    }
+
+    @Test
+    void healsAsSoonAsThePageHasSettled() throws IOException {
+        var locators = locators(0.99, 200);
+        var locator = locators.by("cookie-settings-button", primary);
+        open("hLpVUw");
+        Assertions.assertEquals("Hantera kakor", driver.findElement(locator).getText());
+
+        open("xYzAbC");
+        var start = System.nanoTime();
+        var button = new DomWait(driver, Duration.ofSeconds(10))
+                .until(ExpectedConditions.visibilityOfElementLocated(locator));
+        var millis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertEquals("Hantera kakor", button.getText());
+        Assertions.assertTrue(millis < 5000, "Healing waited for the deadline: " + millis + " ms");
+        Assertions.assertTrue(locators.report().contains("cookie-settings-button"), locators.report());
+    }
+
+    @Test
+    void healsAConfidentMatchRightAway() throws IOException {
+        // The page never counts as settled, but the match is good enough anyway
+        var locators = locators(0.8, 60_000);
+        var locator = locators.by("cookie-settings-button", primary);
+        open("hLpVUw");
+        driver.findElement(locator);
+
+        open("xYzAbC");
+        var button = new DomWait(driver, Duration.ofSeconds(10))
+                .until(ExpectedConditions.visibilityOfElementLocated(locator));
+
+        Assertions.assertEquals("Hantera kakor", button.getText());
+    }
+
+    @Test
+    void leavesAWeakMatchOnAChangingPageToTheDeadline() throws IOException {
+        var locators = locators(0.99, 60_000);
+        var locator = locators.by("cookie-settings-button", primary);
+        open("hLpVUw");
+        driver.findElement(locator);
+
+        open("xYzAbC");
+        var start = System.nanoTime();
+        var button = new DomWait(driver, Duration.ofSeconds(1))
+                .until(ExpectedConditions.visibilityOfElementLocated(locator));
+
+        Assertions.assertEquals("Hantera kakor", button.getText());
+        Assertions.assertTrue(System.nanoTime() - start >= 1_000_000_000L, "Healed before the deadline");
+    }
+
+    @Test
+    void savesWhatItLearnedAndReadsItBack() throws IOException {
+        var locators = locators(0.99, 200);
+        open("hLpVUw");
+        driver.findElement(locators.by("cookie-settings-button", primary));
+        locators.save();
+
+        open("xYzAbC");
+        var reloaded = locators(0.99, 200);
+        Assertions.assertEquals("Hantera kakor", driver.findElement(reloaded.by("cookie-settings-button", primary)).getText());
+        Assertions.assertThrows(TimeoutException.class, () -> new DomWait(driver, Duration.ofMillis(300))
+                .until(ExpectedConditions.visibilityOfElementLocated(reloaded.by("unknown", primary))));
+    }
+
+    @Test
+    void healsFromTheSeedUntilAFileIsSaved() throws IOException {
+        var locators = new HealingLocators(directory.resolve("fingerprints.json"), "/locator-fingerprints.json", 0.6, 0.99, 200);
+        var page = directory.resolve("installningar.html");
+        Files.writeString(page, """
+                <html><body><main><section>
+                <button type="button" class="sc-5b00349a-2 xYzAbC">Hantera kakor</button>
+                </section></main></body></html>
+                """);
+        driver.get(page.toUri().toString());
+        var button = new DomWait(driver, Duration.ofSeconds(10))
+                .until(ExpectedConditions.visibilityOfElementLocated(locators.by("cookie-settings-button", primary)));
+
+        Assertions.assertEquals("Hantera kakor", button.getText());
+    }
+}
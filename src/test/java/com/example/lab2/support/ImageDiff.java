@@ -0,0 +1,272 @@
+package com.example.lab2.support;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Compares screenshots pixel by pixel, the way a person would notice the difference.
+ * <p>
+ * Images are plain {@code int[]} ARGB buffers, split into square tiles that are compared in parallel.
+ * Equal runs of pixels are skipped with {@link Arrays#mismatch(int[], int, int, int[], int, int)},
+ * which the JIT turns into vector instructions, so identical areas cost next to nothing. Pixels that
+ * do differ are weighed by their difference in brightness and colour (YIQ, as in pixelmatch), which
+ * ignores the anti-aliasing noise that a plain comparison trips over. A tile fails once more of its
+ * pixels differ than the tolerance allows, and stops counting right there.
+ * <p>
+ * Comparing whole directories of screenshots, e.g. to time a large set:
+ * <pre>
+ * java -cp target/test-classes:... com.example.lab2.support.ImageDiff \
+ *     src/test/visual-baselines target/visual-actual target/visual-diffs
+ * </pre>
+ */
+public final class ImageDiff {
+
+    // The largest possible YIQ delta, between black and white
+    private static final double maxDelta = 35215;
+
+    private ImageDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ImageDiff <baseline dir> <actual dir> [<diff dir>]");
+            System.exit(2);
+        }
+        var diffs = args.length > 2 ? Path.of(args[2]) : null;
+        var settings = Settings.defaults();
+
+        long pixels = 0, nanos = 0;
+        int images = 0, failed = 0;
+        try (var files = Files.list(Path.of(args[0]))) {
+            for (var baseline : files.filter(file -> file.toString().endsWith(".png")).sorted().toList()) {
+                var actual = Path.of(args[1]).resolve(baseline.getFileName());
+                if (!Files.exists(actual)) {
+                    continue;
+                }
+                var expectedImage = ImageIO.read(baseline.toFile());
+                var actualImage = ImageIO.read(actual.toFile());
+
+                // Decoding PNGs is not part of the diff, so only the comparison is timed
+                var start = System.nanoTime();
+                var result = compare(expectedImage, actualImage, settings);
+                nanos += System.nanoTime() - start;
+
+                images++;
+                pixels += (long) expectedImage.getWidth() * expectedImage.getHeight();
+                if (!result.matches()) {
+                    failed++;
+                    System.out.println(baseline.getFileName() + ": " + result);
+                    if (diffs != null && result.mismatch() == null) {
+                        Files.createDirectories(diffs);
+                        ImageIO.write(toImage(heatmap(pixels(expectedImage), pixels(actualImage), result, settings),
+                                result.width(), result.height()), "png", diffs.resolve(baseline.getFileName()).toFile());
+                    }
+                }
+            }
+        }
+        System.out.printf(Locale.ROOT, "%d images, %d differ, %.1f Mpixels compared in %d ms%n",
+                images, failed, pixels / 1e6, nanos / 1_000_000);
+    }
+
+    public static Result compare(BufferedImage expected, BufferedImage actual, Settings settings) {
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            return Result.mismatch(expected.getWidth(), expected.getHeight(), settings.tileSize(),
+                    "Size differs: " + expected.getWidth() + "x" + expected.getHeight()
+                            + " expected, " + actual.getWidth() + "x" + actual.getHeight() + " actual");
+        }
+        return compare(pixels(expected), pixels(actual), expected.getWidth(), expected.getHeight(), settings);
+    }
+
+    /**
+     * Compares two images of the same size.
+     *
+     * @param expected the ARGB pixels, row by row
+     */
+    public static Result compare(int[] expected, int[] actual, int width, int height, Settings settings) {
+        var tileSize = settings.tileSize();
+        var tilesX = (width + tileSize - 1) / tileSize;
+        var tilesY = (height + tileSize - 1) / tileSize;
+        var threshold = settings.pixelThreshold() * settings.pixelThreshold() * maxDelta;
+
+        var failed = new boolean[tilesX * tilesY];
+        var anyFailed = new AtomicBoolean();
+        IntStream.range(0, failed.length).parallel().forEach(tile -> {
+            if (settings.failFast() && anyFailed.get()) {
+                return;
+            }
+            var x0 = (tile % tilesX) * tileSize;
+            var y0 = (tile / tilesX) * tileSize;
+            var x1 = Math.min(x0 + tileSize, width);
+            var y1 = Math.min(y0 + tileSize, height);
+            var allowed = (int) ((x1 - x0) * (y1 - y0) * settings.tileTolerance());
+            if (differingPixels(expected, actual, width, x0, y0, x1, y1, threshold, allowed) > allowed) {
+                failed[tile] = true;
+                anyFailed.set(true);
+            }
+        });
+
+        return new Result(width, height, tileSize, tilesX, failed, null);
+    }
+
+    /**
+     * Counts the pixels of a tile that differ, but no further than one over what is allowed.
+     */
+    private static int differingPixels(int[] expected, int[] actual, int width,
+                                       int x0, int y0, int x1, int y1, double threshold, int allowed) {
+        var count = 0;
+        for (var y = y0; y < y1; y++) {
+            var row = y * width;
+            var from = row + x0;
+            var to = row + x1;
+            while (from < to) {
+                var skip = Arrays.mismatch(expected, from, to, actual, from, to);
+                if (skip < 0) {
+                    break;
+                }
+                var i = from + skip;
+                if (delta(expected[i], actual[i]) > threshold && ++count > allowed) {
+                    return count;
+                }
+                from = i + 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A copy of the expected image, faded, with the differing pixels of every failed tile
+     * from yellow for barely to red for completely different.
+     */
+    public static int[] heatmap(int[] expected, int[] actual, Result result, Settings settings) {
+        var width = result.width();
+        var threshold = settings.pixelThreshold() * settings.pixelThreshold() * maxDelta;
+        var heatmap = new int[expected.length];
+        IntStream.range(0, result.height()).parallel().forEach(y -> {
+            for (var x = 0; x < width; x++) {
+                var i = y * width + x;
+                var delta = expected[i] == actual[i] ? 0 : delta(expected[i], actual[i]);
+                if (delta > threshold && result.failed(x, y)) {
+                    var heat = (int) (255 * (1 - Math.min(1, delta / maxDelta * 4)));
+                    heatmap[i] = 0xFFFF0000 | heat << 8;
+                } else {
+                    // Faded to a light grey, so that the differences stand out
+                    var luma = (int) rgbToY(expected[i]);
+                    var faded = 255 - (255 - Math.max(0, Math.min(255, luma))) / 4;
+                    heatmap[i] = 0xFF000000 | faded << 16 | faded << 8 | faded;
+                }
+            }
+        });
+        return heatmap;
+    }
+
+    /**
+     * The squared YIQ distance of two pixels, 0 to {@value #maxDelta}.
+     */
+    static double delta(int expected, int actual) {
+        var y = rgbToY(expected) - rgbToY(actual);
+        var i = rgbToI(expected) - rgbToI(actual);
+        var q = rgbToQ(expected) - rgbToQ(actual);
+        return 0.5053 * y * y + 0.299 * i * i + 0.1957 * q * q;
+    }
+
+    private static double rgbToY(int rgb) {
+        return 0.29889531 * (rgb >> 16 & 0xFF) + 0.58662247 * (rgb >> 8 & 0xFF) + 0.11448223 * (rgb & 0xFF);
+    }
+
+    private static double rgbToI(int rgb) {
+        return 0.59597799 * (rgb >> 16 & 0xFF) - 0.27417610 * (rgb >> 8 & 0xFF) - 0.32180189 * (rgb & 0xFF);
+    }
+
+    private static double rgbToQ(int rgb) {
+        return 0.21147017 * (rgb >> 16 & 0xFF) - 0.52261711 * (rgb >> 8 & 0xFF) + 0.31114694 * (rgb & 0xFF);
+    }
+
+    /**
+     * The ARGB pixels of an image, without copying them if the image is stored that way already.
+     */
+    public static int[] pixels(BufferedImage image) {
+        if ((image.getType() == BufferedImage.TYPE_INT_ARGB || image.getType() == BufferedImage.TYPE_INT_RGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt buffer
+                && buffer.getData().length == image.getWidth() * image.getHeight()) {
+            return buffer.getData();
+        }
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    public static BufferedImage toImage(int[] pixels, int width, int height) {
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    /**
+     * @param pixelThreshold how different two pixels may be and still count as the same, 0 to 1
+     * @param tileTolerance  the share of pixels of a tile that may differ, 0 to 1
+     * @param tileSize       the width and height of a tile in pixels
+     * @param failFast       stop at the first failed tile, when only a yes or no is needed
+     */
+    public record Settings(double pixelThreshold, double tileTolerance, int tileSize, boolean failFast) {
+
+        /**
+         * Settings from {@code -Dsvtplay.visual.threshold} (default 0.1), {@code -Dsvtplay.visual.tolerance}
+         * (default 0.01) and {@code -Dsvtplay.visual.tile} (default 64).
+         */
+        public static Settings defaults() {
+            return new Settings(
+                    Double.parseDouble(System.getProperty("svtplay.visual.threshold", "0.1")),
+                    Double.parseDouble(System.getProperty("svtplay.visual.tolerance", "0.01")),
+                    Integer.getInteger("svtplay.visual.tile", 64),
+                    false);
+        }
+    }
+
+    /**
+     * The outcome of a comparison.
+     *
+     * @param mismatch why the images couldn't be compared at all, e.g. different sizes, or null
+     */
+    public record Result(int width, int height, int tileSize, int tilesX, boolean[] failedTiles, String mismatch) {
+
+        static Result mismatch(int width, int height, int tileSize, String reason) {
+            return new Result(width, height, tileSize, 0, new boolean[0], reason);
+        }
+
+        public boolean matches() {
+            if (mismatch != null) {
+                return false;
+            }
+            for (var failed : failedTiles) {
+                if (failed) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public int failedTileCount() {
+            var count = 0;
+            for (var failed : failedTiles) {
+                count += failed ? 1 : 0;
+            }
+            return count;
+        }
+
+        boolean failed(int x, int y) {
+            return failedTiles[(y / tileSize) * tilesX + x / tileSize];
+        }
+
+        @Override
+        public String toString() {
+            return mismatch != null ? mismatch
+                    : failedTileCount() + " of " + failedTiles.length + " tiles differ";
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/**
+ * Compares 128 x 128 pixel images, four tiles of 64 x 64, on a white background.
+ */
+class ImageDiffTests {
+
+    private static final int size = 128;
+    private static final int white = 0xFFFFFFFF;
+    private static final int black = 0xFF000000;
+
+    private static final ImageDiff.Settings settings = new ImageDiff.Settings(0.1, 0.01, 64, false);
+
+    private static int[] blank() {
+        var pixels = new int[size * size];
+        Arrays.fill(pixels, white);
+        return pixels;
+    }
+
+    private static void fill(int[] pixels, int x0, int y0, int x1, int y1, int color) {
+        for (var y = y0; y < y1; y++) {
+            Arrays.fill(pixels, y * size + x0, y * size + x1, color);
+        }
+    }
+
+    @Test
+    void identicalImagesMatch() {
+        var expected = blank();
+        fill(expected, 10, 10, 100, 40, black);
+        var result = ImageDiff.compare(expected, expected.clone(), size, size, settings);
+
+        Assertions.assertTrue(result.matches(), result.toString());
+        Assertions.assertEquals(0, result.failedTileCount());
+        Assertions.assertEquals("0 of 4 tiles differ", result.toString());
+    }
+
+    @Test
+    void findsTheOneTileThatChanged() {
+        var actual = blank();
+        fill(actual, 70, 10, 90, 30, black);
+        var result = ImageDiff.compare(blank(), actual, size, size, settings);
+
+        Assertions.assertFalse(result.matches());
+        Assertions.assertEquals(1, result.failedTileCount());
+        Assertions.assertTrue(result.failed(75, 15));
+        Assertions.assertFalse(result.failed(10, 10));
+        Assertions.assertFalse(result.failed(75, 100));
+    }
+
+    @Test
+    void ignoresAntiAliasingNoiseUnderTheTolerance() {
+        // Every pixel of the first row slightly off, as a font smoothed a little differently
+        var actual = blank();
+        fill(actual, 0, 0, size, 1, 0xFFF2F2F2);
+        // And 40 pixels of a tile, 1% of it, completely different
+        for (var i = 0; i < 40; i++) {
+            actual[(1 + i) * size + i] = black;
+        }
+        Assertions.assertTrue(ImageDiff.compare(blank(), actual, size, size, settings).matches());
+
+        // One more is over the tolerance
+        actual[50 * size + 10] = black;
+        Assertions.assertEquals(1, ImageDiff.compare(blank(), actual, size, size, settings).failedTileCount());
+    }
+
+    @Test
+    void imagesOfDifferentSizesDontMatch() {
+        var expected = ImageDiff.toImage(blank(), size, size);
+        var actual = ImageDiff.toImage(new int[size * 100], size, 100);
+        var result = ImageDiff.compare(expected, actual, settings);
+
+        Assertions.assertFalse(result.matches());
+        Assertions.assertEquals("Size differs: 128x128 expected, 128x100 actual", result.mismatch());
+        Assertions.assertEquals(result.mismatch(), result.toString());
+    }
+
+    @Test
+    void heatmapMarksOnlyTheDifferencesOfFailedTiles() {
+        var expected = blank();
+        fill(expected, 0, 100, size, size, black);
+        var actual = expected.clone();
+        fill(actual, 70, 10, 90, 30, black);
+        actual[10 * size + 10] = black;
+        var result = ImageDiff.compare(expected, actual, size, size, settings);
+
+        var heatmap = ImageDiff.heatmap(expected, actual, result, settings);
+
+        // Black on white is as different as it gets, so completely red
+        Assertions.assertEquals(0xFFFF0000, heatmap[20 * size + 80]);
+        // Same pixels, and a differing pixel of a tile that passed, are the expected image faded
+        Assertions.assertEquals(white, heatmap[40 * size + 80]);
+        Assertions.assertEquals(white, heatmap[10 * size + 10]);
+        Assertions.assertEquals(0xFFC0C0C0, heatmap[110 * size + 10]);
+
+        var image = ImageDiff.toImage(heatmap, size, size);
+        Assertions.assertEquals(0xFFFF0000, image.getRGB(80, 20));
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.lab2.support;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads one value out of a JSON document without parsing the rest of it.
+ * <p>
+ * Paths are dot separated names with optional indexes, e.g. {@code settings.autoplay}
+ * or {@code $.items[2].name}. The document is scanned once, and everything that isn't on
+ * the path is skipped over character by character instead of being turned into objects.
+ * Only the value at the end of the path is parsed; objects and arrays are returned as
+ * {@link JSONObject} and {@link JSONArray}, numbers as {@link Long} or {@link Double},
+ * and JSON null as {@code null}.
+ */
+public final class JsonPath {
+
+    private final CharSequence json;
+    private int position;
+
+    private JsonPath(CharSequence json) {
+        this.json = json;
+    }
+
+    /**
+     * The value at the path.
+     *
+     * @throws JSONException if the document is malformed or there is nothing at the path
+     */
+    public static Object extract(CharSequence json, String path) {
+        if (json == null) {
+            throw new JSONException("No document to read " + path + " from");
+        }
+        var reader = new JsonPath(json);
+        var segments = parse(path);
+        for (var segment : segments) {
+            reader.skipWhitespace();
+            var found = segment instanceof Integer index ? reader.enterArray(index) : reader.enterObject((String) segment);
+            if (!found) {
+                throw new JSONException("Nothing at " + path);
+            }
+        }
+        reader.skipWhitespace();
+        return reader.readValue();
+    }
+
+    /**
+     * Splits a path into names and indexes.
+     */
+    static List<Object> parse(String path) {
+        var segments = new ArrayList<Object>();
+        var rest = path.startsWith("$") ? path.substring(1) : path;
+        var i = 0;
+        while (i < rest.length()) {
+            var c = rest.charAt(i);
+            if (c == '.') {
+                i++;
+            } else if (c == '[') {
+                var close = rest.indexOf(']', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed index in " + path);
+                }
+                segments.add(Integer.parseInt(rest.substring(i + 1, close).trim()));
+                i = close + 1;
+            } else {
+                var end = i;
+                while (end < rest.length() && rest.charAt(end) != '.' && rest.charAt(end) != '[') {
+                    end++;
+                }
+                segments.add(rest.substring(i, end));
+                i = end;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Moves to the value of a member of the object at the current position.
+     */
+    private boolean enterObject(String name) {
+        if (peek() != '{') {
+            return false;
+        }
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            return false;
+        }
+        while (true) {
+            skipWhitespace();
+            var key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            if (key.equals(name)) {
+                return true;
+            }
+            skipValue();
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect('}');
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Moves to an element of the array at the current position.
+     */
+    private boolean enterArray(int index) {
+        if (peek() != '[') {
+            return false;
+        }
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            return false;
+        }
+        for (var i = 0; ; i++) {
+            skipWhitespace();
+            if (i == index) {
+                return true;
+            }
+            skipValue();
+            skipWhitespace();
+            if (peek() == ',') {
+                position++;
+            } else {
+                expect(']');
+                return false;
+            }
+        }
+    }
+
+    private Object readValue() {
+        var c = peek();
+        if (c == '{' || c == '[') {
+            var start = position;
+            skipValue();
+            var text = json.subSequence(start, position).toString();
+            return c == '{' ? new JSONObject(text) : new JSONArray(text);
+        }
+        if (c == '"') {
+            return readString();
+        }
+
+        var start = position;
+        skipValue();
+        var literal = json.subSequence(start, position).toString();
+        return switch (literal) {
+            case "true" -> Boolean.TRUE;
+            case "false" -> Boolean.FALSE;
+            case "null" -> null;
+            default -> number(literal, start);
+        };
+    }
+
+    private static Number number(String literal, int start) {
+        try {
+            if (literal.contains(".") || literal.contains("e") || literal.contains("E")) {
+                return Double.parseDouble(literal);
+            }
+            return Long.parseLong(literal);
+        } catch (NumberFormatException e) {
+            throw new JSONException("Not a value at " + start + ": " + literal);
+        }
+    }
+
+    /**
+     * Skips a value of any kind. Nested objects and arrays are skipped by counting brackets.
+     */
+    private void skipValue() {
+        var c = peek();
+        if (c == '"') {
+            skipString();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            var depth = 0;
+            do {
+                c = peek();
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']') {
+                    depth--;
+                }
+                position++;
+            } while (depth > 0);
+            return;
+        }
+        // A number or literal runs until the next delimiter
+        while (position < json.length() && ",}] \t\r\n".indexOf(json.charAt(position)) < 0) {
+            position++;
+        }
+    }
+
+    private void skipString() {
+        position++;
+        while (true) {
+            var c = peek();
+            position++;
+            if (c == '\\') {
+                position++;
+            } else if (c == '"') {
+                return;
+            }
+        }
+    }
+
+    private String readString() {
+        expect('"');
+        var builder = new StringBuilder();
+        while (true) {
+            var c = peek();
+            position++;
+            if (c == '"') {
+                return builder.toString();
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            var escaped = peek();
+            position++;
+            switch (escaped) {
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    if (position + 4 > json.length()) {
+                        throw new JSONException("Unterminated escape at " + position);
+                    }
+                    var hex = json.subSequence(position, position + 4).toString();
+                    try {
+                        builder.append((char) Integer.parseInt(hex, 16));
+                    } catch (NumberFormatException e) {
+                        throw new JSONException("Not an escape at " + position + ": \\u" + hex);
+                    }
+                    position += 4;
+                }
+                default -> builder.append(escaped);
+            }
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= json.length()) {
+            throw new JSONException("Unexpected end of document");
+        }
+        return json.charAt(position);
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw new JSONException("Expected '" + expected + "' at " + position + " but found '" + peek() + "'");
+        }
+        position++;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.lab2.support;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Reads values out of small documents, and makes sure broken ones fail with a {@link JSONException}.
+ */
+class JsonPathTests {
+
+    private static final String settings = """
+            {
+              "version": 3,
+              "skipped": {"text": "a \\"quoted\\" }] and [{ in a string", "list": [1, [2, {"x": null}]]},
+              "settings": {"player": {"autoplay": true, "volume": 0.5, "rate": -2e1}, "subtitles": false},
+              "items": [{"name": "a"}, {"name": "b"}, {"name": "c"}],
+              "grid": [[1, 2], [3, 4]],
+              "nothing": null,
+              "empty": {"object": {}, "array": []}
+            }
+            """;
+
+    @Test
+    void splitsPathsIntoNamesAndIndexes() {
+        Assertions.assertEquals(List.of("items", 2, "name"), JsonPath.parse("$.items[2].name"));
+        Assertions.assertEquals(List.of("grid", 1, 0), JsonPath.parse("grid[1][0]"));
+        Assertions.assertEquals(List.of(), JsonPath.parse("$"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> JsonPath.parse("items[2"));
+    }
+
+    @Test
+    void decodesEscapesInValuesAndNames() {
+        var json = """
+                {"sk\\u00e4l": "line\\nbreak\\t\\"quoted\\" back\\\\slash \\/ \\u00e5\\u2603", "b\\"c": 1}
+                """;
+
+        Assertions.assertEquals("line\nbreak\t\"quoted\" back\\slash / \u00e5\u2603", JsonPath.extract(json, "sk\u00e4l"));
+        Assertions.assertEquals(1L, JsonPath.extract(json, "b\"c"));
+    }
+
+    @Test
+    void skipsStringsThatLookLikeStructure() {
+        Assertions.assertEquals(3L, JsonPath.extract(settings, "version"));
+        Assertions.assertEquals(true, JsonPath.extract(settings, "settings.player.autoplay"));
+    }
+
+    @Test
+    void readsNestedObjectsAndArrays() {
+        Assertions.assertEquals(0.5, JsonPath.extract(settings, "settings.player.volume"));
+        Assertions.assertEquals(-20.0, JsonPath.extract(settings, "settings.player.rate"));
+        Assertions.assertEquals(false, JsonPath.extract(settings, "settings.subtitles"));
+
+        var player = (JSONObject) JsonPath.extract(settings, "settings.player");
+        Assertions.assertTrue(player.getBoolean("autoplay"));
+        Assertions.assertEquals(3, player.length());
+
+        var list = (JSONArray) JsonPath.extract(settings, "skipped.list");
+        Assertions.assertEquals(2, list.length());
+        Assertions.assertTrue(list.getJSONArray(1).getJSONObject(1).isNull("x"));
+
+        Assertions.assertEquals(0, ((JSONObject) JsonPath.extract(settings, "empty.object")).length());
+        Assertions.assertEquals(0, ((JSONArray) JsonPath.extract(settings, "empty.array")).length());
+    }
+
+    @Test
+    void followsIndexes() {
+        Assertions.assertEquals("c", JsonPath.extract(settings, "$.items[2].name"));
+        Assertions.assertEquals("a", ((JSONObject) JsonPath.extract(settings, "items[0]")).getString("name"));
+        Assertions.assertEquals(3L, JsonPath.extract(settings, "grid[1][0]"));
+        Assertions.assertEquals(2L, JsonPath.extract("[[1, 2], [3, 4]]", "[0][1]"));
+    }
+
+    @Test
+    void failsOnMissingPaths() {
+        for (var path : List.of("missing", "settings.missing", "items[3]", "items[3].name", "items.name",
+                "settings[0]", "version.major", "empty.object.a", "empty.array[0]")) {
+            Assertions.assertThrows(JSONException.class, () -> JsonPath.extract(settings, path), path);
+        }
+        Assertions.assertThrows(JSONException.class, () -> JsonPath.extract(null, "version"));
+    }
+
+    @Test
+    void readsNullValues() {
+        Assertions.assertNull(JsonPath.extract(settings, "nothing"));
+        Assertions.assertNull(JsonPath.extract(settings, "skipped.list[1][1].x"));
+        Assertions.assertThrows(JSONException.class, () -> JsonPath.extract(settings, "nothing.below"));
+    }
+
+    @Test
+    void failsOnTruncatedDocuments() {
+        for (var json : List.of("", "{", "{\"a\"", "{\"a\":", "{\"a\": {\"b\": 1", "{\"skip\": [1, {\"x\": 2",
+                "{\"skip\": \"never closed", "{\"a\": \"never closed", "{\"a\": \"\\u00")) {
+            Assertions.assertThrows(JSONException.class, () -> JsonPath.extract(json, "a"), json);
+        }
+    }
+
+    @Test
+    void failsOnMalformedDocuments() {
+        for (var json : List.of("{\"a\" 1}", "{a: 1}", "{\"a\": tru}", "{\"a\": 1x}", "{\"a\": \"\\uzzzz\"}")) {
+            Assertions.assertThrows(JSONException.class, () -> JsonPath.extract(json, "a"), json);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.lab2.support;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies image (and other) links concurrently using one pooled HTTP client.
+ * <p>
+ * Every URL is first requested with HEAD. Some CDNs don't answer HEAD properly,
+ * so any answer but 200 is retried once with a GET before it is reported as broken.
+ * Redirects are followed; only a final 200 counts as a working link.
+ * <p>
+ * Tuning is done through system properties:
+ * <ul>
+ *     <li>{@code svtplay.linkcheck.concurrency} - number of requests in flight (default 16)</li>
+ *     <li>{@code svtplay.linkcheck.maxPerHost} - open connections per host (default 8)</li>
+ * </ul>
+ */
+public class LinkChecker implements Closeable {
+
+    private static final int timeoutMillis = 10_000;
+    private static final String noSrc = "(no src)";
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final ExecutorService executor;
+    private final CommandTimer timer;
+
+    /**
+     * @param timer records the time of each request, may be null
+     */
+    public LinkChecker(int concurrency, int maxPerHost, CommandTimer timer) {
+        this.timer = timer;
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(concurrency);
+        connectionManager.setDefaultMaxPerRoute(maxPerHost);
+
+        var requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeoutMillis)
+                .setConnectionRequestTimeout(timeoutMillis)
+                .setSocketTimeout(timeoutMillis)
+                .build();
+
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+        executor = Executors.newFixedThreadPool(concurrency);
+    }
+
+    /**
+     * Creates a checker configured from system properties.
+     *
+     * @param timer records the time of each request, may be null
+     */
+    public static LinkChecker create(CommandTimer timer) {
+        return new LinkChecker(
+                Integer.getInteger("svtplay.linkcheck.concurrency", 16),
+                Integer.getInteger("svtplay.linkcheck.maxPerHost", 8),
+                timer);
+    }
+
+    /**
+     * Checks all images for a missing alt text and a broken source.
+     * Nothing stops at the first problem; everything is collected into the report.
+     * Images without a source are reported as {@value #noSrc}, the same way as the crawler does.
+     *
+     * @param images        the images to check
+     * @param altExceptions sources that are allowed to lack an alt text
+     */
+    public Report checkImages(Collection<Image> images, Collection<String> altExceptions) {
+        var missingAlt = new LinkedHashSet<String>();
+        var urls = new LinkedHashSet<String>();
+        var withoutSrc = 0;
+
+        for (var image : images) {
+            var hasSrc = image.src() != null && !image.src().isEmpty();
+            if ((image.alt() == null || image.alt().isEmpty()) && !(hasSrc && altExceptions.contains(image.src()))) {
+                missingAlt.add(hasSrc ? image.src() : noSrc);
+            }
+            if (hasSrc) {
+                urls.add(image.src());
+            } else {
+                withoutSrc++;
+            }
+        }
+
+        var broken = new ArrayList<>(checkLinks(urls));
+        if (withoutSrc > 0) {
+            broken.add(new BrokenLink(noSrc, -1, withoutSrc + (withoutSrc == 1 ? " image" : " images") + " without a src"));
+        }
+        return new Report(List.copyOf(missingAlt), broken);
+    }
+
+    /**
+     * Requests every unique URL concurrently and returns the ones that are broken.
+     */
+    public List<BrokenLink> checkLinks(Collection<String> urls) {
+        // The requests run on other threads, so remember who asked for them
+        var test = CommandTimer.currentTest();
+
+        var futures = new ArrayList<Future<BrokenLink>>();
+        for (var url : new LinkedHashSet<>(urls)) {
+            futures.add(executor.submit(() -> check(url, test)));
+        }
+
+        var broken = new ArrayList<BrokenLink>();
+        for (var future : futures) {
+            try {
+                var result = future.get();
+                if (result != null) {
+                    broken.add(result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking links", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Link check failed", e.getCause());
+            }
+        }
+        return broken;
+    }
+
+    /**
+     * Checks a single URL. Returns null when the link is ok.
+     */
+    private BrokenLink check(String url, String test) {
+        HttpRequestBase head;
+        try {
+            head = new HttpHead(url);
+        } catch (IllegalArgumentException e) {
+            return new BrokenLink(url, -1, "Malformed URL");
+        }
+
+        try {
+            var status = execute(head, test);
+            if (isOk(status)) {
+                return null;
+            }
+
+            // HEAD isn't always supported, so give it another go with GET
+            status = execute(new HttpGet(url), test);
+            return isOk(status) ? null : new BrokenLink(url, status, null);
+        } catch (IOException e) {
+            return new BrokenLink(url, -1, e.toString());
+        }
+    }
+
+    private int execute(HttpRequestBase request, String test) throws IOException {
+        var start = System.nanoTime();
+
+        // Always consume and close the response, otherwise the connection never returns to the pool
+        try (CloseableHttpResponse response = client.execute(request)) {
+            EntityUtils.consume(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        } finally {
+            if (timer != null) {
+                timer.record(test, "http." + request.getMethod().toLowerCase(Locale.ROOT),
+                        request.getURI().getHost(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static boolean isOk(int status) {
+        return status == HttpStatus.SC_OK;
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        client.close();
+        connectionManager.close();
+    }
+
+    /**
+     * The parts of an img element that we care about.
+     */
+    public record Image(String src, String alt) {
+    }
+
+    /**
+     * A link that could not be fetched. The status is -1 if no response was received at all.
+     */
+    public record BrokenLink(String url, int status, String error) {
+
+        @Override
+        public String toString() {
+            return url + " -> " + (error != null ? error : "HTTP " + status);
+        }
+    }
+
+    /**
+     * The outcome of checking a set of images.
+     */
+    public record Report(List<String> missingAltText, List<BrokenLink> brokenLinks) {
+
+        public boolean isClean() {
+            return missingAltText.isEmpty() && brokenLinks.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            var builder = new StringBuilder();
+            if (!missingAltText.isEmpty()) {
+                builder.append("Images without alt text:");
+                missingAltText.forEach(src -> builder.append("\n  ").append(src));
+            }
+            if (!brokenLinks.isEmpty()) {
+                if (builder.length() > 0) {
+                    builder.append('\n');
+                }
+                builder.append("Broken image links:");
+                brokenLinks.forEach(link -> builder.append("\n  ").append(link));
+            }
+            return builder.toString();
+        }
+    }
+}
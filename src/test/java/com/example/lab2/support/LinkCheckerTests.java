@@ -0,0 +1,144 @@
+package com.example.lab2.support;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks links against a local server that answers HEAD and GET differently per path.
+ */
+class LinkCheckerTests {
+
+    // The status of HEAD and of GET for each path
+    private static final Map<String, int[]> statuses = Map.of(
+            "/ok.svg", new int[] {200, 200},
+            "/no-head.jpg", new int[] {405, 200},
+            "/missing.jpg", new int[] {404, 404},
+            "/no-head-missing.jpg", new int[] {405, 404},
+            "/empty.jpg", new int[] {204, 204});
+
+    private HttpServer server;
+    private LinkChecker checker;
+    private String base;
+
+    // Every request as "<method> <path>"
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            var method = exchange.getRequestMethod();
+            var path = exchange.getRequestURI().getPath();
+            requests.add(method + " " + path);
+
+            var status = statuses.getOrDefault(path, new int[] {404, 404})[method.equals("HEAD") ? 0 : 1];
+            var body = "image".getBytes(StandardCharsets.UTF_8);
+            if (status == 200 && method.equals("GET")) {
+                exchange.sendResponseHeaders(status, body.length);
+                exchange.getResponseBody().write(body);
+            } else {
+                exchange.sendResponseHeaders(status, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+        checker = new LinkChecker(4, 4, null);
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        checker.close();
+        server.stop(0);
+    }
+
+    private Map<String, LinkChecker.BrokenLink> broken(String... paths) {
+        var urls = new ArrayList<String>();
+        for (var path : paths) {
+            urls.add(path.startsWith("/") ? base + path : path);
+        }
+        return checker.checkLinks(urls).stream()
+                .collect(Collectors.toMap(LinkChecker.BrokenLink::url, link -> link));
+    }
+
+    @Test
+    void workingLinksOnlyNeedAHead() {
+        Assertions.assertEquals(Map.of(), broken("/ok.svg", "/ok.svg"));
+        Assertions.assertEquals(List.of("HEAD /ok.svg"), requests);
+    }
+
+    @Test
+    void fallsBackToGetWhenHeadIsRejected() {
+        Assertions.assertEquals(Map.of(), broken("/no-head.jpg"));
+        Assertions.assertEquals(List.of("HEAD /no-head.jpg", "GET /no-head.jpg"), requests);
+    }
+
+    @Test
+    void reportsBrokenLinksWithTheStatusOfTheGet() {
+        var broken = broken("/ok.svg", "/missing.jpg", "/no-head-missing.jpg", "/empty.jpg");
+
+        Assertions.assertEquals(3, broken.size(), broken.toString());
+        Assertions.assertEquals(404, broken.get(base + "/missing.jpg").status());
+        Assertions.assertEquals(404, broken.get(base + "/no-head-missing.jpg").status());
+        // Only a 200 is a working image
+        Assertions.assertEquals(204, broken.get(base + "/empty.jpg").status());
+        Assertions.assertEquals(base + "/missing.jpg -> HTTP 404", broken.get(base + "/missing.jpg").toString());
+    }
+
+    @Test
+    void reportsLinksThatCantBeRequested() throws IOException {
+        int closedPort;
+        try (var socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        var unreachable = "http://localhost:" + closedPort + "/logo.svg";
+
+        var broken = broken("http://local host/logo.svg", unreachable);
+
+        Assertions.assertEquals("Malformed URL", broken.get("http://local host/logo.svg").error());
+        Assertions.assertEquals(-1, broken.get(unreachable).status());
+        Assertions.assertNotNull(broken.get(unreachable).error());
+    }
+
+    @Test
+    void checksAltTextsAndSourcesOfImages() {
+        var report = checker.checkImages(List.of(
+                new LinkChecker.Image(base + "/ok.svg", "SVT Play"),
+                new LinkChecker.Image(base + "/no-head.jpg", ""),
+                new LinkChecker.Image(base + "/missing.jpg", null),
+                new LinkChecker.Image(base + "/ok.svg", null)),
+                List.of(base + "/ok.svg"));
+
+        Assertions.assertFalse(report.isClean());
+        Assertions.assertEquals(List.of(base + "/no-head.jpg", base + "/missing.jpg"), report.missingAltText());
+        Assertions.assertEquals(List.of(base + "/missing.jpg"),
+                report.brokenLinks().stream().map(LinkChecker.BrokenLink::url).toList());
+    }
+
+    @Test
+    void reportsImagesWithoutASource() {
+        var report = checker.checkImages(List.of(
+                new LinkChecker.Image(base + "/ok.svg", "SVT Play"),
+                new LinkChecker.Image("", "Agenda"),
+                new LinkChecker.Image(null, null)),
+                List.of());
+
+        Assertions.assertEquals(List.of("(no src)"), report.missingAltText());
+        Assertions.assertEquals(List.of("(no src) -> 2 images without a src"),
+                report.brokenLinks().stream().map(LinkChecker.BrokenLink::toString).toList());
+        Assertions.assertEquals(List.of("HEAD /ok.svg"), requests);
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.lab2.support;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Collects Navigation Timing, resource timing and Web Vitals for every page the tests visit,
+ * and checks them against budgets.
+ * <p>
+ * Budgets are read from {@code page-budgets.properties} on the classpath, as
+ * {@code <page>.<metric>=<limit>}. The page is the first part of the path, e.g. {@code program},
+ * {@code start} for the start page, or host and path for other sites. {@code *} matches any page.
+ * The metrics are {@code ttfb}, {@code domContentLoaded}, {@code load} and {@code lcp} in ms,
+ * {@code cls}, and {@code bytes} for the transferred bytes.
+ */
+public class PageMetrics {
+
+    private static final String collectScript = """
+            // Resources already reported for this document are skipped
+            var since = performance.timeOrigin === arguments[1] ? arguments[0] : 0;
+            var navigation = performance.getEntriesByType('navigation')[0];
+            var result = {timeOrigin: performance.timeOrigin, lcp: null, cls: 0, resources: []};
+
+            // Buffered entries are handed to the observer right away, so takeRecords() sees them
+            try {
+                var lcpObserver = new PerformanceObserver(function () {});
+                lcpObserver.observe({type: 'largest-contentful-paint', buffered: true});
+                var lcpEntries = lcpObserver.takeRecords();
+                lcpObserver.disconnect();
+                if (lcpEntries.length) {
+                    result.lcp = lcpEntries[lcpEntries.length - 1].startTime;
+                }
+            } catch (e) {}
+            try {
+                var clsObserver = new PerformanceObserver(function () {});
+                clsObserver.observe({type: 'layout-shift', buffered: true});
+                clsObserver.takeRecords().forEach(function (entry) {
+                    if (!entry.hadRecentInput) {
+                        result.cls += entry.value;
+                    }
+                });
+                clsObserver.disconnect();
+            } catch (e) {}
+
+            if (navigation) {
+                result.ttfb = navigation.responseStart;
+                result.domContentLoaded = navigation.domContentLoadedEventEnd;
+                result.load = navigation.loadEventEnd;
+                result.bytes = navigation.transferSize;
+            }
+
+            performance.getEntriesByType('resource').forEach(function (entry) {
+                if (entry.startTime >= since) {
+                    result.bytes = (result.bytes || 0) + entry.transferSize;
+                    result.resources.push({name: entry.name, type: entry.initiatorType,
+                        duration: entry.duration, bytes: entry.transferSize});
+                }
+            });
+            result.now = performance.now();
+            return result;
+            """;
+
+    private final String baseHost;
+    private final Map<String, Double> budgets;
+    private final ConcurrentLinkedQueue<Visit> visits = new ConcurrentLinkedQueue<>();
+
+    public PageMetrics(String baseUrl) {
+        this.baseHost = URI.create(baseUrl).getHost();
+        this.budgets = loadBudgets();
+    }
+
+    /**
+     * A listener that collects metrics for one browser after every navigation and click.
+     */
+    public WebDriverListener listenerFor(WebDriver driver) {
+        return new Listener(driver);
+    }
+
+    private static Map<String, Double> loadBudgets() {
+        var properties = new Properties();
+        try (InputStream in = PageMetrics.class.getResourceAsStream("/page-budgets.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read page-budgets.properties", e);
+        }
+
+        return properties.stringPropertyNames().stream()
+                .collect(Collectors.toMap(key -> key, key -> Double.parseDouble(properties.getProperty(key))));
+    }
+
+    /**
+     * The page name used for budgets, e.g. "program" for https://www.svtplay.se/program.
+     */
+    String pageOf(String url) {
+        var uri = URI.create(url);
+        var path = uri.getPath() == null ? "" : uri.getPath().replaceAll("^/+|/+$", "");
+
+        if (!baseHost.equals(uri.getHost())) {
+            return uri.getHost() + (path.isEmpty() ? "" : "/" + path);
+        }
+        if (path.isEmpty()) {
+            return "start";
+        }
+        var slash = path.indexOf('/');
+        return slash < 0 ? path : path.substring(0, slash);
+    }
+
+    /**
+     * All budgets the given test has exceeded, one line each.
+     */
+    public List<String> violations(String test) {
+        var violations = new ArrayList<String>();
+        for (var visit : visits) {
+            if (!visit.test().equals(test)) {
+                continue;
+            }
+            for (var metric : visit.metrics().entrySet()) {
+                var limit = budgets.get(visit.page() + "." + metric.getKey());
+                if (limit == null) {
+                    limit = budgets.get("*." + metric.getKey());
+                }
+                if (limit != null && metric.getValue() > limit) {
+                    violations.add(String.format("%s: %s is %.2f, budget %.2f (%s)",
+                            visit.page(), metric.getKey(), metric.getValue(), limit, visit.url()));
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * The bytes transferred by all pages the given test has visited.
+     */
+    public double bytes(String test) {
+        return visits.stream()
+                .filter(visit -> visit.test().equals(test))
+                .mapToDouble(visit -> visit.metrics().getOrDefault("bytes", 0.0))
+                .sum();
+    }
+
+    /**
+     * Writes all visits of this run to {@code <timestamp>.json} in a directory.
+     */
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        var name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        var json = new JSONArray();
+        for (var visit : visits) {
+            json.put(new JSONObject()
+                    .put("test", visit.test())
+                    .put("page", visit.page())
+                    .put("url", visit.url())
+                    .put("softNavigation", visit.softNavigation())
+                    .put("metrics", new JSONObject(visit.metrics()))
+                    .put("resources", visit.resources()));
+        }
+        Files.writeString(directory.resolve(name + ".json"), json.toString(2), StandardCharsets.UTF_8);
+    }
+
+    public record Visit(String test, String page, String url, boolean softNavigation,
+                        Map<String, Double> metrics, JSONArray resources) {
+    }
+
+    private class Listener implements WebDriverListener {
+
+        private final WebDriver driver;
+        private String lastUrl;
+        private double lastTimeOrigin = -1;
+        private double lastCollected;
+
+        Listener(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        @Override
+        public void afterGet(WebDriver driver, String url) {
+            collect(false);
+        }
+
+        @Override
+        public void afterClick(WebElement element) {
+            // Only clicks that take us somewhere else are interesting
+            collect(true);
+        }
+
+        @Override
+        public void afterBack(WebDriver.Navigation navigation) {
+            collect(true);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void collect(boolean onlyIfMoved) {
+            // Metrics are only interesting for the tests, not for the pool preparing browsers
+            var test = CommandTimer.currentTest();
+            if (test.equals("(pool)")) {
+                return;
+            }
+
+            try {
+                var url = driver.getCurrentUrl();
+                if (onlyIfMoved && url.equals(lastUrl)) {
+                    return;
+                }
+
+                var result = (Map<String, Object>) ((JavascriptExecutor) driver)
+                        .executeScript(collectScript, lastCollected, lastTimeOrigin);
+                var timeOrigin = number(result.get("timeOrigin"));
+
+                // Client side routing keeps the document, so there are no new navigation timings, only resources
+                var soft = timeOrigin != null && timeOrigin == lastTimeOrigin;
+
+                var metrics = new LinkedHashMap<String, Double>();
+                if (!soft) {
+                    put(metrics, "ttfb", result.get("ttfb"));
+                    put(metrics, "domContentLoaded", result.get("domContentLoaded"));
+                    put(metrics, "load", result.get("load"));
+                    put(metrics, "lcp", result.get("lcp"));
+                    put(metrics, "cls", result.get("cls"));
+                }
+                put(metrics, "bytes", result.get("bytes"));
+
+                var resources = new JSONArray((List<Object>) result.get("resources"));
+                visits.add(new Visit(test, pageOf(url), url, soft, metrics, resources));
+
+                var now = number(result.get("now"));
+                lastUrl = url;
+                lastTimeOrigin = timeOrigin == null ? -1 : timeOrigin;
+                lastCollected = now == null ? 0 : now;
+            } catch (WebDriverException e) {
+                // The page went away under our feet. Missing one sample is fine.
+            }
+        }
+
+        private static void put(Map<String, Double> metrics, String name, Object value) {
+            var number = number(value);
+            if (number != null) {
+                metrics.put(name, number);
+            }
+        }
+
+        private static Double number(Object value) {
+            return value instanceof Number number ? number.doubleValue() : null;
+        }
+    }
+}
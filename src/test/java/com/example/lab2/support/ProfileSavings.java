@@ -0,0 +1,106 @@
+package com.example.lab2.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * What blocking downloads saves, per test.
+ * <p>
+ * Blocked requests never reach the network, so there is nothing to measure them by. Instead, every
+ * test that runs with a profile that blocks nothing leaves its bytes and time as a baseline, and every
+ * test that runs with blocking is compared to its baseline. A baseline is made with
+ * {@code -Dsvtplay.profile=full}. Baselines are kept in {@code test-history/profile-baseline.properties}
+ * unless {@code -Dsvtplay.profile.baseline} says otherwise.
+ */
+public class ProfileSavings {
+
+    private final Path file;
+    private final Properties baseline = new Properties();
+    private final Map<String, Saving> savings = new TreeMap<>();
+    private boolean dirty;
+
+    public ProfileSavings(Path file) {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                baseline.load(in);
+            } catch (IOException | IllegalArgumentException e) {
+                // Start over, baselines are made again by the next full run
+                baseline.clear();
+            }
+        }
+    }
+
+    public static ProfileSavings create() {
+        return new ProfileSavings(Path.of(System.getProperty("svtplay.profile.baseline",
+                "test-history/profile-baseline.properties")));
+    }
+
+    /**
+     * Records a finished test.
+     *
+     * @param bytes the bytes the test downloaded, see {@link PageMetrics#bytes(String)}
+     */
+    public synchronized void record(String test, BrowserProfiles.Profile profile, double bytes, long millis) {
+        if (profile.blocksNothing()) {
+            baseline.setProperty(test + ".bytes", String.valueOf((long) bytes));
+            baseline.setProperty(test + ".millis", String.valueOf(millis));
+            dirty = true;
+            return;
+        }
+
+        var baseBytes = baseline.getProperty(test + ".bytes");
+        var baseMillis = baseline.getProperty(test + ".millis");
+        if (baseBytes != null && baseMillis != null) {
+            savings.put(test, new Saving(profile.name(), Long.parseLong(baseBytes) - (long) bytes,
+                    Long.parseLong(baseMillis) - millis));
+        }
+    }
+
+    /**
+     * The savings of every test compared to its baseline, or an empty string if there is nothing to compare.
+     */
+    public synchronized String report() {
+        if (savings.isEmpty()) {
+            return "";
+        }
+        var builder = new StringBuilder("Saved by blocking downloads, compared to the last run with nothing blocked:");
+        long totalBytes = 0, totalMillis = 0;
+        for (var entry : savings.entrySet()) {
+            var saving = entry.getValue();
+            builder.append(String.format(Locale.ROOT, "%n  %-60s %8.1f kB %8d ms  (%s)",
+                    entry.getKey(), saving.bytes() / 1024.0, saving.millis(), saving.profile()));
+            totalBytes += saving.bytes();
+            totalMillis += saving.millis();
+        }
+        builder.append(String.format(Locale.ROOT, "%n  %-60s %8.1f kB %8d ms", "Total", totalBytes / 1024.0, totalMillis));
+        return builder.toString();
+    }
+
+    /**
+     * Writes the baselines back to disk if a test made a new one.
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            baseline.store(out, "Bytes and time of each test with nothing blocked");
+        }
+        dirty = false;
+    }
+
+    public record Saving(String profile, long bytes, long millis) {
+    }
+}
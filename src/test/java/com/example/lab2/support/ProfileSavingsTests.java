@@ -0,0 +1,77 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Makes baselines with a profile that blocks nothing, then compares blocked runs to them.
+ */
+class ProfileSavingsTests {
+
+    private static final BrowserProfiles.Profile full = new BrowserProfiles.Profile("full", List.of());
+    private static final BrowserProfiles.Profile lean = new BrowserProfiles.Profile("lean", List.of("*.png"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void comparesBlockedRunsToTheSavedBaseline() throws IOException {
+        var file = directory.resolve("profile-baseline.properties");
+        var fullRun = new ProfileSavings(file);
+        fullRun.record("SvtPlayTests#a", full, 300 * 1024.0, 2000);
+        fullRun.record("SvtPlayTests#b", full, 50 * 1024.0, 800);
+        Assertions.assertEquals("", fullRun.report());
+        fullRun.save();
+
+        var leanRun = new ProfileSavings(file);
+        leanRun.record("SvtPlayTests#a", lean, 100 * 1024.0, 1500);
+        leanRun.record("SvtPlayTests#b", lean, 60 * 1024.0, 900);
+        leanRun.record("SvtPlayTests#c", lean, 10 * 1024.0, 100);
+
+        var lines = leanRun.report().lines().toList();
+        Assertions.assertEquals(4, lines.size(), leanRun.report());
+        Assertions.assertTrue(lines.get(1).matches("\\s+SvtPlayTests#a\\s+200\\.0 kB\\s+500 ms\\s+\\(lean\\)"), lines.get(1));
+        Assertions.assertTrue(lines.get(2).matches("\\s+SvtPlayTests#b\\s+-10\\.0 kB\\s+-100 ms\\s+\\(lean\\)"), lines.get(2));
+        Assertions.assertTrue(lines.get(3).matches("\\s+Total\\s+190\\.0 kB\\s+400 ms"), lines.get(3));
+    }
+
+    @Test
+    void aNewBaselineReplacesTheOldOne() throws IOException {
+        var file = directory.resolve("profile-baseline.properties");
+        var savings = new ProfileSavings(file);
+        savings.record("SvtPlayTests#a", full, 300 * 1024.0, 2000);
+        savings.record("SvtPlayTests#a", full, 200 * 1024.0, 1000);
+        savings.record("SvtPlayTests#a", lean, 100 * 1024.0, 600);
+
+        Assertions.assertTrue(savings.report().contains("100.0 kB      400 ms"), savings.report());
+    }
+
+    @Test
+    void savesOnlyWhenThereIsANewBaseline() throws IOException {
+        var file = directory.resolve("history").resolve("profile-baseline.properties");
+        var savings = new ProfileSavings(file);
+        savings.record("SvtPlayTests#a", lean, 100 * 1024.0, 600);
+        savings.save();
+        Assertions.assertFalse(Files.exists(file));
+
+        savings.record("SvtPlayTests#a", full, 300 * 1024.0, 2000);
+        savings.save();
+        Assertions.assertTrue(Files.readString(file).contains("SvtPlayTests\\#a.bytes=307200"), Files.readString(file));
+    }
+
+    @Test
+    void startsOverFromAnUnreadableFile() throws IOException {
+        var file = directory.resolve("profile-baseline.properties");
+        Files.writeString(file, "SvtPlayTests#a.bytes=\\u12");
+
+        var savings = new ProfileSavings(file);
+        savings.record("SvtPlayTests#a", lean, 100 * 1024.0, 600);
+        Assertions.assertEquals("", savings.report());
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.lab2.support;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The cookies, LocalStorage and window size of a browser session at a given point in time.
+ * <p>
+ * The consent dialog takes several seconds to deal with, so it is only done once. The resulting
+ * state, e.g. the {@code cookie-consent-1} cookie and the {@code redux} LocalStorage entry,
+ * is captured, saved to disk and injected into every new browser instead.
+ * The same snapshot is used to reset a browser between tests without restarting it.
+ */
+public class SessionSnapshot {
+
+    // Cookies can only be set for the page the browser is on, so we need a cheap page on the site first
+    private static final String landingPath = "robots.txt";
+
+    private final String baseUrl;
+    private final List<Cookie> cookies;
+    private final Map<String, String> localStorage;
+    private final Dimension windowSize;
+
+    public SessionSnapshot(String baseUrl, List<Cookie> cookies, Map<String, String> localStorage, Dimension windowSize) {
+        this.baseUrl = baseUrl;
+        this.cookies = List.copyOf(cookies);
+        this.localStorage = Map.copyOf(localStorage);
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Captures the state of a browser that is currently showing the site.
+     */
+    @SuppressWarnings("unchecked")
+    public static SessionSnapshot capture(WebDriver driver, String baseUrl) {
+        var entries = (Map<String, Object>) ((JavascriptExecutor) driver)
+                .executeScript("return Object.assign({}, window.localStorage);");
+
+        var localStorage = new LinkedHashMap<String, String>();
+        entries.forEach((key, value) -> localStorage.put(key, String.valueOf(value)));
+
+        return new SessionSnapshot(baseUrl, new ArrayList<>(driver.manage().getCookies()), localStorage,
+                driver.manage().window().getSize());
+    }
+
+    /**
+     * Injects the snapshot into a browser and leaves it on the start page.
+     */
+    public void apply(WebDriver driver) {
+        driver.get(baseUrl + landingPath);
+        restore(driver);
+    }
+
+    /**
+     * Throws away all state the browser has picked up and restores the snapshot.
+     * This is a lot faster than starting a new browser.
+     */
+    public void reset(WebDriver driver) {
+        // Make sure we are on the site, otherwise the storage can't be reached
+        if (!driver.getCurrentUrl().startsWith(baseUrl)) {
+            driver.get(baseUrl + landingPath);
+        }
+
+        driver.manage().deleteAllCookies();
+        ((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+        restore(driver);
+    }
+
+    private void restore(WebDriver driver) {
+        var options = driver.manage();
+        cookies.forEach(options::addCookie);
+
+        for (var entry : localStorage.entrySet()) {
+            ((JavascriptExecutor) driver).executeScript("window.localStorage.setItem(arguments[0], arguments[1]);",
+                    entry.getKey(), entry.getValue());
+        }
+
+        if (windowSize != null && !windowSize.equals(options.window().getSize())) {
+            options.window().setSize(windowSize);
+        }
+
+        driver.get(baseUrl);
+    }
+
+    /**
+     * True if all cookies are still valid and the snapshot was taken on the given site.
+     */
+    public boolean isUsableFor(String baseUrl) {
+        var now = new Date();
+        return this.baseUrl.equals(baseUrl)
+                && cookies.stream().allMatch(cookie -> cookie.getExpiry() == null || cookie.getExpiry().after(now));
+    }
+
+    public void save(Path file) throws IOException {
+        var json = new JSONObject();
+        json.put("baseUrl", baseUrl);
+
+        var cookieArray = new JSONArray();
+        for (var cookie : cookies) {
+            var cookieJson = new JSONObject();
+            cookieJson.put("name", cookie.getName());
+            cookieJson.put("value", cookie.getValue());
+            cookieJson.put("domain", cookie.getDomain());
+            cookieJson.put("path", cookie.getPath());
+            cookieJson.put("secure", cookie.isSecure());
+            cookieJson.put("httpOnly", cookie.isHttpOnly());
+            if (cookie.getExpiry() != null) {
+                cookieJson.put("expiry", cookie.getExpiry().getTime());
+            }
+            if (cookie.getSameSite() != null) {
+                cookieJson.put("sameSite", cookie.getSameSite());
+            }
+            cookieArray.put(cookieJson);
+        }
+        json.put("cookies", cookieArray);
+        json.put("localStorage", new JSONObject(localStorage));
+
+        if (windowSize != null) {
+            json.put("window", new JSONObject().put("width", windowSize.getWidth()).put("height", windowSize.getHeight()));
+        }
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.writeString(file, json.toString(2), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Loads a saved snapshot. Returns empty if there is none or it can't be read.
+     */
+    public static Optional<SessionSnapshot> load(Path file) {
+        if (!Files.isReadable(file)) {
+            return Optional.empty();
+        }
+
+        try {
+            var json = new JSONObject(Files.readString(file, StandardCharsets.UTF_8));
+
+            var cookies = new ArrayList<Cookie>();
+            var cookieArray = json.getJSONArray("cookies");
+            for (int i = 0; i < cookieArray.length(); i++) {
+                var cookieJson = cookieArray.getJSONObject(i);
+                var builder = new Cookie.Builder(cookieJson.getString("name"), cookieJson.getString("value"))
+                        .domain(cookieJson.optString("domain", null))
+                        .path(cookieJson.optString("path", "/"))
+                        .isSecure(cookieJson.optBoolean("secure"))
+                        .isHttpOnly(cookieJson.optBoolean("httpOnly"));
+                if (cookieJson.has("expiry")) {
+                    builder.expiresOn(new Date(cookieJson.getLong("expiry")));
+                }
+                if (cookieJson.has("sameSite")) {
+                    builder.sameSite(cookieJson.getString("sameSite"));
+                }
+                cookies.add(builder.build());
+            }
+
+            var localStorage = new LinkedHashMap<String, String>();
+            var storageJson = json.getJSONObject("localStorage");
+            for (var key : storageJson.keySet()) {
+                localStorage.put(key, storageJson.getString(key));
+            }
+
+            Dimension windowSize = null;
+            var window = json.optJSONObject("window");
+            if (window != null) {
+                windowSize = new Dimension(window.getInt("width"), window.getInt("height"));
+            }
+
+            return Optional.of(new SessionSnapshot(json.getString("baseUrl"), cookies, localStorage, windowSize));
+        } catch (IOException | JSONException e) {
+            // A broken snapshot is simply recreated
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Runs only the tests of one shard when the suite is spread over several workers.
+ * <p>
+ * Enabled with {@code -Dsvtplay.shard=<index>} and {@code -Dsvtplay.shards=<count>}. Tests are
+ * assigned by the plan in {@code -Dsvtplay.shard.plan=<file>} made by {@link ShardPlanner}.
+ * Tests that aren't in the plan, or all of them if there is no plan, are assigned by a hash of
+ * their name, which gives every worker the same answer without any coordination.
+ * Tests of other shards are reported as skipped, which {@link ShardMerger} knows to ignore.
+ * A class with no tests in this shard is skipped as a whole, before its {@code @BeforeAll}
+ * methods start anything, e.g. a pool of browsers.
+ */
+public class ShardFilter implements ExecutionCondition {
+
+    private static Map<String, Integer> plan;
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        var shard = Integer.getInteger("svtplay.shard");
+        var shards = Integer.getInteger("svtplay.shards");
+        if (shard == null || shards == null || context.getTestClass().isEmpty()) {
+            return ConditionEvaluationResult.enabled("Not sharded");
+        }
+
+        if (context.getTestMethod().isEmpty()) {
+            var any = ShardPlanner.testsOf(context.getRequiredTestClass()).stream()
+                    .anyMatch(test -> shardOf(test, shards) == shard);
+            return any
+                    ? ConditionEvaluationResult.enabled("Has tests in shard " + shard)
+                    : ConditionEvaluationResult.disabled("No tests in shard " + shard + " of " + shards);
+        }
+
+        var test = context.getRequiredTestClass().getName() + "#" + context.getTestMethod().map(Method::getName).get();
+        var assigned = shardOf(test, shards);
+        return assigned == shard
+                ? ConditionEvaluationResult.enabled("In shard " + shard)
+                : ConditionEvaluationResult.disabled("In shard " + assigned + " of " + shards);
+    }
+
+    static int shardOf(String test, int shards) {
+        var planned = plan().get(test);
+        if (planned != null && planned < shards) {
+            return planned;
+        }
+        return Math.floorMod(test.hashCode(), shards);
+    }
+
+    private static synchronized Map<String, Integer> plan() {
+        if (plan == null) {
+            var file = System.getProperty("svtplay.shard.plan");
+            try {
+                plan = file == null ? Map.of() : ShardPlanner.read(Path.of(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the shard plan " + file, e);
+            }
+        }
+        return plan;
+    }
+}
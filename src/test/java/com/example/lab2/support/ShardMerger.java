@@ -0,0 +1,187 @@
+package com.example.lab2.support;
+
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Combines the results of a sharded run into what a single run would have produced.
+ * <p>
+ * Each shard directory is expected to hold the {@code surefire-reports} and {@code command-timings}
+ * of one worker, i.e. its {@code target} directory. The JUnit reports are merged per test class,
+ * keeping the result of the shard that actually ran each test. A class that a shard skipped as a whole
+ * is only reported as skipped if no other shard ran any of it. The command timing CSVs are
+ * concatenated with a shard column in front. The time of each shard is printed, to show how
+ * well the plan balanced the work.
+ * <pre>
+ * java -cp target/test-classes:... com.example.lab2.support.ShardMerger \
+ *     target/merged worker-0/target worker-1/target worker-2/target
+ * </pre>
+ * The merged {@code surefire-reports} can be given to {@link ShardPlanner} for the next run.
+ */
+public final class ShardMerger {
+
+    private ShardMerger() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardMerger <output dir> <shard dir>...");
+            System.exit(2);
+        }
+        var output = Path.of(args[0]);
+        var shards = new ArrayList<Path>();
+        for (var i = 1; i < args.length; i++) {
+            shards.add(Path.of(args[i]));
+        }
+
+        var times = mergeReports(shards, output.resolve("surefire-reports"));
+        mergeTimings(shards, output.resolve("command-timings"));
+
+        for (var i = 0; i < shards.size(); i++) {
+            System.out.printf(Locale.ROOT, "Shard %d (%s): %.1f s%n", i, shards.get(i), times[i]);
+        }
+    }
+
+    /**
+     * Merges the JUnit reports of all shards, one report per test class.
+     *
+     * @return the time spent in the tests each shard ran, in seconds
+     */
+    public static double[] mergeReports(List<Path> shards, Path output) throws IOException {
+        // Test class -> test -> the best result so far
+        var classes = new TreeMap<String, Map<String, Element>>();
+        // Test class -> the report of a shard that skipped the class as a whole
+        var skippedClasses = new TreeMap<String, Element>();
+        var times = new double[shards.size()];
+
+        for (var i = 0; i < shards.size(); i++) {
+            var reports = shards.get(i).resolve("surefire-reports");
+            if (!Files.isDirectory(reports)) {
+                continue;
+            }
+            try (var files = Files.list(reports)) {
+                for (var file : files.filter(ShardPlanner::isReport).sorted().toList()) {
+                    for (var testCase : ShardPlanner.testCases(file)) {
+                        var ran = !isSkipped(testCase);
+                        if (ran) {
+                            times[i] += ShardPlanner.parseTime(testCase.getAttribute("time"));
+                        }
+
+                        var className = testCase.getAttribute("classname");
+                        var name = testCase.getAttribute("name");
+                        if (!ran && name.equals(className)) {
+                            skippedClasses.putIfAbsent(className, testCase);
+                            continue;
+                        }
+
+                        var tests = classes.computeIfAbsent(className, key -> new LinkedHashMap<>());
+                        var current = tests.get(name);
+                        if (current == null || (ran && isSkipped(current))) {
+                            tests.put(name, testCase);
+                        }
+                    }
+                }
+            }
+        }
+
+        skippedClasses.forEach((className, testCase) -> classes.computeIfAbsent(className,
+                key -> new LinkedHashMap<>(Map.of(className, testCase))));
+
+        Files.createDirectories(output);
+        for (var testClass : classes.entrySet()) {
+            write(testClass.getKey(), testClass.getValue().values(), output.resolve("TEST-" + testClass.getKey() + ".xml"));
+        }
+        return times;
+    }
+
+    private static void write(String className, Iterable<Element> testCases, Path file) throws IOException {
+        try {
+            var document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            var suite = document.createElement("testsuite");
+            document.appendChild(suite);
+
+            int tests = 0, failures = 0, errors = 0, skipped = 0;
+            double time = 0;
+            for (var testCase : testCases) {
+                suite.appendChild(document.importNode(testCase, true));
+                tests++;
+                failures += testCase.getElementsByTagName("failure").getLength() > 0 ? 1 : 0;
+                errors += testCase.getElementsByTagName("error").getLength() > 0 ? 1 : 0;
+                skipped += isSkipped(testCase) ? 1 : 0;
+                time += ShardPlanner.parseTime(testCase.getAttribute("time"));
+            }
+            suite.setAttribute("name", className);
+            suite.setAttribute("tests", String.valueOf(tests));
+            suite.setAttribute("failures", String.valueOf(failures));
+            suite.setAttribute("errors", String.valueOf(errors));
+            suite.setAttribute("skipped", String.valueOf(skipped));
+            suite.setAttribute("time", String.format(Locale.ROOT, "%.3f", time));
+
+            var transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformer.transform(new DOMSource(document), new StreamResult(file.toFile()));
+        } catch (ParserConfigurationException | TransformerException e) {
+            throw new IOException("Could not write " + file, e);
+        }
+    }
+
+    private static boolean isSkipped(Element testCase) {
+        return testCase.getElementsByTagName("skipped").getLength() > 0;
+    }
+
+    /**
+     * Concatenates the latest command timing CSV of every shard, with the shard index as first column.
+     */
+    public static void mergeTimings(List<Path> shards, Path output) throws IOException {
+        var merged = new StringBuilder();
+        for (var i = 0; i < shards.size(); i++) {
+            var latest = latestCsv(shards.get(i).resolve("command-timings"));
+            if (latest == null) {
+                continue;
+            }
+            var lines = Files.readAllLines(latest, StandardCharsets.UTF_8);
+            if (lines.isEmpty()) {
+                continue;
+            }
+            if (merged.length() == 0) {
+                merged.append("shard,").append(lines.get(0)).append('\n');
+            }
+            for (var line : lines.subList(1, lines.size())) {
+                merged.append(i).append(',').append(line).append('\n');
+            }
+        }
+
+        Files.createDirectories(output);
+        Files.writeString(output.resolve("merged.csv"), merged, StandardCharsets.UTF_8);
+    }
+
+    private static Path latestCsv(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        // The names are timestamps, so the last one is the latest
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".csv"))
+                    .max(Path::compareTo)
+                    .orElse(null);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merges the output of two workers that each ran half of a class and skipped the rest.
+ * Of two more classes, one is skipped as a whole by one worker, the other by both.
+ */
+class ShardMergerTests {
+
+    @TempDir
+    Path directory;
+
+    private Path shard(String name, String testCases, String otherTestCases, String timings) throws IOException {
+        var target = directory.resolve(name);
+        Files.createDirectories(target.resolve("surefire-reports"));
+        Files.writeString(target.resolve("surefire-reports/TEST-T.xml"),
+                "<testsuite name=\"T\">\n" + testCases + "</testsuite>\n");
+        Files.writeString(target.resolve("surefire-reports/TEST-U.xml"),
+                "<testsuite name=\"U\">\n" + otherTestCases + "</testsuite>\n");
+        // A class with no tests in any shard
+        Files.writeString(target.resolve("surefire-reports/TEST-V.xml"), """
+                <testsuite name="V">
+                <testcase name="V" classname="V" time="0"><skipped message="No tests in shard"/></testcase>
+                </testsuite>
+                """);
+        Files.createDirectories(target.resolve("command-timings"));
+        Files.writeString(target.resolve("command-timings/20230320-100000.csv"), "test,command\nold,get\n");
+        Files.writeString(target.resolve("command-timings/20230320-120000.csv"), "test,command\n" + timings);
+        return target;
+    }
+
+    @Test
+    void keepsTheResultOfTheShardThatRanEachTest() throws IOException {
+        var first = shard("worker-0", """
+                <testcase name="a" classname="T" time="2.0"/>
+                <testcase name="b" classname="T" time="0"><skipped message="In shard 1 of 2"/></testcase>
+                <testcase name="c" classname="T" time="1.5"><failure message="boom"/></testcase>
+                """, """
+                <testcase name="U" classname="U" time="0"><skipped message="No tests in shard 0 of 2"/></testcase>
+                """, "a,get\n");
+        var second = shard("worker-1", """
+                <testcase name="a" classname="T" time="0"><skipped message="In shard 0 of 2"/></testcase>
+                <testcase name="b" classname="T" time="4.0"/>
+                <testcase name="c" classname="T" time="0"><skipped message="In shard 0 of 2"/></testcase>
+                """, """
+                <testcase name="x" classname="U" time="0.5"/>
+                """, "b,click\nb,get\n");
+        var output = directory.resolve("merged");
+
+        var times = ShardMerger.mergeReports(List.of(first, second), output.resolve("surefire-reports"));
+
+        Assertions.assertArrayEquals(new double[] {3.5, 4.5}, times);
+
+        var merged = ShardPlanner.testCases(output.resolve("surefire-reports/TEST-T.xml"));
+        var results = new TreeMap<String, String>();
+        for (var testCase : merged) {
+            var outcome = testCase.getElementsByTagName("failure").getLength() > 0 ? "failed"
+                    : testCase.getElementsByTagName("skipped").getLength() > 0 ? "skipped" : "passed";
+            results.put(testCase.getAttribute("name") + " " + testCase.getAttribute("time"), outcome);
+        }
+        Assertions.assertEquals(Map.of("a 2.0", "passed", "b 4.0", "passed", "c 1.5", "failed"), results);
+
+        var suite = Files.readString(output.resolve("surefire-reports/TEST-T.xml"), StandardCharsets.UTF_8);
+        Assertions.assertTrue(suite.contains("tests=\"3\""), suite);
+        Assertions.assertTrue(suite.contains("failures=\"1\""), suite);
+        Assertions.assertTrue(suite.contains("skipped=\"0\""), suite);
+
+        // Skipping a class as a whole doesn't leave a test behind, unless no shard ran any of it
+        Assertions.assertEquals(List.of("x"), ShardPlanner.testCases(output.resolve("surefire-reports/TEST-U.xml"))
+                .stream().map(testCase -> testCase.getAttribute("name")).toList());
+        var skipped = Files.readString(output.resolve("surefire-reports/TEST-V.xml"), StandardCharsets.UTF_8);
+        Assertions.assertTrue(skipped.contains("skipped=\"1\""), skipped);
+
+        ShardMerger.mergeTimings(List.of(first, second), output.resolve("command-timings"));
+        Assertions.assertEquals("shard,test,command\n0,a,get\n1,b,click\n1,b,get\n",
+                Files.readString(output.resolve("command-timings/merged.csv"), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestTemplate;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Splits the tests across a number of workers so that they all take about as long.
+ * <p>
+ * Durations come from earlier JUnit reports, e.g. a previous {@code target/surefire-reports} or the
+ * output of {@link ShardMerger}. Tests are handed out longest first, each to the shard with the least
+ * work so far. Tests without history are assumed to take as long as the median test. A parameterized
+ * test is planned as a whole, taking as long as all its invocations together.
+ * <p>
+ * The plan is written as {@code <class>#<method>=<shard>} and read back by {@link ShardFilter}
+ * on each worker:
+ * <pre>
+ * java -cp target/test-classes:... com.example.lab2.support.ShardPlanner \
+ *     target/surefire-reports 3 target/shards.properties com.example.lab2.SvtPlayTests
+ * </pre>
+ */
+public final class ShardPlanner {
+
+    private ShardPlanner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: ShardPlanner <reports dir> <shards> <plan file> <test class>...");
+            System.exit(2);
+        }
+        var shards = Integer.parseInt(args[1]);
+        var tests = new ArrayList<String>();
+        for (var className : Arrays.copyOfRange(args, 3, args.length)) {
+            tests.addAll(testsOf(Class.forName(className, false, ShardPlanner.class.getClassLoader())));
+        }
+
+        var durations = durations(Path.of(args[0]));
+        var plan = plan(tests, durations, shards);
+        write(plan, Path.of(args[2]));
+
+        var loads = loads(plan, durations, shards);
+        for (var shard = 0; shard < shards; shard++) {
+            System.out.printf(Locale.ROOT, "Shard %d: %.1f s%n", shard, loads[shard]);
+        }
+    }
+
+    /**
+     * The {@code <class>#<method>} of every test in a class: {@code @Test}, {@code @TestFactory}
+     * and test templates such as {@code @ParameterizedTest} and {@code @RepeatedTest}.
+     */
+    public static List<String> testsOf(Class<?> testClass) {
+        return Arrays.stream(testClass.getDeclaredMethods())
+                .filter(method -> AnnotationSupport.isAnnotated(method, Test.class)
+                        || AnnotationSupport.isAnnotated(method, TestTemplate.class)
+                        || AnnotationSupport.isAnnotated(method, TestFactory.class))
+                .map(Method::getName)
+                .sorted()
+                .map(name -> testClass.getName() + "#" + name)
+                .toList();
+    }
+
+    /**
+     * Assigns every test to a shard, 0 to shards - 1.
+     */
+    public static Map<String, Integer> plan(List<String> tests, Map<String, Double> durations, int shards) {
+        var fallback = median(tests, durations);
+
+        // Longest first; ties are broken by name so that every worker comes up with the same plan
+        var ordered = new ArrayList<>(tests);
+        ordered.sort(Comparator.<String>comparingDouble(test -> durations.getOrDefault(test, fallback))
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        var queue = new PriorityQueue<double[]>(Comparator.<double[]>comparingDouble(shard -> shard[1])
+                .thenComparingDouble(shard -> shard[0]));
+        for (var shard = 0; shard < shards; shard++) {
+            queue.add(new double[] {shard, 0});
+        }
+
+        var plan = new TreeMap<String, Integer>();
+        for (var test : ordered) {
+            var lightest = queue.poll();
+            plan.put(test, (int) lightest[0]);
+            lightest[1] += durations.getOrDefault(test, fallback);
+            queue.add(lightest);
+        }
+        return plan;
+    }
+
+    /**
+     * The expected time of each shard in a plan, in seconds.
+     */
+    public static double[] loads(Map<String, Integer> plan, Map<String, Double> durations, int shards) {
+        var fallback = median(plan.keySet(), durations);
+        var loads = new double[shards];
+        plan.forEach((test, shard) -> loads[shard] += durations.getOrDefault(test, fallback));
+        return loads;
+    }
+
+    /**
+     * The time of every test method in the JUnit XML reports in a directory, by {@code <class>#<method>}.
+     * The invocations of a parameterized test are added up. Skipped tests don't count, they say nothing
+     * about how long a test takes.
+     */
+    public static Map<String, Double> durations(Path reports) throws IOException {
+        var durations = new HashMap<String, Double>();
+        if (!Files.isDirectory(reports)) {
+            return durations;
+        }
+        try (var files = Files.list(reports)) {
+            for (var file : files.filter(ShardPlanner::isReport).toList()) {
+                for (var testCase : testCases(file)) {
+                    if (testCase.getElementsByTagName("skipped").getLength() == 0) {
+                        durations.merge(key(testCase), parseTime(testCase.getAttribute("time")), Double::sum);
+                    }
+                }
+            }
+        }
+        return durations;
+    }
+
+    static boolean isReport(Path file) {
+        var name = file.getFileName().toString();
+        return name.startsWith("TEST-") && name.endsWith(".xml");
+    }
+
+    static List<Element> testCases(Path report) throws IOException {
+        try {
+            var factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            var document = factory.newDocumentBuilder().parse(report.toFile());
+
+            var nodes = document.getElementsByTagName("testcase");
+            var testCases = new ArrayList<Element>(nodes.getLength());
+            for (var i = 0; i < nodes.getLength(); i++) {
+                testCases.add((Element) nodes.item(i));
+            }
+            return testCases;
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Could not read " + report, e);
+        }
+    }
+
+    static String key(Element testCase) {
+        // Surefire names invocations e.g. "verifyLayout{String, String, int}[1]"
+        var name = testCase.getAttribute("name");
+        var end = 0;
+        while (end < name.length() && Character.isJavaIdentifierPart(name.charAt(end))) {
+            end++;
+        }
+        return testCase.getAttribute("classname") + "#" + (end > 0 ? name.substring(0, end) : name);
+    }
+
+    static double parseTime(String time) {
+        try {
+            // Surefire writes e.g. "1,234.5" for long tests
+            return time.isEmpty() ? 0 : Double.parseDouble(time.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public static void write(Map<String, Integer> plan, Path file) throws IOException {
+        var properties = new Properties();
+        plan.forEach((test, shard) -> properties.setProperty(test, String.valueOf(shard)));
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(out, "Test to shard, made by ShardPlanner");
+        }
+    }
+
+    public static Map<String, Integer> read(Path file) throws IOException {
+        var properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        }
+        var plan = new HashMap<String, Integer>();
+        properties.stringPropertyNames().forEach(test -> plan.put(test, Integer.parseInt(properties.getProperty(test))));
+        return plan;
+    }
+
+    private static double median(Iterable<String> tests, Map<String, Double> durations) {
+        var known = new ArrayList<Double>();
+        tests.forEach(test -> {
+            if (durations.containsKey(test)) {
+                known.add(durations.get(test));
+            }
+        });
+        if (known.isEmpty()) {
+            return 1;
+        }
+        known.sort(Comparator.naturalOrder());
+        return known.get(known.size() / 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.lab2.support;
+
+import com.example.lab2.SvtPlayTests;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans shards from fixed timings, and reads the timings from reports like surefire writes them.
+ */
+class ShardPlannerTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void handsOutTheLongestTestsFirst() {
+        var durations = Map.of("T#a", 5.0, "T#b", 4.0, "T#c", 3.0, "T#d", 2.0, "T#e", 1.0);
+        var plan = ShardPlanner.plan(List.of("T#e", "T#d", "T#c", "T#b", "T#a"), durations, 2);
+
+        // a and b start a shard each, c and d even them out, e goes to the first of two equal shards
+        Assertions.assertEquals(Map.of("T#a", 0, "T#b", 1, "T#c", 1, "T#d", 0, "T#e", 0), plan);
+        Assertions.assertArrayEquals(new double[] {8, 7}, ShardPlanner.loads(plan, durations, 2));
+    }
+
+    @Test
+    void assumesTheMedianForTestsWithoutHistory() {
+        var durations = Map.of("T#a", 10.0, "T#b", 2.0, "T#c", 1.0);
+        var plan = ShardPlanner.plan(List.of("T#a", "T#b", "T#c", "T#new"), durations, 2);
+
+        Assertions.assertEquals(0, plan.get("T#a"));
+        Assertions.assertArrayEquals(new double[] {10, 5}, ShardPlanner.loads(plan, durations, 2));
+    }
+
+    @Test
+    void findsEveryKindOfTest() {
+        var tests = ShardPlanner.testsOf(SvtPlayTests.class);
+
+        Assertions.assertTrue(tests.contains("com.example.lab2.SvtPlayTests#verifyLayout"), tests.toString());
+        Assertions.assertTrue(tests.contains("com.example.lab2.SvtPlayTests#isTitleCorrect"), tests.toString());
+        Assertions.assertFalse(tests.contains("com.example.lab2.SvtPlayTests#leaseBrowser"), tests.toString());
+    }
+
+    @Test
+    void addsUpTheInvocationsOfParameterizedTests() throws IOException {
+        Files.writeString(directory.resolve("TEST-T.xml"), """
+                <testsuite name="T" tests="4">
+                  <testcase name="layout{String, int}[1]" classname="T" time="1.5"/>
+                  <testcase name="layout{String, int}[2]" classname="T" time="2.5"/>
+                  <testcase name="title" classname="T" time="1,000.25"/>
+                  <testcase name="other" classname="T" time="9"><skipped/></testcase>
+                </testsuite>
+                """);
+        Files.writeString(directory.resolve("ignored.xml"), "<testsuite/>");
+
+        Assertions.assertEquals(Map.of("T#layout", 4.0, "T#title", 1000.25), ShardPlanner.durations(directory));
+    }
+
+    @Test
+    void writesAPlanThatReadsBack() throws IOException {
+        var plan = Map.of("T#a", 0, "T#b", 2);
+        var file = directory.resolve("plans/shards.properties");
+        ShardPlanner.write(plan, file);
+
+        Assertions.assertEquals(plan, ShardPlanner.read(file));
+    }
+}
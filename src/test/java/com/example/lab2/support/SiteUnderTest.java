@@ -0,0 +1,86 @@
+package com.example.lab2.support;
+
+import com.example.lab2.Lab2Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+
+/**
+ * Knows where the site under test lives.
+ * <p>
+ * By default the tests run against the real SVT Play. The base URL can be changed with
+ * {@code -Dsvtplay.baseUrl=...}, or {@code -Dsvtplay.fixtures=true} can be used to start
+ * {@link Lab2Application} on a random local port and serve recorded snapshots instead.
+ * It runs with the fixtures profile, which serves the stub pages from the test classpath, or the
+ * snapshots at {@code svtplay.fixtures.location} if set.
+ * <p>
+ * {@code -Dsvtplay.proxy=http://localhost:8888} sends all traffic through a running
+ * record and replay proxy (see {@code lab2.proxy.mode}), which acts as the site itself.
+ */
+public final class SiteUnderTest {
+
+    private static final String liveUrl = "https://www.svtplay.se/";
+
+    private static String baseUrl;
+    private static ConfigurableApplicationContext fixtureServer;
+
+    private SiteUnderTest() {
+    }
+
+    /**
+     * The base URL of the site, always ending with a slash.
+     */
+    public static synchronized String baseUrl() {
+        if (baseUrl == null) {
+            if (Boolean.getBoolean("svtplay.fixtures")) {
+                baseUrl = "http://localhost:" + startFixtureServer() + "/";
+            } else if (System.getProperty("svtplay.proxy") != null) {
+                var proxy = System.getProperty("svtplay.proxy");
+                baseUrl = proxy.endsWith("/") ? proxy : proxy + "/";
+            } else {
+                var configured = System.getProperty("svtplay.baseUrl", liveUrl);
+                baseUrl = configured.endsWith("/") ? configured : configured + "/";
+            }
+        }
+        return baseUrl;
+    }
+
+    /**
+     * Resolves a site relative path, e.g. "program", against the base URL.
+     */
+    public static String url(String path) {
+        return baseUrl() + (path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    /**
+     * Whether anything answers on the host and port of the base URL within a few seconds.
+     */
+    public static boolean reachable() {
+        var uri = URI.create(baseUrl());
+        var port = uri.getPort() >= 0 ? uri.getPort() : "https".equals(uri.getScheme()) ? 443 : 80;
+        try (var socket = new Socket()) {
+            socket.connect(new InetSocketAddress(uri.getHost(), port), 3000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int startFixtureServer() {
+        var builder = new SpringApplicationBuilder(Lab2Application.class)
+                .profiles("fixtures")
+                .properties("server.port=0");
+
+        // Passed as an argument, default properties lose against the profile
+        var location = System.getProperty("svtplay.fixtures.location");
+        fixtureServer = location == null ? builder.run() : builder.run("--lab2.snapshots.location=" + location);
+        Runtime.getRuntime().addShutdownHook(new Thread(fixtureServer::close));
+
+        return ((WebServerApplicationContext) fixtureServer).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.lab2.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The duration and outcome of every test run, kept across runs.
+ * <p>
+ * Like the recordings of the proxy, the history is two append-only files. {@code <name>.idx} holds
+ * the name of each test once, its position being the id of the test. {@code <name>.log} holds one
+ * fixed size record per run: test id, time, duration in ms and whether it failed. A new name is
+ * always written before the first record that refers to it. Records that refer to an unknown test
+ * are ignored, and names and records that are cut short are dropped when the history is opened,
+ * so a crash can't corrupt the history.
+ * <p>
+ * Every invocation of a parameterized test is a test of its own here, named after the method and its
+ * display name, see {@link #record(String, long, boolean)}. {@link #methodStats(String)} adds them up
+ * per method.
+ * <p>
+ * The history is kept in {@code test-history/svtplay} unless {@code -Dsvtplay.history} says otherwise.
+ */
+public class TestHistory implements Closeable {
+
+    // How much the latest run counts when estimating the duration of a test
+    private static final double weight = 0.3;
+
+    // How many of the latest runs are looked at for failures
+    private static final int recentRuns = 3;
+
+    // Test id, time, duration and outcome
+    private static final int recordBytes = 4 + 8 + 4 + 1;
+
+    private static TestHistory shared;
+
+    private final DataOutputStream names;
+    private final DataOutputStream log;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<String, Stats> stats = new HashMap<>();
+    // The tests recorded for each method, more than one for a parameterized test
+    private final Map<String, List<String>> testsByMethod = new HashMap<>();
+
+    public TestHistory(Path base) throws IOException {
+        var directory = base.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        var namesFile = base.resolveSibling(base.getFileName() + ".idx");
+        var logFile = base.resolveSibling(base.getFileName() + ".log");
+
+        var byId = new ArrayList<String>();
+        if (Files.exists(namesFile)) {
+            truncate(namesFile, loadNames(namesFile, byId));
+        }
+        if (Files.exists(logFile)) {
+            truncate(logFile, loadLog(logFile, byId));
+        }
+
+        names = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(namesFile.toFile(), true)));
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile.toFile(), true)));
+    }
+
+    /**
+     * The history shared by all tests of this run.
+     */
+    public static synchronized TestHistory shared() {
+        if (shared == null) {
+            try {
+                shared = new TestHistory(Path.of(System.getProperty("svtplay.history", "test-history/svtplay")));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the test history", e);
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * @return the length of the names read, without a half written one at the end
+     */
+    private long loadNames(Path file, List<String> byId) throws IOException {
+        var bytes = Files.readAllBytes(file);
+        var buffer = new ByteArrayInputStream(bytes);
+        var in = new DataInputStream(buffer);
+        long complete = 0;
+        try {
+            while (true) {
+                var name = in.readUTF();
+                ids.put(name, byId.size());
+                byId.add(name);
+                complete = bytes.length - buffer.available();
+            }
+        } catch (EOFException e) {
+            // End of the names, possibly with a half written one at the end
+        }
+        return complete;
+    }
+
+    /**
+     * @return the length of the records read, without a half written one at the end
+     */
+    private long loadLog(Path file, List<String> byId) throws IOException {
+        long records = 0;
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                var id = in.readInt();
+                var time = in.readLong();
+                var millis = in.readInt();
+                var failed = in.readBoolean();
+                records++;
+                if (id >= 0 && id < byId.size()) {
+                    update(byId.get(id), time, millis, failed);
+                }
+            }
+        } catch (EOFException e) {
+            // End of the log
+        }
+        return records * recordBytes;
+    }
+
+    // Otherwise whatever is appended next would be read as the rest of the half written entry
+    private static void truncate(Path file, long length) throws IOException {
+        if (Files.size(file) > length) {
+            try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+        }
+    }
+
+    /**
+     * Adds a run of a test to the history.
+     *
+     * @param test e.g. {@code com.example.lab2.SvtPlayTests#isTitleCorrect}, followed by the display name
+     *             for an invocation of a parameterized test, e.g. {@code ...SvtPlayTests#verifyLayout start at 600 px}
+     */
+    public synchronized void record(String test, long millis, boolean failed) throws IOException {
+        var id = ids.get(test);
+        if (id == null) {
+            id = ids.size();
+            names.writeUTF(test);
+            names.flush();
+            ids.put(test, id);
+        }
+
+        var time = System.currentTimeMillis();
+        log.writeInt(id);
+        log.writeLong(time);
+        log.writeInt((int) Math.min(millis, Integer.MAX_VALUE));
+        log.writeBoolean(failed);
+        log.flush();
+
+        update(test, time, (int) millis, failed);
+    }
+
+    private void update(String test, long time, int millis, boolean failed) {
+        var previous = stats.get(test);
+        if (previous == null) {
+            stats.put(test, new Stats(1, millis, failed, failed ? 1 : 0, failed ? time : 0));
+            testsByMethod.computeIfAbsent(methodOf(test), method -> new ArrayList<>()).add(test);
+            return;
+        }
+
+        // A bit field of the latest runs, 1 for a failure
+        var recent = ((previous.recentFailures() << 1) | (failed ? 1 : 0)) & ((1 << recentRuns) - 1);
+        stats.put(test, new Stats(previous.runs() + 1,
+                weight * millis + (1 - weight) * previous.expectedMillis(),
+                failed, recent, failed ? time : previous.lastFailure()));
+    }
+
+    /**
+     * What is known about a test, or null if it has never run.
+     */
+    public synchronized Stats stats(String test) {
+        return stats.get(test);
+    }
+
+    /**
+     * What is known about all tests of a method, or null if none of them has ever run. The invocations of
+     * a parameterized test are added up: their runs and expected durations are summed, and it counts as
+     * failed if any of them failed.
+     *
+     * @param method e.g. {@code com.example.lab2.SvtPlayTests#verifyLayout}
+     */
+    public synchronized Stats methodStats(String method) {
+        var tests = testsByMethod.get(method);
+        if (tests == null) {
+            return null;
+        }
+        int runs = 0, recentFailures = 0;
+        double expectedMillis = 0;
+        var lastFailed = false;
+        long lastFailure = 0;
+        for (var test : tests) {
+            var each = stats.get(test);
+            runs += each.runs();
+            expectedMillis += each.expectedMillis();
+            lastFailed |= each.lastFailed();
+            recentFailures |= each.recentFailures();
+            lastFailure = Math.max(lastFailure, each.lastFailure());
+        }
+        return new Stats(runs, expectedMillis, lastFailed, recentFailures, lastFailure);
+    }
+
+    /**
+     * The {@code <class>#<method>} part of a test name.
+     */
+    static String methodOf(String test) {
+        var space = test.indexOf(' ');
+        return space < 0 ? test : test.substring(0, space);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        names.close();
+        log.close();
+    }
+
+    /**
+     * @param expectedMillis a moving average of the duration, favouring the latest runs
+     * @param recentFailures one bit per recent run, lowest bit for the latest, set if it failed
+     * @param lastFailure    when the test last failed, 0 if never
+     */
+    public record Stats(int runs, double expectedMillis, boolean lastFailed, int recentFailures, long lastFailure) {
+
+        public boolean failedRecently() {
+            return recentFailures != 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.lang.reflect.Method;
+
+/**
+ * Adds the duration and outcome of every test to the {@link TestHistory}.
+ * <p>
+ * The duration includes the {@code @BeforeEach} and {@code @AfterEach} methods, e.g. waiting for a browser,
+ * since that is also time a worker spends on the test. A failure in either of them counts as a failure.
+ */
+public class TestHistoryExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace namespace = ExtensionContext.Namespace.create(TestHistoryExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        // Closes the history when the whole run is done
+        context.getRoot().getStore(namespace).getOrComputeIfAbsent("history",
+                key -> (ExtensionContext.Store.CloseableResource) () -> TestHistory.shared().close());
+
+        context.getStore(namespace).put("start", System.nanoTime());
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) throws Exception {
+        var start = context.getStore(namespace).remove("start", Long.class);
+        if (start == null) {
+            return;
+        }
+
+        // Invocations of a parameterized test are told apart by their display name
+        var method = context.getTestMethod().map(Method::getName).orElse("?");
+        var test = context.getRequiredTestClass().getName() + "#" + method;
+        if (!context.getDisplayName().startsWith(method + "(")) {
+            test += " " + context.getDisplayName();
+        }
+        var millis = (System.nanoTime() - start) / 1_000_000;
+        TestHistory.shared().record(test, millis, context.getExecutionException().isPresent());
+    }
+}
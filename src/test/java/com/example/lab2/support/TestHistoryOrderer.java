@@ -0,0 +1,80 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.ClassDescriptor;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.ClassOrdererContext;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.MethodOrdererContext;
+import org.junit.jupiter.api.parallel.ExecutionMode;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Runs what is most likely to fail, and what is quickest, first.
+ * <p>
+ * Tests that failed in their latest run go first, then tests that have failed recently or have never run,
+ * then the rest. Within each group the quickest test goes first, so that the slow ones, like the image
+ * check, end up last where they overlap with the rest when running in parallel. Classes are ordered the
+ * same way, by their most urgent test and the total time of their tests. A parameterized test is ordered
+ * by all its invocations together, see {@link TestHistory#methodStats(String)}.
+ * <p>
+ * Used for methods with {@code @TestMethodOrder(TestHistoryOrderer.class)}, and for classes through
+ * {@code junit.jupiter.testclass.order.default} in {@code junit-platform.properties}.
+ */
+public class TestHistoryOrderer implements MethodOrderer, ClassOrderer {
+
+    @Override
+    public void orderMethods(MethodOrdererContext context) {
+        var history = TestHistory.shared();
+        context.getMethodDescriptors().sort(Comparator.comparing(
+                descriptor -> descriptor.getMethod().getDeclaringClass().getName() + "#" + descriptor.getMethod().getName(),
+                mostUrgentFirst(history)));
+    }
+
+    /**
+     * Ordering must not turn off parallel execution, which the default for method orderers does.
+     */
+    @Override
+    public Optional<ExecutionMode> getDefaultExecutionMode() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void orderClasses(ClassOrdererContext context) {
+        var history = TestHistory.shared();
+        context.getClassDescriptors().sort(Comparator
+                .comparingInt((ClassDescriptor descriptor) -> urgency(descriptor.getTestClass(), history))
+                .thenComparingDouble(descriptor -> expectedMillis(descriptor.getTestClass(), history)));
+    }
+
+    private static int urgency(Class<?> testClass, TestHistory history) {
+        return ShardPlanner.testsOf(testClass).stream()
+                .mapToInt(test -> urgency(history.methodStats(test)))
+                .min()
+                .orElse(2);
+    }
+
+    private static double expectedMillis(Class<?> testClass, TestHistory history) {
+        return ShardPlanner.testsOf(testClass).stream()
+                .mapToDouble(test -> expectedMillis(history.methodStats(test)))
+                .sum();
+    }
+
+    static Comparator<String> mostUrgentFirst(TestHistory history) {
+        return Comparator.<String>comparingInt(test -> urgency(history.methodStats(test)))
+                .thenComparingDouble(test -> expectedMillis(history.methodStats(test)))
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    private static int urgency(TestHistory.Stats stats) {
+        if (stats != null && stats.lastFailed()) {
+            return 0;
+        }
+        return stats == null || stats.failedRecently() ? 1 : 2;
+    }
+
+    private static double expectedMillis(TestHistory.Stats stats) {
+        return stats == null ? 0 : stats.expectedMillis();
+    }
+}
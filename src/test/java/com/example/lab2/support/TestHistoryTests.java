@@ -0,0 +1,109 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records runs in a temporary directory and reads them back, also after a crash cut the files short.
+ */
+class TestHistoryTests {
+
+    private static final String title = "com.example.lab2.SvtPlayTests#isTitleCorrect";
+    private static final String layout = "com.example.lab2.SvtPlayTests#verifyLayout";
+
+    @TempDir
+    Path directory;
+
+    private Path base() {
+        return directory.resolve("history/svtplay");
+    }
+
+    private static void truncate(Path file, long bytes) throws IOException {
+        try (var out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.setLength(out.length() - bytes);
+        }
+    }
+
+    @Test
+    void readsBackWhatWasRecorded() throws IOException {
+        try (var history = new TestHistory(base())) {
+            history.record(title, 100, false);
+            history.record(title, 200, true);
+        }
+
+        try (var history = new TestHistory(base())) {
+            var stats = history.stats(title);
+            Assertions.assertEquals(2, stats.runs());
+            Assertions.assertEquals(0.3 * 200 + 0.7 * 100, stats.expectedMillis(), 0.001);
+            Assertions.assertTrue(stats.lastFailed());
+            Assertions.assertEquals(0b1, stats.recentFailures());
+            Assertions.assertNull(history.stats(layout));
+        }
+    }
+
+    @Test
+    void ignoresARecordThatWasCutShort() throws IOException {
+        try (var history = new TestHistory(base())) {
+            history.record(title, 100, false);
+            history.record(title, 5000, true);
+        }
+        // The crash happened halfway through the second record
+        truncate(directory.resolve("history/svtplay.log"), 5);
+
+        try (var history = new TestHistory(base())) {
+            var stats = history.stats(title);
+            Assertions.assertEquals(1, stats.runs());
+            Assertions.assertEquals(100, stats.expectedMillis(), 0.001);
+            Assertions.assertFalse(stats.lastFailed());
+
+            // Appending after the cut doesn't pick up the half written record
+            history.record(title, 300, false);
+        }
+
+        try (var history = new TestHistory(base())) {
+            var stats = history.stats(title);
+            Assertions.assertEquals(2, stats.runs());
+            Assertions.assertEquals(0.3 * 300 + 0.7 * 100, stats.expectedMillis(), 0.001);
+            Assertions.assertFalse(stats.failedRecently());
+        }
+    }
+
+    @Test
+    void ignoresRecordsOfANameThatWasCutShort() throws IOException {
+        try (var history = new TestHistory(base())) {
+            history.record(title, 100, false);
+            history.record(layout + " start at 600 px", 2000, false);
+        }
+        truncate(directory.resolve("history/svtplay.idx"), 3);
+
+        try (var history = new TestHistory(base())) {
+            Assertions.assertEquals(1, history.stats(title).runs());
+            Assertions.assertNull(history.stats(layout + " start at 600 px"));
+        }
+    }
+
+    @Test
+    void addsUpTheInvocationsOfAMethod() throws IOException {
+        try (var history = new TestHistory(base())) {
+            history.record(layout + " start at 600 px", 2000, false);
+            history.record(layout + " start at 1280 px", 3000, true);
+            history.record(layout + " program at 600 px", 1000, false);
+            history.record(title, 100, false);
+
+            var stats = history.methodStats(layout);
+            Assertions.assertEquals(3, stats.runs());
+            Assertions.assertEquals(6000, stats.expectedMillis(), 0.001);
+            Assertions.assertTrue(stats.lastFailed());
+
+            Assertions.assertEquals(history.stats(title), history.methodStats(title));
+            Assertions.assertNull(history.methodStats(layout + "s"));
+        }
+        Assertions.assertTrue(Files.size(directory.resolve("history/svtplay.idx")) > 0);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.lab2.support;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Screenshots to compare the layout of the site against, one per page and viewport width.
+ * <p>
+ * Visual checks only run with {@code -Dsvtplay.visual=compare} or {@code -Dsvtplay.visual=update}.
+ * Comparing fails for a screenshot without a baseline; updating records them all, new or not.
+ * Baselines are kept in {@code src/test/visual-baselines} unless {@code -Dsvtplay.visual.baselines}
+ * says otherwise. A screenshot that differs or has no baseline is saved as {@code <name>-actual.png}
+ * in {@code target/visual-diffs}, next to the tests' other output, with a heatmap of the differences
+ * as {@code <name>-diff.png} if the sizes match.
+ * <p>
+ * The widths are taken from {@code -Dsvtplay.visual.widths}, by default 600 (where the search form
+ * collapses), 1024 and 1280. How much may differ is set through {@link ImageDiff.Settings#defaults()}.
+ */
+public class VisualBaselines {
+
+    private final Path baselines;
+    private final Path diffs;
+    private final boolean update;
+    private final ImageDiff.Settings settings;
+
+    public VisualBaselines(Path baselines, Path diffs, boolean update, ImageDiff.Settings settings) {
+        this.baselines = baselines;
+        this.diffs = diffs;
+        this.update = update;
+        this.settings = settings;
+    }
+
+    public static VisualBaselines create() {
+        return new VisualBaselines(
+                Path.of(System.getProperty("svtplay.visual.baselines", "src/test/visual-baselines")),
+                Path.of("target", "visual-diffs"),
+                "update".equals(System.getProperty("svtplay.visual")),
+                ImageDiff.Settings.defaults());
+    }
+
+    public static List<Integer> widths() {
+        return Arrays.stream(System.getProperty("svtplay.visual.widths", "600,1024,1280").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .toList();
+    }
+
+    /**
+     * Compares a screenshot with its baseline.
+     *
+     * @param name e.g. "program-600"
+     * @param png  the screenshot
+     * @return what differs, or nothing if the screenshot matches or became the new baseline
+     */
+    public Optional<String> check(String name, byte[] png) {
+        try {
+            var baseline = baselines.resolve(name + ".png");
+            if (update) {
+                Files.createDirectories(baselines);
+                Files.write(baseline, png);
+                return Optional.empty();
+            }
+            if (!Files.exists(baseline)) {
+                var actual = saveActual(name, png);
+                return Optional.of(name + ": no baseline in " + baselines + ", record one with -Dsvtplay.visual=update"
+                        + ", see " + actual);
+            }
+
+            var expected = ImageIO.read(baseline.toFile());
+            var actual = ImageIO.read(new ByteArrayInputStream(png));
+            var result = ImageDiff.compare(expected, actual, settings);
+            if (result.matches()) {
+                return Optional.empty();
+            }
+
+            var saved = saveActual(name, png);
+            if (result.mismatch() == null) {
+                saved = diffs.resolve(name + "-diff.png");
+                var heatmap = ImageDiff.heatmap(ImageDiff.pixels(expected), ImageDiff.pixels(actual), result, settings);
+                ImageIO.write(ImageDiff.toImage(heatmap, result.width(), result.height()), "png", saved.toFile());
+            }
+            return Optional.of(name + ": " + result + ", see " + saved);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compare " + name + " with its baseline", e);
+        }
+    }
+
+    private Path saveActual(String name, byte[] png) throws IOException {
+        Files.createDirectories(diffs);
+        var actual = diffs.resolve(name + "-actual.png");
+        Files.write(actual, png);
+        return actual;
+    }
+}
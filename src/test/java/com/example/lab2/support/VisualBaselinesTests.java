@@ -0,0 +1,68 @@
+package com.example.lab2.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Checks screenshots against baselines in a temporary directory.
+ */
+class VisualBaselinesTests {
+
+    private static final ImageDiff.Settings settings = new ImageDiff.Settings(0.1, 0.01, 64, false);
+
+    @TempDir
+    Path directory;
+
+    private static byte[] png(int width, int height, int color) throws IOException {
+        var pixels = new int[width * height];
+        Arrays.fill(pixels, color);
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(ImageDiff.toImage(pixels, width, height), "png", out);
+        return out.toByteArray();
+    }
+
+    private VisualBaselines baselines(boolean update) {
+        return new VisualBaselines(directory.resolve("baselines"), directory.resolve("diffs"), update, settings);
+    }
+
+    @Test
+    void comparingFailsWithoutABaseline() throws IOException {
+        var difference = baselines(false).check("start-600", png(100, 100, 0xFFFFFFFF));
+
+        Assertions.assertTrue(difference.isPresent());
+        Assertions.assertTrue(difference.get().contains("no baseline"), difference.get());
+        Assertions.assertTrue(difference.get().endsWith("start-600-actual.png"), difference.get());
+        Assertions.assertFalse(Files.exists(directory.resolve("baselines/start-600.png")));
+        Assertions.assertTrue(Files.exists(directory.resolve("diffs/start-600-actual.png")));
+    }
+
+    @Test
+    void updatingRecordsTheBaseline() throws IOException {
+        var screenshot = png(100, 100, 0xFFFFFFFF);
+
+        Assertions.assertTrue(baselines(true).check("start-600", screenshot).isEmpty());
+        Assertions.assertTrue(baselines(false).check("start-600", screenshot).isEmpty());
+    }
+
+    @Test
+    void pointsAtTheHeatmapOrTheScreenshot() throws IOException {
+        baselines(true).check("start-600", png(100, 100, 0xFFFFFFFF));
+
+        var changed = baselines(false).check("start-600", png(100, 100, 0xFF000000)).orElseThrow();
+        Assertions.assertTrue(changed.endsWith("start-600-diff.png"), changed);
+        Assertions.assertTrue(Files.exists(directory.resolve("diffs/start-600-diff.png")));
+
+        // There is no heatmap of images of different sizes
+        var resized = baselines(false).check("start-600", png(100, 80, 0xFFFFFFFF)).orElseThrow();
+        Assertions.assertTrue(resized.contains("Size differs"), resized);
+        Assertions.assertTrue(resized.endsWith("start-600-actual.png"), resized);
+    }
+}
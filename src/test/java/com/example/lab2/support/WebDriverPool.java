@@ -0,0 +1,143 @@
+package com.example.lab2.support;
+
+import org.openqa.selenium.WebDriver;
+
+import java.io.Closeable;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A fixed size pool of pre-warmed browsers, so that tests can run in parallel.
+ * <p>
+ * Browsers are created up front, in parallel, by the factory. A test leases one and releases
+ * it when done. Releasing hands the browser to a background thread that either recycles it
+ * (typically navigates back to the start page) or, if the test changed the state of the session,
+ * resets it. That way the next test doesn't pay for the cleanup. A browser that fails to recycle
+ * or reset is replaced with a brand new one.
+ */
+public class WebDriverPool implements Closeable {
+
+    private static final long leaseTimeoutSeconds = 120;
+
+    private final Supplier<WebDriver> factory;
+    private final Consumer<WebDriver> recycler;
+    private final Consumer<WebDriver> resetter;
+
+    private final BlockingQueue<WebDriver> idle = new LinkedBlockingQueue<>();
+    private final Set<WebDriver> all = ConcurrentHashMap.newKeySet();
+    private final ExecutorService background;
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * @param size     the number of browsers
+     * @param factory  creates a browser that is ready to use, e.g. with the cookie consent accepted
+     * @param recycler prepares a used, but untouched, browser for the next test
+     * @param resetter restores the initial state of a browser that a test has changed
+     */
+    public WebDriverPool(int size, Supplier<WebDriver> factory, Consumer<WebDriver> recycler,
+                         Consumer<WebDriver> resetter) {
+        this.factory = factory;
+        this.recycler = recycler;
+        this.resetter = resetter;
+        this.background = Executors.newFixedThreadPool(size);
+
+        for (int i = 0; i < size; i++) {
+            pending.incrementAndGet();
+            background.execute(this::addNew);
+        }
+    }
+
+    /**
+     * The pool size, taken from {@code -Dsvtplay.drivers}. Defaults to the number of cores.
+     */
+    public static int configuredSize() {
+        return Integer.getInteger("svtplay.drivers", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Waits for a browser to become available.
+     */
+    public WebDriver lease() {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(leaseTimeoutSeconds);
+        try {
+            while (System.nanoTime() < deadline) {
+                var driver = idle.poll(1, TimeUnit.SECONDS);
+                if (driver != null) {
+                    return driver;
+                }
+
+                // Fail fast if no browser could be started at all, e.g. when Chrome is missing
+                if (all.isEmpty() && pending.get() == 0 && lastFailure != null) {
+                    throw new IllegalStateException("No browser could be started", lastFailure);
+                }
+            }
+            throw new IllegalStateException("No browser became available within "
+                    + leaseTimeoutSeconds + " s", lastFailure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a browser", e);
+        }
+    }
+
+    /**
+     * Returns a browser to the pool.
+     *
+     * @param dirty true if the test changed the session state, e.g. cookies or settings,
+     *              in which case the browser is reset rather than just recycled
+     */
+    public void release(WebDriver driver, boolean dirty) {
+        pending.incrementAndGet();
+        background.execute(() -> {
+            try {
+                (dirty ? resetter : recycler).accept(driver);
+                idle.add(driver);
+                pending.decrementAndGet();
+            } catch (RuntimeException e) {
+                // A browser that can't be cleaned up is replaced
+                quit(driver);
+                addNew();
+            }
+        });
+    }
+
+    private void addNew() {
+        try {
+            var driver = factory.get();
+            all.add(driver);
+            idle.add(driver);
+        } catch (RuntimeException e) {
+            lastFailure = e;
+        } finally {
+            pending.decrementAndGet();
+        }
+    }
+
+    private void quit(WebDriver driver) {
+        all.remove(driver);
+        try {
+            driver.quit();
+        } catch (RuntimeException e) {
+            // Already gone
+        }
+    }
+
+    @Override
+    public void close() {
+        background.shutdownNow();
+        try {
+            background.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        all.forEach(this::quit);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.lab2.transport;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sends commands to a server that echoes them back.
+ */
+class JdkHttpClientFactoryTests {
+
+    private HttpServer server;
+
+    // The client port of every request, one per connection
+    private final Set<Integer> connections = new HashSet<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            synchronized (connections) {
+                connections.add(exchange.getRemoteAddress().getPort());
+            }
+            var body = exchange.getRequestBody().readAllBytes();
+            var echo = exchange.getRequestMethod() + " " + exchange.getRequestURI() + "\n"
+                    + exchange.getRequestHeaders().getFirst("User-Agent") + "\n"
+                    + new String(body, StandardCharsets.UTF_8);
+            var bytes = echo.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private HttpClient client() {
+        var base = URI.create("http://localhost:" + server.getAddress().getPort() + "/wd/hub");
+        return new JdkHttpClientFactory().createClient(ClientConfig.defaultConfig().baseUri(base));
+    }
+
+    @Test
+    void isFoundByName() {
+        Assertions.assertInstanceOf(JdkHttpClientFactory.class, HttpClient.Factory.create(JdkHttpClientFactory.name));
+    }
+
+    @Test
+    void sendsCommandsRelativeToTheBaseUri() {
+        var request = new HttpRequest(HttpMethod.POST, "/session/1/element");
+        request.addQueryParameter("q", "a b");
+        request.setContent(Contents.utf8String("{\"using\":\"css selector\",\"value\":\"h1\"}"));
+
+        var response = client().execute(request);
+
+        Assertions.assertEquals(200, response.getStatus());
+        var lines = Contents.string(response).split("\n");
+        Assertions.assertEquals("POST /wd/hub/session/1/element?q=a+b", lines[0]);
+        Assertions.assertTrue(lines[1].startsWith("selenium/"), "The user agent of Selenium is missing: " + lines[1]);
+        Assertions.assertEquals("{\"using\":\"css selector\",\"value\":\"h1\"}", lines[2]);
+        Assertions.assertEquals("text/plain; charset=utf-8", response.getHeader("Content-Type"));
+    }
+
+    @Test
+    void reusesTheConnection() {
+        var client = client();
+        for (var i = 0; i < 20; i++) {
+            var request = new HttpRequest(i % 2 == 0 ? HttpMethod.GET : HttpMethod.POST, "/session/1/title");
+            if (i % 2 != 0) {
+                request.setContent(Contents.utf8String("{}"));
+            }
+            Assertions.assertEquals(200, client.execute(request).getStatus());
+        }
+
+        Assertions.assertEquals(1, connections.size(), "Expected every command on the same connection");
+    }
+}
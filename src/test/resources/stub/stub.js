@@ -0,0 +1,203 @@
+// Stands in for the scripts of SVT Play, with just enough behaviour for the UI tests:
+// the cookie consent, the settings, "Min lista", the season tabs, age restrictions and the date of today.
+// Written without newer syntax, so that HtmlUnit runs it as well as Chrome.
+(function () {
+    var consentCookie = 'cookie-consent-1';
+    var months = ['jan', 'feb', 'mar', 'apr', 'maj', 'jun', 'jul', 'aug', 'sep', 'okt', 'nov', 'dec'];
+
+    function $(selector) {
+        return document.querySelector(selector);
+    }
+
+    function each(selector, action) {
+        Array.prototype.forEach.call(document.querySelectorAll(selector), action);
+    }
+
+    function consent() {
+        var match = document.cookie.match(new RegExp('(?:^|; )' + consentCookie + '=([^;]*)'));
+        try {
+            return match ? JSON.parse(match[1]) : null;
+        } catch (e) {
+            return null;
+        }
+    }
+
+    // The consent is stored as plain JSON, like the site does
+    function saveConsent(adStorage) {
+        var value = JSON.stringify({ad_storage: adStorage, analytics_storage: true, functionality_storage: true});
+        document.cookie = consentCookie + '=' + value + '; path=/; max-age=31536000';
+    }
+
+    function load(key, fallback) {
+        try {
+            return JSON.parse(localStorage.getItem(key)) || fallback;
+        } catch (e) {
+            return fallback;
+        }
+    }
+
+    function save(key, value) {
+        localStorage.setItem(key, JSON.stringify(value));
+    }
+
+    var redux = load('redux', {});
+    redux.settings = redux.settings || {};
+    if (redux.settings.autoplay === undefined) {
+        redux.settings.autoplay = true;
+    }
+    save('redux', redux);
+
+    // The cookie consent dialog, shown until a choice is saved and from the settings
+    var modal = document.createElement('div');
+    modal.setAttribute('data-rt', 'cookie-consent-modal');
+    modal.setAttribute('role', 'dialog');
+    modal.hidden = true;
+    modal.innerHTML = '<h2>SVT Play använder kakor</h2>'
+        + '<input type="checkbox" id="play_cookie_consent_ad_storage">'
+        + '<label for="play_cookie_consent_ad_storage">Annonsmätning</label>'
+        + '<button type="button" class="sc-5b00349a-2 fuGbXH sc-4f221cd2-9 hEiUxP">Spara</button>'
+        + '<button type="button" class="sc-5b00349a-2 kTqLmz">Acceptera alla</button>';
+    document.body.appendChild(modal);
+
+    var adStorage = modal.querySelector('#play_cookie_consent_ad_storage');
+    var buttons = modal.querySelectorAll('button');
+
+    function openConsent() {
+        var current = consent();
+        adStorage.checked = current === null || current.ad_storage === true;
+        modal.hidden = false;
+    }
+
+    buttons[0].addEventListener('click', function () {
+        saveConsent(adStorage.checked);
+        modal.hidden = true;
+    });
+    buttons[1].addEventListener('click', function () {
+        saveConsent(true);
+        modal.hidden = true;
+    });
+    if (consent() === null) {
+        openConsent();
+    }
+
+    // External links lead to their recorded copies on this server
+    each('a[href^="https://kontakt.svt.se/"]', function (link) {
+        link.addEventListener('click', function (event) {
+            event.preventDefault();
+            location.href = '/__host/' + link.getAttribute('href').substring('https://'.length);
+        });
+    });
+
+    // Cards follow their link wherever they are clicked
+    each('main article, li[data-rt="search-result-item"]', function (card) {
+        card.addEventListener('click', function (event) {
+            for (var node = event.target; node && node !== card; node = node.parentNode) {
+                if (node.tagName === 'A') {
+                    return;
+                }
+            }
+            var link = card.querySelector('a');
+            if (link) {
+                location.href = link.getAttribute('href');
+            }
+        });
+    });
+
+    // Settings
+    var autoplay = $('#play_settings-autoplay');
+    if (autoplay) {
+        autoplay.checked = redux.settings.autoplay;
+        autoplay.addEventListener('change', function () {
+            redux.settings.autoplay = autoplay.checked;
+            save('redux', redux);
+        });
+    }
+
+    var parentalControl = $('#play_settings-parental-control');
+    if (parentalControl) {
+        var form = $('#play_settings-parental-control-form');
+        var pin = $('#play_settings-parental-control-input');
+        var activate = $('button[data-rt="child-protection-password-activate"]');
+        parentalControl.checked = !!redux.settings.parentalControl;
+        parentalControl.addEventListener('change', function () {
+            form.hidden = !parentalControl.checked;
+        });
+        pin.addEventListener('input', function () {
+            activate.disabled = !/^[0-9]{4}$/.test(pin.value);
+        });
+        activate.addEventListener('click', function () {
+            redux.settings.parentalControl = true;
+            save('redux', redux);
+            form.hidden = true;
+        });
+    }
+
+    var cookieSettings = $('button.hLpVUw');
+    if (cookieSettings) {
+        cookieSettings.addEventListener('click', openConsent);
+    }
+
+    // Programs available abroad
+    var abroad = $('#abroad');
+    if (abroad) {
+        abroad.addEventListener('change', function () {
+            if (abroad.checked) {
+                each('li[data-only-in-sweden="true"]', function (item) {
+                    item.parentNode.removeChild(item);
+                });
+            } else {
+                location.reload();
+            }
+        });
+    }
+
+    // Program pages: "Min lista", the season shown and playing
+    var myList = $('button[data-rt="my-list-btn"]');
+    if (myList) {
+        var program = myList.getAttribute('data-program');
+        var showMyList = function () {
+            var inList = load('my-list', []).indexOf(program) >= 0;
+            myList.textContent = inList ? 'Ta bort från Min lista' : 'Lägg till i Min lista';
+        };
+        showMyList();
+        myList.addEventListener('click', function () {
+            var list = load('my-list', []);
+            var index = list.indexOf(program);
+            if (index >= 0) {
+                list.splice(index, 1);
+            } else {
+                list.push(program);
+            }
+            save('my-list', list);
+            showMyList();
+        });
+    }
+
+    each('.seasons a', function (tab) {
+        tab.addEventListener('click', function (event) {
+            event.preventDefault();
+            var name = tab.getAttribute('href').substring(1);
+            var season = $('template[data-season="' + name + '"]');
+            var shown = $('section[data-season]');
+            shown.innerHTML = season.innerHTML;
+            shown.setAttribute('data-season', name);
+        });
+    });
+
+    var play = $('a[data-rt="top-area-play-button"]');
+    if (play) {
+        play.addEventListener('click', function (event) {
+            event.preventDefault();
+            if (document.body.getAttribute('data-age-restricted') === 'true' && redux.settings.parentalControl) {
+                $('div[role="alertdialog"]').hidden = false;
+            }
+        });
+    }
+
+    // The schedule always opens on today
+    var today = $('span[data-rt="navigation-date-current"] h2');
+    if (today) {
+        var now = new Date();
+        today.textContent = 'Idag ' + now.getDate() + ' ' + months[now.getMonth()];
+    }
+})();